@@ -0,0 +1,103 @@
+package org.codemucker.jfind.benchmark;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.codemucker.jfind.ArchiveHandleCache;
+import org.codemucker.jfind.ArchiveRoot;
+import org.codemucker.jfind.ClassFilter;
+import org.codemucker.jfind.ClassResource;
+import org.codemucker.jfind.ClassScanner;
+import org.codemucker.jfind.DirectoryRoot;
+import org.codemucker.jfind.Root;
+import org.codemucker.jfind.matcher.ARootResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs the {@link ClassScanner} pipeline over a single directory or archive root. Class loading uses a new class loader per
+ * invocation so every invocation loads every class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassScannerBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int entries;
+
+    @Param({ "dir", "jar" })
+    public String rootKind;
+
+    private File path;
+    private Root root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("dir".equals(rootKind)) {
+            path = SyntheticTrees.createTempDir(entries);
+            root = new DirectoryRoot(path);
+        } else {
+            path = SyntheticTrees.createTempJar(entries);
+            root = new ArchiveRoot(path);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ArchiveHandleCache.getDefault().clear();
+        SyntheticTrees.delete(path);
+    }
+
+    @Benchmark
+    public void findClassNames(Blackhole bh) {
+        for (ClassResource resource : ClassScanner.with().scanRoots(Collections.singletonList(root)).build().findClassNames()) {
+            bh.consume(resource);
+        }
+    }
+
+    @Benchmark
+    public void findClassNamesInOnePackage(Blackhole bh) {
+        ClassScanner scanner = ClassScanner.with()
+            .scanRoots(Collections.singletonList(root))
+            .filter(ClassFilter.with().resourceMatches(ARootResource.with().packageName(SyntheticTrees.BASE_PACKAGE + ".p3.sub3")))
+            .build();
+        for (ClassResource resource : scanner.findClassNames()) {
+            bh.consume(resource);
+        }
+    }
+
+    @Benchmark
+    public void findClasses(Blackhole bh) throws Exception {
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { path.toURI().toURL() }, null);
+        try {
+            ClassScanner scanner = ClassScanner.with()
+                .scanRoots(Collections.singletonList(root))
+                .classLoader(classLoader)
+                .build();
+            for (Class<?> type : scanner.findClasses()) {
+                bh.consume(type);
+            }
+        } finally {
+            classLoader.close();
+        }
+    }
+}
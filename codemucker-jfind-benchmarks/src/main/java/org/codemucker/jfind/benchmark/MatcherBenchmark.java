@@ -0,0 +1,131 @@
+package org.codemucker.jfind.benchmark;
+
+import java.io.File;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.codemucker.jfind.DirectoryRoot;
+import org.codemucker.jfind.Root;
+import org.codemucker.jfind.RootResource;
+import org.codemucker.jfind.matcher.AClass;
+import org.codemucker.jfind.matcher.ARootResource;
+import org.codemucker.jmatch.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Evaluates {@link ARootResource} and {@link AClass} matchers against every resource (or loaded class) of a synthetic tree,
+ * without any IO. Each invocation returns the number of matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatcherBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int entries;
+
+    private File dir;
+    private URLClassLoader classLoader;
+    private RootResource[] resources;
+    private Class<?>[] classes;
+
+    private Matcher<RootResource> packageMatcher;
+    private Matcher<RootResource> antPathMatcher;
+    private Matcher<RootResource> extensionMatcher;
+    private Matcher<Class<?>> publicConcreteClassMatcher;
+    private Matcher<Class<?>> subclassMatcher;
+    private Matcher<Class<?>> nameAntPatternMatcher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = SyntheticTrees.createTempDir(entries);
+        classLoader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, null);
+        Root root = new DirectoryRoot(dir);
+
+        List<RootResource> resourceList = Lists.newArrayList();
+        List<Class<?>> classList = Lists.newArrayList();
+        for (int i = 0; i < entries; i++) {
+            String relPath = SyntheticTrees.relPath(i);
+            resourceList.add(new RootResource(root, relPath));
+            if (relPath.endsWith(".class")) {
+                String className = relPath.substring(0, relPath.length() - ".class".length()).replace('/', '.');
+                classList.add(classLoader.loadClass(className));
+            }
+        }
+        resources = resourceList.toArray(new RootResource[resourceList.size()]);
+        classes = classList.toArray(new Class<?>[classList.size()]);
+
+        packageMatcher = ARootResource.with().packageName(SyntheticTrees.BASE_PACKAGE + ".p3.sub3");
+        antPathMatcher = ARootResource.with().pathMatchingAntPattern("/com/acme/**/sub2/Type1*.class");
+        extensionMatcher = ARootResource.with().extension("class");
+        publicConcreteClassMatcher = AClass.with().isPublicConcreteClass();
+        subclassMatcher = AClass.with().isASubclassOf(Serializable.class);
+        nameAntPatternMatcher = AClass.with().fullNameAntPattern(SyntheticTrees.BASE_PACKAGE + ".p3.**");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        classLoader.close();
+        SyntheticTrees.delete(dir);
+    }
+
+    @Benchmark
+    public int resourcePackageName() {
+        return countMatches(packageMatcher, resources);
+    }
+
+    @Benchmark
+    public int resourcePathAntPattern() {
+        return countMatches(antPathMatcher, resources);
+    }
+
+    @Benchmark
+    public int resourceExtension() {
+        return countMatches(extensionMatcher, resources);
+    }
+
+    @Benchmark
+    public int classIsPublicConcrete() {
+        return countMatches(publicConcreteClassMatcher, classes);
+    }
+
+    @Benchmark
+    public int classIsSubclassOf() {
+        return countMatches(subclassMatcher, classes);
+    }
+
+    @Benchmark
+    public int classNameAntPattern() {
+        return countMatches(nameAntPatternMatcher, classes);
+    }
+
+    private static <T> int countMatches(Matcher<T> matcher, T[] items) {
+        int count = 0;
+        for (T item : items) {
+            if (matcher.matches(item)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,94 @@
+package org.codemucker.jfind.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.codemucker.jfind.ArchiveHandleCache;
+import org.codemucker.jfind.ArchiveRoot;
+import org.codemucker.jfind.ArchiveRoot.ReaderType;
+import org.codemucker.jfind.BaseRootVisitor;
+import org.codemucker.jfind.DirectoryRoot;
+import org.codemucker.jfind.Root;
+import org.codemucker.jfind.Root.RootContentType;
+import org.codemucker.jfind.Root.RootType;
+import org.codemucker.jfind.RootResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Walks every resource of a directory and archive root via {@link Root#accept(org.codemucker.jfind.RootVisitor)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RootBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int entries;
+
+    private File dir;
+    private File jar;
+    private Root dirRoot;
+    private Root zipFileRoot;
+    private Root mappedRoot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = SyntheticTrees.createTempDir(entries);
+        jar = SyntheticTrees.createTempJar(entries);
+        dirRoot = new DirectoryRoot(dir);
+        zipFileRoot = new ArchiveRoot(jar, RootType.DEPENDENCY, RootContentType.BINARY, ReaderType.ZIP_FILE);
+        mappedRoot = new ArchiveRoot(jar, RootType.DEPENDENCY, RootContentType.BINARY, ReaderType.MEMORY_MAPPED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ArchiveHandleCache.getDefault().clear();
+        SyntheticTrees.delete(dir);
+        SyntheticTrees.delete(jar);
+    }
+
+    @Benchmark
+    public void directoryRootAccept(Blackhole bh) {
+        dirRoot.accept(new ConsumingVisitor(bh));
+    }
+
+    @Benchmark
+    public void archiveRootAcceptZipFile(Blackhole bh) {
+        zipFileRoot.accept(new ConsumingVisitor(bh));
+    }
+
+    @Benchmark
+    public void archiveRootAcceptMemoryMapped(Blackhole bh) {
+        mappedRoot.accept(new ConsumingVisitor(bh));
+    }
+
+    private static class ConsumingVisitor extends BaseRootVisitor {
+        private final Blackhole bh;
+
+        ConsumingVisitor(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public boolean visit(RootResource resource) {
+            bh.consume(resource);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.codemucker.jfind.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Generates directory trees and jars of a given number of entries to scan. Spread over {@value #NUM_PACKAGES} packages each
+ * with {@value #NUM_SUB_PACKAGES} sub packages, every tenth entry is a properties file and the rest are minimal (but
+ * loadable) classes, every other one implementing {@link java.io.Serializable}.
+ */
+public final class SyntheticTrees {
+
+    public static final String BASE_PACKAGE = "com.acme";
+    public static final int NUM_PACKAGES = 20;
+    public static final int NUM_SUB_PACKAGES = 7;
+
+    private static final int PROPERTIES_EVERY = 10;
+
+    private SyntheticTrees() {
+    }
+
+    /**
+     * @return the path, relative to the root, of the nth entry
+     */
+    public static String relPath(int n) {
+        String dir = BASE_PACKAGE.replace('.', '/') + "/p" + (n % NUM_PACKAGES) + "/sub" + (n % NUM_SUB_PACKAGES) + "/";
+        return n % PROPERTIES_EVERY == 0 ? dir + "Props" + n + ".properties" : dir + "Type" + n + ".class";
+    }
+
+    public static File createTempDir(int numEntries) throws IOException {
+        File dir = File.createTempFile("jfind-bench", "");
+        dir.delete();
+        for (int i = 0; i < numEntries; i++) {
+            String relPath = relPath(i);
+            FileUtils.writeByteArrayToFile(new File(dir, relPath), content(relPath, i));
+        }
+        return dir;
+    }
+
+    public static File createTempJar(int numEntries) throws IOException {
+        File jar = File.createTempFile("jfind-bench", ".jar");
+        ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = 0; i < numEntries; i++) {
+                String relPath = relPath(i);
+                zip.putNextEntry(new ZipEntry(relPath));
+                zip.write(content(relPath, i));
+            }
+        } finally {
+            zip.close();
+        }
+        return jar;
+    }
+
+    public static void delete(File file) {
+        if (file != null) {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+
+    private static byte[] content(String relPath, int n) throws IOException {
+        if (relPath.endsWith(".class")) {
+            return classBytes(relPath.substring(0, relPath.length() - ".class".length()), n % 2 == 0);
+        }
+        return ("name=" + n + "\n").getBytes("UTF-8");
+    }
+
+    /**
+     * A public class with no members, extending Object
+     */
+    private static byte[] classBytes(String internalName, boolean serializable) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);// minor
+        out.writeShort(50);// major, java 6 so no stack maps needed
+        out.writeShort(serializable ? 7 : 5);// constant pool count
+        writeClassConstant(out, internalName, 1);
+        writeClassConstant(out, "java/lang/Object", 3);
+        if (serializable) {
+            writeClassConstant(out, "java/io/Serializable", 5);
+        }
+        out.writeShort(0x0001 | 0x0020);// public super
+        out.writeShort(2);// this
+        out.writeShort(4);// super
+        if (serializable) {
+            out.writeShort(1);
+            out.writeShort(6);
+        } else {
+            out.writeShort(0);
+        }
+        out.writeShort(0);// fields
+        out.writeShort(0);// methods
+        out.writeShort(0);// attributes
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a utf8 constant at the given index and a class constant referring to it at the next
+     */
+    private static void writeClassConstant(DataOutputStream out, String internalName, int utf8Index) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(internalName);
+        out.writeByte(7);
+        out.writeShort(utf8Index);
+    }
+}
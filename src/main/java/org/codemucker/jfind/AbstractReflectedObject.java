@@ -1,21 +1,76 @@
 package org.codemucker.jfind;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.codemucker.jmatch.Matcher;
 
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Annotations are read from the underlying element on first use, and looked up by type name via a map built at the same time
+ */
 public abstract class AbstractReflectedObject {
 
-    private final Annotation[] annotations;
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+    
+    /** null if the annotations were given */
+    private final AnnotatedElement element;
     private final int modifiers;
+    private volatile Annotation[] annotations;
+    /** by annotation type name */
+    private volatile Map<String, Annotation> annotationsByType;
 
     public AbstractReflectedObject(Annotation[] annotations, int modifiers) {
         super();
-        this.annotations = annotations;
+        this.element = null;
+        this.annotations = annotations == null ? NO_ANNOTATIONS : annotations;
+        this.modifiers = modifiers;
+    }
+    
+    /**
+     * @param element whose annotations are read when first needed
+     */
+    protected AbstractReflectedObject(AnnotatedElement element, int modifiers) {
+        super();
+        this.element = element;
         this.modifiers = modifiers;
     }
+    
+    private Annotation[] annotations() {
+        Annotation[] found = annotations;
+        if (found == null) {
+            // racing threads read the same annotations, so no need to lock
+            found = element.getAnnotations();
+            annotations = found;
+        }
+        return found;
+    }
+    
+    private Map<String, Annotation> annotationsByType() {
+        Map<String, Annotation> byType = annotationsByType;
+        if (byType == null) {
+            Annotation[] found = annotations();
+            if (found.length == 0) {
+                byType = ImmutableMap.of();
+            } else {
+                ImmutableMap.Builder<String, Annotation> builder = ImmutableMap.builder();
+                for (Annotation a : found) {
+                    builder.put(a.annotationType().getName(), a);
+                }
+                byType = builder.build();
+            }
+            annotationsByType = byType;
+        }
+        return byType;
+    }
+    
+    public boolean hasAnnotations() {
+        return annotations().length > 0;
+    }
 
     public <A extends Annotation> boolean hasAnnotation(Class<A> annotationClass) {
         return getAnnotation(annotationClass) != null;
@@ -30,25 +85,20 @@ public abstract class AbstractReflectedObject {
     }
 
     public <A extends Annotation> A getAnnotation(Class<A> annotationClass) {
-        for (Annotation a : annotations) {
-            if (a.getClass().equals(annotationClass)) {
-                return (A) a;
-            }
+        Annotation a = annotationsByType().get(annotationClass.getName());
+        // same name could be a different class, from another class loader
+        if (a != null && a.annotationType() == annotationClass) {
+            return annotationClass.cast(a);
         }
         return null;
     }
 
     public Annotation getAnnotation(String fullName) {
-        for (Annotation a : annotations) {
-            if (a.getClass().getName().equals(fullName)) {
-                return a;
-            }
-        }
-        return null;
+        return annotationsByType().get(fullName);
     }
 
     public Annotation getAnnotation(Matcher<Annotation> matcher) {
-        for (Annotation a : annotations) {
+        for (Annotation a : annotations()) {
             if (matcher.matches(a)) {
                 return a;
             }
@@ -58,7 +108,7 @@ public abstract class AbstractReflectedObject {
 
     public FindResult<Annotation> findAnnotations(Matcher<Annotation> matcher) {
         List<Annotation> found = new ArrayList<>();
-        for (Annotation a : annotations) {
+        for (Annotation a : annotations()) {
             if (matcher.matches(a)) {
                 found.add(a);
             }
@@ -0,0 +1,81 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Maps annotation type names to the classes annotated with them, as read from the class files without loading the classes.
+ * Only runtime visible annotations declared directly on a class are indexed, not inherited or meta annotations.
+ *
+ * <p>Built in a single pass over a scan's class infos, after which each lookup is a single map lookup. See
+ * {@link ClassScanner#getAnnotationIndex()}</p>
+ */
+public final class AnnotationIndex {
+
+    private final Map<String, List<ClassInfo>> byAnnotation;
+    private final int numClasses;
+
+    private AnnotationIndex(Map<String, List<ClassInfo>> byAnnotation, int numClasses) {
+        this.byAnnotation = byAnnotation;
+        this.numClasses = numClasses;
+    }
+
+    public static AnnotationIndex from(Iterable<ClassInfo> classInfos) {
+        Map<String, List<ClassInfo>> building = newHashMap();
+        int numClasses = 0;
+        for (ClassInfo info : classInfos) {
+            numClasses++;
+            for (String annotationName : info.getAnnotationNames()) {
+                List<ClassInfo> annotated = building.get(annotationName);
+                if (annotated == null) {
+                    annotated = newArrayList();
+                    building.put(annotationName, annotated);
+                }
+                annotated.add(info);
+            }
+        }
+        ImmutableMap.Builder<String, List<ClassInfo>> byAnnotation = ImmutableMap.builder();
+        for (Map.Entry<String, List<ClassInfo>> entry : building.entrySet()) {
+            byAnnotation.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        return new AnnotationIndex(byAnnotation.build(), numClasses);
+    }
+
+    /**
+     * @param annotationName the full annotation type name, as in 'javax.inject.Singleton'
+     * @return the classes annotated with the given annotation, in scan order. Empty if none
+     */
+    public List<ClassInfo> getClassInfosAnnotatedWith(String annotationName) {
+        List<ClassInfo> annotated = byAnnotation.get(checkNotNull(annotationName, "expect annotation name"));
+        return annotated == null ? Collections.<ClassInfo> emptyList() : annotated;
+    }
+
+    /**
+     * @return the names of all the annotations found on the indexed classes
+     */
+    public Set<String> getAnnotationNames() {
+        return byAnnotation.keySet();
+    }
+
+    /**
+     * @return the number of classes the index was built from, annotated or not
+     */
+    public int getNumClassesIndexed() {
+        return numClasses;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("numClasses", numClasses).add("numAnnotations", byAnnotation.size()).toString();
+    }
+}
@@ -0,0 +1,32 @@
+package org.codemucker.jfind;
+
+/**
+ * Order dependent 64 bit FNV-1a hash of an archive's central directory entries, so both archive readers compute the same
+ * fingerprint. See {@link ArchiveRoot#getFingerprint()}
+ */
+final class ArchiveFingerprint {
+
+    static final long START = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private ArchiveFingerprint() {
+    }
+
+    static long addByte(long hash, int b) {
+        return (hash ^ (b & 0xFF)) * PRIME;
+    }
+
+    static long addLong(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = addByte(hash, (int) (value >>> shift));
+        }
+        return hash;
+    }
+
+    /**
+     * Add an entry's crc and size, after its name bytes have been added
+     */
+    static long addEntry(long hash, long crc, long size) {
+        return addLong(addLong(hash, crc), size);
+    }
+}
@@ -0,0 +1,279 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Objects;
+
+/**
+ * Shares open archive handles between scans and resource reads, so each archive is only opened once, and bounds the number
+ * of archives held open.
+ *
+ * <p>Handles are reference counted. A handle is only closed once it is no longer in use, and it is either the least
+ * recently used idle handle when more than {@link #getMaxOpen()} are open, or its archive has changed on disk (checked via
+ * the file's timestamp and size on each acquire), or the cache is {@link #clear()}ed. If all the open handles are in use the
+ * limit is temporarily exceeded rather than blocking.</p>
+ *
+ * <p>The default limit of the {@link #getDefault() process wide cache} can be set via the system property
+ * {@value #PROP_MAX_OPEN}. Thread safe.</p>
+ */
+public final class ArchiveHandleCache {
+
+    public static final String PROP_MAX_OPEN = "jfind.archive.maxOpen";
+    public static final int DEFAULT_MAX_OPEN = 64;
+
+    private static final ArchiveHandleCache DEFAULT = new ArchiveHandleCache(Integer.getInteger(PROP_MAX_OPEN, DEFAULT_MAX_OPEN));
+
+    /**
+     * Opens the underlying archive handle on a cache miss
+     */
+    static interface Opener<T extends Closeable> {
+        T open();
+    }
+
+    /** in least to most recently used order */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private int maxOpen;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public static ArchiveHandleCache getDefault() {
+        return DEFAULT;
+    }
+
+    public ArchiveHandleCache(int maxOpen) {
+        setMaxOpen(maxOpen);
+    }
+
+    public synchronized int getMaxOpen() {
+        return maxOpen;
+    }
+
+    /**
+     * Set the maximum number of idle archive handles to keep open. Closes the least recently used idle handles if more are
+     * currently open
+     */
+    public void setMaxOpen(int maxOpen) {
+        checkArgument(maxOpen > 0, "expect max open to be 1 or more but was %s", maxOpen);
+        List<Entry> evicted;
+        synchronized (this) {
+            this.maxOpen = maxOpen;
+            evicted = evictIdle();
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Acquire the handle for the given archive, opening it if not already open. The caller must close the returned handle
+     * once done with it
+     *
+     * @param key identifies the handle, includes anything which affects how the archive is opened
+     */
+    <T extends Closeable> Handle<T> acquire(String key, File archive, Opener<T> opener) {
+        checkNotNull(key, "expect key");
+        long lastModified = archive.lastModified();
+        long length = archive.length();
+        Entry entry;
+        List<Entry> retired = newArrayList();
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && (entry.lastModified != lastModified || entry.length != length)) {
+                entries.remove(key);
+                retire(entry, retired);
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                entry = new Entry(key, lastModified, length);
+                entries.put(key, entry);
+            } else {
+                hits++;
+            }
+            entry.refs++;
+        }
+        closeAll(retired);
+        try {
+            synchronized (entry) {
+                if (entry.value == null) {
+                    entry.value = opener.open();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            release(entry);
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+                // anyone else waiting on the open will try again, and close it on release
+                entry.retired = true;
+            }
+            throw e;
+        }
+        List<Entry> evicted;
+        synchronized (this) {
+            evicted = evictIdle();
+        }
+        closeAll(evicted);
+        return new Handle<T>(this, entry);
+    }
+
+    private void release(Entry entry) {
+        List<Entry> toClose;
+        synchronized (this) {
+            entry.refs--;
+            if (entry.retired) {
+                toClose = entry.refs == 0 ? newArrayList(entry) : null;
+            } else {
+                toClose = evictIdle();
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Close all idle handles. Handles in use are closed once released
+     */
+    public void clear() {
+        List<Entry> toClose = newArrayList();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                retire(entry, toClose);
+            }
+            entries.clear();
+        }
+        closeAll(toClose);
+    }
+
+    private void retire(Entry entry, List<Entry> toClose) {
+        entry.retired = true;
+        if (entry.refs == 0) {
+            toClose.add(entry);
+        }
+    }
+
+    /**
+     * Must hold the lock. Returns the entries to close once the lock is released
+     */
+    private List<Entry> evictIdle() {
+        List<Entry> evicted = null;
+        int excess = entries.size() - maxOpen;
+        for (Iterator<Entry> iter = entries.values().iterator(); excess > 0 && iter.hasNext();) {
+            Entry entry = iter.next();
+            if (entry.refs == 0) {
+                iter.remove();
+                entry.retired = true;
+                evictions++;
+                excess--;
+                if (evicted == null) {
+                    evicted = newArrayList();
+                }
+                evicted.add(entry);
+            }
+        }
+        return evicted;
+    }
+
+    private static void closeAll(List<Entry> entries) {
+        if (entries != null) {
+            for (Entry entry : entries) {
+                synchronized (entry) {
+                    IOUtils.closeQuietly(entry.value);
+                    entry.value = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of handles currently cached (including any being opened), in use or not
+     */
+    public synchronized int getOpenCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return Objects
+            .toStringHelper(this)
+            .add("maxOpen", maxOpen)
+            .add("open", entries.size())
+            .add("hits", hits)
+            .add("misses", misses)
+            .add("evictions", evictions)
+            .toString();
+    }
+
+    private static class Entry {
+        final String key;
+        final long lastModified;
+        final long length;
+        /** guarded by the cache */
+        int refs;
+        /** guarded by the cache. Removed from the cache, close once no longer in use */
+        boolean retired;
+        /** guarded by this entry */
+        Closeable value;
+
+        Entry(String key, long lastModified, long length) {
+            this.key = key;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    /**
+     * A reference to an open archive handle. Close to release it back to the cache
+     */
+    static final class Handle<T extends Closeable> implements Closeable {
+        private final ArchiveHandleCache cache;
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Handle(ArchiveHandleCache cache, Entry entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get() {
+            synchronized (entry) {
+                return (T) entry.value;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                cache.release(entry);
+            }
+        }
+    }
+}
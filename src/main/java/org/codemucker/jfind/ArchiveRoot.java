@@ -2,34 +2,85 @@ package org.codemucker.jfind;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.Enumeration;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.io.IOUtils;
+import org.codemucker.lang.IBuilder;
 import org.codemucker.lang.PathUtil;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 
 /**
  * Classpath root which handles archive (zip) files
+ *
+ * <p>Multi-release jars are read as the class loader would, each resource coming from the highest
+ * 'META-INF/versions/N' entry for the {@link Builder#releaseVersion(int) release version}, else from the base entry. Archives
+ * within this one (as in the jars in a war's WEB-INF/lib) are available as roots of their own via {@link #getNestedRoots()},
+ * and are scanned along with this one if {@link Builder#nestedArchives(boolean) set to}.</p>
  */
-public class ArchiveRoot implements Root {
+public class ArchiveRoot implements IterableRoot {
+	
+	/**
+	 * How the archive is read
+	 */
+	public static enum ReaderType {
+		/** via a {@link ZipFile}. Handles any archive the JDK can */
+		ZIP_FILE,
+		/**
+		 * memory maps the archive and reads the central directory directly. Faster to list large archives, and allocates
+		 * less per entry, though each listed file's name is still decoded to a string to be matched. Only supports stored and
+		 * deflated entries, and archives up to 2GB
+		 */
+		MEMORY_MAPPED;
+	}
+	
 	private final File archivePath;
 	private final RootType type;
 	private final RootContentType contentType;
-	private final AtomicReference<ZipWrapper> cachedZip = new AtomicReference<ZipWrapper>();
+	private final ReaderType readerType;
+	/** for multi-release jars, or zero to ignore the versioned entries */
+	private final int releaseVersion;
+	/** the archive this one is nested in, or null if not nested */
+	private final ArchiveRoot parent;
+	/** this archive's path in the parent, or null if not nested */
+	private final String entryPath;
+	/** whether scans (and root sets) expand this root to include its nested archives */
+	private final boolean includeNestedArchives;
 	private static final String[] EXTENSIONS = new String[]{ ".jar",".zip"};
+	private static final String[] NESTED_EXTENSIONS = new String[]{ ".jar",".zip",".war" };
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String VERSIONS_DIR = "META-INF/versions/";
+	private static final Attributes.Name MULTI_RELEASE = new Attributes.Name("Multi-Release");
+	/** by full path, so shared by all the root instances of an archive */
+	private static final Map<String, Fingerprint> FINGERPRINTS = new ConcurrentHashMap<String, Fingerprint>();
+	
+	public static Builder with(){
+	    return new Builder();
+	}
 	
 	public static boolean is(File f){
 	    if(f.isFile()){
@@ -46,12 +97,64 @@ public class ArchiveRoot implements Root {
 	}
 	
 	public ArchiveRoot(File path,RootType type,RootContentType contentType){
+		this(path,type,contentType,ReaderType.ZIP_FILE);
+	}
+	
+	public ArchiveRoot(File path,RootType type,RootContentType contentType,ReaderType readerType){
+		this(path,type,contentType,readerType,runtimeReleaseVersion(),false);
+	}
+	
+	private ArchiveRoot(File path,RootType type,RootContentType contentType,ReaderType readerType,int releaseVersion,boolean includeNestedArchives){
 		this.archivePath = checkNotNull(path,"expect path");
 		this.type = checkNotNull(type,"expect root relation");
 		this.contentType = checkNotNull(contentType,"expect root content type");
+		this.readerType = checkNotNull(readerType,"expect reader type");
+		this.releaseVersion = releaseVersion;
+		this.parent = null;
+		this.entryPath = null;
+		this.includeNestedArchives = includeNestedArchives;
 		checkState(path.isFile(),"expect archive file to be a file");
 	}
 	
+	/**
+	 * An archive nested in the given one. Always read via a {@link MappedZipFile} over the entry's content
+	 */
+	private ArchiveRoot(ArchiveRoot parent, String entryPath){
+		this.archivePath = parent.archivePath;
+		this.type = parent.type;
+		this.contentType = parent.contentType;
+		this.readerType = ReaderType.MEMORY_MAPPED;
+		this.releaseVersion = parent.releaseVersion;
+		this.parent = parent;
+		this.entryPath = entryPath;
+		this.includeNestedArchives = false;
+	}
+	
+	/**
+	 * A copy of this root which is expanded to include its nested archives when scanned. The archive isn't opened
+	 */
+	ArchiveRoot withNestedArchives() {
+		if (includeNestedArchives || parent != null) {
+			return this;
+		}
+		return new ArchiveRoot(archivePath,type,contentType,readerType,releaseVersion,true);
+	}
+	
+	/**
+	 * The running JVM's release, as in 8 or 17, which the class loader reads multi-release jars as
+	 */
+	static int runtimeReleaseVersion() {
+		String version = System.getProperty("java.specification.version", "8");
+		if (version.startsWith("1.")) {
+			version = version.substring(2);
+		}
+		try {
+			return Integer.parseInt(version);
+		} catch (NumberFormatException e) {
+			return 8;
+		}
+	}
+	
 	@Override
     public boolean canWriteResource(String relPath) {
 	    return false;
@@ -59,13 +162,24 @@ public class ArchiveRoot implements Root {
 
 	@Override
     public boolean canReadResource(String relPath) {
-	    return archivePath.exists() && archivePath.canRead() && getZip().hasEntry(relPath);
+	    if (!archivePath.exists() || !archivePath.canRead()) {
+	    	return false;
+	    }
+	    ArchiveHandleCache.Handle<ArchiveReader> zip = acquireZip();
+	    try {
+	    	return zip.get().hasEntry(relPath);
+	    } finally {
+	    	zip.close();
+	    }
     }
 	
 
     @Override
     public String getResourceFullPath(String relPath) {
     	PathUtil.validateIsSafeChildPathOnly(relPath);
+    	if (parent != null) {
+    		return parent.getResourceFullPath(entryPath) + "!" + relPath;
+    	}
     	return archivePath.getAbsolutePath() + "!" + relPath;
     }
     
@@ -79,7 +193,7 @@ public class ArchiveRoot implements Root {
     public URL getResourceUrl(String relPath){
         try {
         	PathUtil.validateIsSafeChildPathOnly(relPath);
-            return new URL(archivePath.toURI().toURL().toExternalForm() + "!"  + relPath);
+            return new URL(toURL().toExternalForm() + "!"  + relPath);
         } catch (MalformedURLException e) {
             throw new JFindException("couldn't convert relative path '" + relPath + "' to url", e);
         }
@@ -87,10 +201,15 @@ public class ArchiveRoot implements Root {
     
     @Override
     public long getResourceLastModified(String relPath) {
-        ZipWrapper zip = getZip();
-        long ts = zip.getEntry(relPath).getTime();
-        if (ts < 0) {
-            ts = zip.latModified();
+        long ts;
+        ArchiveHandleCache.Handle<ArchiveReader> zip = acquireZip();
+        try {
+            ts = zip.get().getEntryTime(relPath);
+            if (ts < 0) {
+                ts = zip.get().lastModified();
+            }
+        } finally {
+            zip.close();
         }
         if (ts <= 0L) {
             ts = Root.TIMESTAMP_NOT_EXIST;
@@ -98,8 +217,84 @@ public class ArchiveRoot implements Root {
         return ts;
     }
     
+    /**
+     * Return a fingerprint of the archive's content, to key caches on instead of timestamps. Hashes the name, crc and size of
+     * every entry as recorded in the central directory, plus the archive's length, so only the central directory is read and
+     * no entry is decompressed.
+     *
+     * <p>Unlike the archive's timestamp, this stays the same when an archive is rebuilt with the same content. It's only
+     * recomputed (via the {@link ArchiveHandleCache}) when the archive's timestamp or length changes, so a rebuild with
+     * different content but the same timestamp and length isn't detected.</p>
+     *
+     * @return the fingerprint, or {@link Root#TIMESTAMP_NOT_EXIST} if the archive doesn't exist
+     */
+    public long getFingerprint() {
+        if (!archivePath.isFile()) {
+            return Root.TIMESTAMP_NOT_EXIST;
+        }
+        if (parent != null) {
+            // the parent's covers the crc of this archive's entry
+            return parent.getFingerprint() * 31 + entryPath.hashCode();
+        }
+        long lastModified = archivePath.lastModified();
+        long length = archivePath.length();
+        String key = getFullPath();
+        Fingerprint fingerprint = FINGERPRINTS.get(key);
+        if (fingerprint == null || fingerprint.lastModified != lastModified || fingerprint.length != length) {
+            ArchiveHandleCache.Handle<ArchiveReader> zip = acquireZip();
+            try {
+                fingerprint = new Fingerprint(lastModified, length, zip.get().fingerprint() * 31 + length);
+            } finally {
+                zip.close();
+            }
+            FINGERPRINTS.put(key, fingerprint);
+        }
+        return fingerprint.value;
+    }
+    
+    /**
+     * The archives within this one, as in the jars in a war's WEB-INF/lib, each as a root of its own. A nested archive is read
+     * in place if stored uncompressed and this archive is read via {@link ReaderType#MEMORY_MAPPED}, else it's inflated into
+     * memory when first opened. Nested archives are never extracted to disk.
+     */
+    public List<ArchiveRoot> getNestedRoots() {
+        List<ArchiveRoot> nested = newArrayList();
+        CloseableIterator<RootResource> resources = resourceIterator();
+        try {
+            while (resources.hasNext()) {
+                String relPath = resources.next().getRelPath();
+                for (String ext : NESTED_EXTENSIONS) {
+                    if (relPath.regionMatches(true, relPath.length() - ext.length(), ext, 0, ext.length())) {
+                        nested.add(new ArchiveRoot(this, relPath));
+                        break;
+                    }
+                }
+            }
+        } finally {
+            resources.close();
+        }
+        return nested;
+    }
+    
+    /**
+     * @return whether a scan of this root also scans the archives nested in it, see {@link #getNestedRoots()}
+     */
+    public boolean isIncludeNestedArchives() {
+        return includeNestedArchives;
+    }
+    
+    /**
+     * @return the archive this one is nested in, or null if not nested
+     */
+    public ArchiveRoot getParentOrNull() {
+        return parent;
+    }
+    
     @Override
     public URL toURL(){
+        if (parent != null) {
+            return parent.getResourceUrl(entryPath);
+        }
         try {
             return archivePath.toURI().toURL();
         } catch (MalformedURLException e) {
@@ -114,11 +309,30 @@ public class ArchiveRoot implements Root {
 	
 	@Override
 	public InputStream getResourceInputStream(String relPath) throws IOException {
-		return getZip().getEntryInputStream(relPath);
+		final ArchiveHandleCache.Handle<ArchiveReader> zip = acquireZip();
+		try {
+			// keep the archive open until the stream is closed
+			return new FilterInputStream(zip.get().getEntryInputStream(relPath)) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						zip.close();
+					}
+				}
+			};
+		} catch (IOException | RuntimeException e) {
+			zip.close();
+			throw e;
+		}
 	}
 	
 	@Override
 	public String getFullPath(){
+		if (parent != null) {
+			return parent.getFullPath() + "!" + entryPath;
+		}
 		return PathUtil.toForwardSlashes(archivePath.getAbsolutePath());
 	}
 
@@ -132,6 +346,17 @@ public class ArchiveRoot implements Root {
 		return contentType;
 	}
 	
+	public ReaderType getReaderType(){
+		return readerType;
+	}
+	
+	/**
+	 * @return the release multi-release jars are read as, or zero if the versioned entries are read as plain entries
+	 */
+	public int getReleaseVersion(){
+		return releaseVersion;
+	}
+	
 	@Override
 	public String toString(){
 		return Objects
@@ -139,6 +364,8 @@ public class ArchiveRoot implements Root {
     		.add("path", getFullPath())
     		.add("type", type)
     		.add("contentType", contentType)
+    		.add("readerType", readerType)
+    		.add("releaseVersion", releaseVersion)
     		.add("isArchive", true)
     		.add("exists", archivePath.canRead())
      		.toString();
@@ -152,24 +379,103 @@ public class ArchiveRoot implements Root {
 		visitor.endVisit(this);
 	}
 
-	private void visitResources(RootVisitor visitor) {
-		ZipWrapper zip = getZip();
+	private void visitResources(final RootVisitor visitor) {
+		CloseableIterator<RootResource> resources = resourceIterator(new DirectoryFilter() {
+			@Override
+			public boolean isIncludeDirectory(String relDirPath) {
+				return visitor.visitDirectory(ArchiveRoot.this, relDirPath);
+			}
+		});
 		try {
-			zip.visitZipEntries(visitor);
+			while (resources.hasNext()) {
+				RootResource zipResourceEntry = resources.next();
+				visitor.visit(zipResourceEntry);
+				visitor.endVisit(zipResourceEntry);
+				if (isCancelled()) {
+					return;
+				}
+			}
 		} finally {
-		    cachedZip.set(null);
-		    IOUtils.closeQuietly(zip);
+			resources.close();
 		}
 	}
+
+	/**
+	 * Iterates over the archive entries. The archive handle is held (so can't be evicted from the {@link ArchiveHandleCache})
+	 * until the iterator is exhausted or closed
+	 */
+	@Override
+	public CloseableIterator<RootResource> resourceIterator() {
+		return resourceIterator(null);
+	}
 	
-   private ZipWrapper getZip() {       
-        ZipWrapper wrapper = cachedZip.get();
-        if (wrapper == null) {
-            wrapper = new ZipWrapper(this, archivePath);
-            cachedZip.set(wrapper);
-        }
-        return wrapper;
-    }
+	/**
+	 * As {@link #resourceIterator()}. Entries are grouped by their directory part, and the filter is asked once per distinct
+	 * directory (and each of its parents). Entries in rejected directories are skipped without their names being decoded,
+	 * when using {@link ReaderType#MEMORY_MAPPED}
+	 */
+	@Override
+	public CloseableIterator<RootResource> resourceIterator(DirectoryFilter dirFilter) {
+		return new ZipEntryIterator(acquireZip(), dirFilter);
+	}
+	
+	/**
+	 * The open archive, shared via the {@link ArchiveHandleCache}. Must be closed once done with
+	 */
+	private ArchiveHandleCache.Handle<ArchiveReader> acquireZip() {
+		String key = readerType + ":" + releaseVersion + ":" + getFullPath();
+		// nested archives are keyed on the outermost file, so reopened when it changes
+		return ArchiveHandleCache.getDefault().acquire(key, archivePath, new ArchiveHandleCache.Opener<ArchiveReader>() {
+			@Override
+			public ArchiveReader open() {
+				return openReader();
+			}
+		});
+	}
+	
+	private ArchiveReader openReader() {
+		ArchiveReader reader;
+		if (parent != null) {
+			reader = new MappedZipWrapper(this, archivePath, parent.readEntryContent(entryPath));
+		} else if (readerType == ReaderType.MEMORY_MAPPED) {
+			reader = new MappedZipWrapper(this, archivePath);
+		} else {
+			reader = new ZipWrapper(this, archivePath);
+		}
+		if (releaseVersion > 0 && isMultiRelease(reader)) {
+			reader = new MultiReleaseReader(reader, releaseVersion);
+		}
+		return reader;
+	}
+	
+	/**
+	 * The content of the given entry, in place if possible, else copied into memory
+	 */
+	private ByteBuffer readEntryContent(String relPath) {
+		ArchiveHandleCache.Handle<ArchiveReader> zip = acquireZip();
+		try {
+			return zip.get().getEntryContent(relPath);
+		} catch (IOException e) {
+			throw new JFindException("Error reading nested archive '" + relPath + "' in " + this, e);
+		} finally {
+			zip.close();
+		}
+	}
+	
+	private boolean isMultiRelease(ArchiveReader reader) {
+		if (!reader.hasEntry("META-INF/MANIFEST.MF")) {
+			return false;
+		}
+		InputStream in = null;
+		try {
+			in = reader.getEntryInputStream("META-INF/MANIFEST.MF");
+			return "true".equalsIgnoreCase(new Manifest(in).getMainAttributes().getValue(MULTI_RELEASE));
+		} catch (IOException e) {
+			return false;// unreadable manifest, read as a plain archive as the class loader would
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
 
 	private static boolean isCancelled(){
 		return Thread.interrupted();
@@ -189,6 +495,7 @@ public class ArchiveRoot implements Root {
 		result = prime * result
 				+ ((contentType == null) ? 0 : contentType.hashCode());
 		result = prime * result + ((archivePath == null) ? 0 : archivePath.hashCode());
+		result = prime * result + ((entryPath == null) ? 0 : entryPath.hashCode());
 		result = prime * result
 				+ ((type == null) ? 0 : type.hashCode());
 		return result;
@@ -210,6 +517,8 @@ public class ArchiveRoot implements Root {
 				return false;
 		} else if (!archivePath.equals(other.archivePath))
 			return false;
+		if (!Objects.equal(entryPath, other.entryPath) || !Objects.equal(parent, other.parent))
+			return false;
 		if (type != other.type)
 			return false;
 		return true;
@@ -225,18 +534,92 @@ public class ArchiveRoot implements Root {
         return false;
     }
     
-    private static class ZipWrapper implements Closeable {
+    /**
+     * The operations needed on an open archive, so the way the archive is read can be switched
+     */
+    private static interface ArchiveReader extends Closeable {
+        long lastModified();
+        
+        InputStream getEntryInputStream(String relPath) throws IOException;
+        
+        boolean hasEntry(String relPath);
+        
+        long getEntryTime(String relPath);
+        
+        /**
+         * @see ArchiveFingerprint
+         */
+        long fingerprint();
+        
+        /**
+         * The entry's content, in place if possible, else copied into memory
+         */
+        ByteBuffer getEntryContent(String relPath) throws IOException;
+        
+        /**
+         * The names of all the non directory entries, as stored in the archive
+         * 
+         * @param dirs decides which directories to include, may be null for all
+         */
+        Iterator<String> fileNames(DirectoryDecisions dirs);
+    }
+    
+    /**
+     * Remembers the filter's decision for each archive directory, so it's asked at most once per directory. As when walking a
+     * file system, a directory is only included if all its parents are
+     */
+    private static class DirectoryDecisions {
+        private final DirectoryFilter filter;
+        private final Map<String, Boolean> decisions = newHashMap();
+        
+        DirectoryDecisions(DirectoryFilter filter) {
+            this.filter = filter;
+        }
+        
+        /**
+         * @param zipDir as in 'com/acme', empty for the top level
+         */
+        boolean isInclude(String zipDir) {
+            if (zipDir.startsWith("/")) {
+                zipDir = zipDir.substring(1);// some archives store names with a leading slash
+            }
+            if (zipDir.isEmpty()) {
+                return true;
+            }
+            Boolean include = decisions.get(zipDir);
+            if (include == null) {
+                int slash = zipDir.lastIndexOf('/');
+                include = isInclude(slash == -1 ? "" : zipDir.substring(0, slash)) && filter.isIncludeDirectory("/" + zipDir);
+                decisions.put(zipDir, include);
+            }
+            return include;
+        }
+    }
+    
+    private static void checkCanRead(ArchiveRoot root, File archivePath) {
+        if (!archivePath.exists()) {
+            throw new JFindException(String.format("Couldn't find archive %s", root));
+        }
+        if (!archivePath.canRead()) {
+            throw new JFindException(String.format("Couldn't read archive %s as is not readable", root));
+        }
+    }
+    
+    private static String toZipPath(String relPath){
+        relPath = relPath.replace('\\', '/');
+        if(relPath.startsWith("/")){
+            relPath = relPath.substring(1);
+        }
+        return relPath;
+    }
+    
+    private static class ZipWrapper implements ArchiveReader {
         private final ZipFile zip;
         private final File archivePath;
         private final ArchiveRoot root;
         
         ZipWrapper(ArchiveRoot root, File archivePath) {
-            if (!archivePath.exists()) {
-                throw new JFindException(String.format("Couldn't find archive %s", root));
-            }
-            if (!archivePath.canRead()) {
-                throw new JFindException(String.format("Couldn't read archive %s as is not readable", root));
-            }
+            checkCanRead(root, archivePath);
             this.archivePath = archivePath;
             this.root = root;
             try {
@@ -248,19 +631,52 @@ public class ArchiveRoot implements Root {
             }
         }
         
-        long latModified(){
+        @Override
+        public long lastModified(){
             return archivePath.lastModified();
         }
 
-        InputStream getEntryInputStream(String relPath) throws IOException {
+        @Override
+        public InputStream getEntryInputStream(String relPath) throws IOException {
             return zip.getInputStream(getEntry(relPath));
         }
 
-        boolean hasEntry(String relPath) {
-            return zip.getEntry(relPath)!=null;
+        @Override
+        public boolean hasEntry(String relPath) {
+            return zip.getEntry(toZipPath(relPath))!=null;
+        }
+        
+        @Override
+        public long getEntryTime(String relPath) {
+            return getEntry(relPath).getTime();
+        }
+        
+        @Override
+        public ByteBuffer getEntryContent(String relPath) throws IOException {
+            ZipEntry entry = getEntry(relPath);
+            InputStream in = zip.getInputStream(entry);
+            try {
+                return ByteBuffer.wrap(entry.getSize() >= 0 ? IOUtils.toByteArray(in, entry.getSize()) : IOUtils.toByteArray(in));
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        }
+
+        @Override
+        public long fingerprint() {
+            long hash = ArchiveFingerprint.START;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                for (byte b : entry.getName().getBytes(UTF8)) {
+                    hash = ArchiveFingerprint.addByte(hash, b);
+                }
+                hash = ArchiveFingerprint.addEntry(hash, entry.getCrc(), entry.getSize());
+            }
+            return hash;
         }
         
-        ZipEntry getEntry(String relPath) {
+        private ZipEntry getEntry(String relPath) {
             relPath = toZipPath(relPath);
             ZipEntry entry = zip.getEntry(relPath);
             if (entry == null) {
@@ -268,36 +684,373 @@ public class ArchiveRoot implements Root {
             }
             return entry;
         }
+
+        @Override
+        public Iterator<String> fileNames(final DirectoryDecisions dirs){
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            return new AbstractIterator<String>() {
+                private String lastDir;
+                private boolean lastInclude;
+                
+                @Override
+                protected String computeNext() {
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (!entry.isDirectory() && (dirs == null || isIncludeDir(entry.getName()))) {
+                            return entry.getName();
+                        }
+                    }
+                    return endOfData();
+                }
+                
+                private boolean isIncludeDir(String name) {
+                    int slash = Math.max(0, name.lastIndexOf('/'));
+                    if (lastDir == null || slash != lastDir.length() || !name.regionMatches(0, lastDir, 0, slash)) {
+                        lastDir = name.substring(0, slash);
+                        lastInclude = dirs.isInclude(lastDir);
+                    }
+                    return lastInclude;
+                }
+            };
+        }
         
-        private static String toZipPath(String relPath){
-            relPath = relPath.replace('\\', '/');
-            if(relPath.startsWith("/")){
-                relPath = relPath.substring(1);
+        @Override
+        public void close() throws IOException {
+            IOUtils.closeQuietly(zip);
+        }
+    }
+    
+    private static class MappedZipWrapper implements ArchiveReader {
+        private final MappedZipFile zip;
+        private final File archivePath;
+        private final ArchiveRoot root;
+        
+        MappedZipWrapper(ArchiveRoot root, File archivePath) {
+            checkCanRead(root, archivePath);
+            this.archivePath = archivePath;
+            this.root = root;
+            try {
+                zip = MappedZipFile.open(archivePath);
+            } catch (IOException e) {
+                throw new JFindException("Error opening archive " + root, e);
             }
-            return relPath;
+        }
+        
+        /**
+         * Read an archive nested in the given file
+         */
+        MappedZipWrapper(ArchiveRoot root, File archivePath, ByteBuffer content) {
+            this.archivePath = archivePath;
+            this.root = root;
+            try {
+                zip = MappedZipFile.wrap(archivePath, content);
+            } catch (IOException e) {
+                throw new JFindException("Error opening archive " + root, e);
+            }
+        }
+        
+        @Override
+        public long lastModified(){
+            return archivePath.lastModified();
         }
 
-        void visitZipEntries(RootVisitor visitor){
-            Enumeration<? extends ZipEntry> entries = zip.entries();
-            while(entries.hasMoreElements()){
-                ZipEntry entry = entries.nextElement();
-                if( !entry.isDirectory()){
-                    String name = entry.getName();
-                    name = ensureStartsWithSlash(name);
-                    RootResource zipResourceEntry = new RootResource(root, name);
-                    visitor.visit(zipResourceEntry);
-                    visitor.endVisit(zipResourceEntry);
-                    if (isCancelled()) {
-                        return;
+        @Override
+        public InputStream getEntryInputStream(String relPath) throws IOException {
+            return zip.getInputStream(getEntryIndex(relPath));
+        }
+
+        @Override
+        public boolean hasEntry(String relPath) {
+            return zip.indexOf(toZipPath(relPath)) != -1;
+        }
+        
+        @Override
+        public long getEntryTime(String relPath) {
+            return zip.getTime(getEntryIndex(relPath));
+        }
+        
+        @Override
+        public long fingerprint() {
+            return zip.fingerprint();
+        }
+        
+        @Override
+        public ByteBuffer getEntryContent(String relPath) throws IOException {
+            int index = getEntryIndex(relPath);
+            ByteBuffer stored = zip.getStoredContentOrNull(index);
+            if (stored != null) {
+                return stored;
+            }
+            InputStream in = zip.getInputStream(index);
+            try {
+                return ByteBuffer.wrap(IOUtils.toByteArray(in, zip.getSize(index)));
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        
+        private int getEntryIndex(String relPath) {
+            relPath = toZipPath(relPath);
+            int index = zip.indexOf(relPath);
+            if (index == -1) {
+                throw new JFindException(String.format("Couldn't find archive entry '%s' in archive %s", relPath,root));
+            }
+            return index;
+        }
+
+        @Override
+        public Iterator<String> fileNames(final DirectoryDecisions dirs){
+            return new AbstractIterator<String>() {
+                private int next;
+                private int lastDirIndex = -1;
+                private boolean lastInclude;
+                
+                @Override
+                protected String computeNext() {
+                    while (next < zip.size()) {
+                        int index = next++;
+                        if (!zip.isDirectory(index) && (dirs == null || isIncludeDir(index))) {
+                            return zip.getName(index);
+                        }
+                    }
+                    return endOfData();
+                }
+                
+                private boolean isIncludeDir(int index) {
+                    if (lastDirIndex == -1 || !zip.isSameDir(index, lastDirIndex)) {
+                        lastDirIndex = index;
+                        lastInclude = dirs.isInclude(zip.getDirName(index));
                     }
+                    return lastInclude;
+                }
+            };
+        }
+        
+        @Override
+        public void close() {
+            zip.close();
+        }
+    }
+
+    /**
+     * Reads a multi-release jar as the class loader would, each entry from the highest versioned entry up to the release,
+     * else the base entry. The versioned entries themselves aren't listed
+     */
+    private static class MultiReleaseReader implements ArchiveReader {
+        private final ArchiveReader reader;
+        /** logical name to the versioned entry to read instead */
+        private final Map<String, String> versioned = newHashMap();
+        /** logical names with no base entry, only versioned ones */
+        private final List<String> versionedOnly = newArrayList();
+        
+        MultiReleaseReader(ArchiveReader reader, int releaseVersion) {
+            this.reader = reader;
+            Map<String, Integer> versions = newHashMap();
+            Iterator<String> names = reader.fileNames(null);
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!name.startsWith(VERSIONS_DIR)) {
+                    continue;
+                }
+                int slash = name.indexOf('/', VERSIONS_DIR.length());
+                int version = slash == -1 ? -1 : parseVersion(name.substring(VERSIONS_DIR.length(), slash));
+                if (version < 0 || version > releaseVersion) {
+                    continue;
+                }
+                String logicalName = name.substring(slash + 1);
+                Integer current = versions.get(logicalName);
+                if (current == null || version > current) {
+                    versions.put(logicalName, version);
+                    versioned.put(logicalName, name);
+                }
+            }
+            for (String logicalName : versioned.keySet()) {
+                if (!reader.hasEntry(logicalName)) {
+                    versionedOnly.add(logicalName);
                 }
             }
         }
         
+        private static int parseVersion(String version) {
+            try {
+                return Integer.parseInt(version);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        
+        private String resolve(String relPath) {
+            String name = versioned.get(toZipPath(relPath));
+            return name == null ? relPath : name;
+        }
+        
+        @Override
+        public long lastModified() {
+            return reader.lastModified();
+        }
+
+        @Override
+        public InputStream getEntryInputStream(String relPath) throws IOException {
+            return reader.getEntryInputStream(resolve(relPath));
+        }
+
+        @Override
+        public boolean hasEntry(String relPath) {
+            return reader.hasEntry(resolve(relPath));
+        }
+
+        @Override
+        public long getEntryTime(String relPath) {
+            return reader.getEntryTime(resolve(relPath));
+        }
+
+        @Override
+        public long fingerprint() {
+            return reader.fingerprint();
+        }
+
+        @Override
+        public ByteBuffer getEntryContent(String relPath) throws IOException {
+            return reader.getEntryContent(resolve(relPath));
+        }
+
+        @Override
+        public Iterator<String> fileNames(final DirectoryDecisions dirs) {
+            final Iterator<String> names = reader.fileNames(dirs);
+            Iterator<String> base = new AbstractIterator<String>() {
+                @Override
+                protected String computeNext() {
+                    while (names.hasNext()) {
+                        String name = names.next();
+                        if (!name.startsWith(VERSIONS_DIR)) {
+                            return name;
+                        }
+                    }
+                    return endOfData();
+                }
+            };
+            final Iterator<String> extra = versionedOnly.iterator();
+            return Iterators.concat(base, new AbstractIterator<String>() {
+                @Override
+                protected String computeNext() {
+                    while (extra.hasNext()) {
+                        String name = extra.next();
+                        if (dirs == null || dirs.isInclude(name.substring(0, Math.max(0, name.lastIndexOf('/'))))) {
+                            return name;
+                        }
+                    }
+                    return endOfData();
+                }
+            });
+        }
+
         @Override
         public void close() throws IOException {
-            IOUtils.closeQuietly(zip);
+            reader.close();
+        }
+    }
+
+    /**
+     * An archive's fingerprint, and the archive timestamp and length it was computed for
+     */
+    private static class Fingerprint {
+        final long lastModified;
+        final long length;
+        final long value;
+
+        Fingerprint(long lastModified, long length, long value) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.value = value;
+        }
+    }
+
+    public static class Builder implements IBuilder<ArchiveRoot> {
+
+        private File path;
+        private RootType type = RootType.UNKNOWN;
+        private RootContentType contentType = RootContentType.BINARY;
+        private ReaderType readerType = ReaderType.ZIP_FILE;
+        private int releaseVersion = runtimeReleaseVersion();
+        private boolean nestedArchives;
+
+        @Override
+        public ArchiveRoot build() {
+            return new ArchiveRoot(path,type,contentType,readerType,releaseVersion,nestedArchives);
+        }
+
+        public Builder path(File path) {
+            this.path = path;
+            return this;
+        }
+
+        public Builder type(RootType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder contentType(RootContentType contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
+        public Builder readerType(ReaderType readerType) {
+            this.readerType = readerType;
+            return this;
+        }
+
+        /**
+         * Whether to read multi-release jars as the running JVM would (the default), or to read the versioned entries as
+         * plain entries
+         */
+        public Builder multiRelease(boolean multiRelease) {
+            this.releaseVersion = multiRelease ? runtimeReleaseVersion() : 0;
+            return this;
+        }
+
+        /**
+         * Whether scans (and root sets) also include the archives nested in this one, each as a root of its own. The archive
+         * is only listed for them when first scanned. Default is false
+         */
+        public Builder nestedArchives(boolean nestedArchives) {
+            this.nestedArchives = nestedArchives;
+            return this;
+        }
+
+        /**
+         * Read multi-release jars as the given release would, as in 11
+         */
+        public Builder releaseVersion(int releaseVersion) {
+            this.releaseVersion = releaseVersion;
+            return this;
         }
     }
 
+    private class ZipEntryIterator extends AbstractIterator<RootResource> implements CloseableIterator<RootResource> {
+        private final ArchiveHandleCache.Handle<ArchiveReader> zip;
+        private final Iterator<String> names;
+        private boolean closed;
+
+        ZipEntryIterator(ArchiveHandleCache.Handle<ArchiveReader> zip, DirectoryFilter dirFilter) {
+            this.zip = zip;
+            this.names = zip.get().fileNames(dirFilter == null ? null : new DirectoryDecisions(dirFilter));
+        }
+
+        @Override
+        protected RootResource computeNext() {
+            if (!closed && names.hasNext()) {
+                return new RootResource(ArchiveRoot.this, ensureStartsWithSlash(names.next()));
+            }
+            close();
+            return endOfData();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                zip.close();
+            }
+        }
+    }
 }
@@ -9,6 +9,11 @@ public class BaseFilter implements Filter {
         return true;
     }
     
+    @Override
+    public boolean isIncludeDirectory(Root root, String relDirPath) {
+        return true;
+    }
+    
     @Override
     public boolean isIncludeResource(RootResource resource) {
         return true;
@@ -19,6 +24,10 @@ public class BaseFilter implements Filter {
         return true;
     }
 
+	@Override
+    public boolean isIncludeClassInfo(ClassInfo classInfo) {
+        return true;
+    }
 	
 	@Override
     public boolean isIncludeClass(Class<?> classToMatch) {
@@ -10,6 +10,8 @@ public class BaseMatchListener<T> implements MatchListener<T> {
 			onMatched((RootResource) result);
 		} else if (result instanceof ClassResource) {
 			onMatched((ClassResource) result);
+		} else if (result instanceof ClassInfo) {
+			onMatched((ClassInfo) result);
 		} else if (result instanceof Class) {
 			onMatched((Class<?>) result);
 		}
@@ -23,6 +25,8 @@ public class BaseMatchListener<T> implements MatchListener<T> {
 			onIgnored((RootResource) result);
 		} else if (result instanceof ClassResource) {
 			onIgnored((ClassResource) result);
+		} else if (result instanceof ClassInfo) {
+			onIgnored((ClassInfo) result);
 		} else if (result instanceof Class) {
 			onIgnored((Class<?>) result);
 		}
@@ -41,6 +45,9 @@ public class BaseMatchListener<T> implements MatchListener<T> {
 	protected void onIgnored(ClassResource record) {
 	}
 
+	protected void onIgnored(ClassInfo record) {
+	}
+
 	protected void onIgnored(Class<?> record) {
 	}
 
@@ -53,6 +60,9 @@ public class BaseMatchListener<T> implements MatchListener<T> {
 	protected void onMatched(ClassResource record) {
 	}
 
+	protected void onMatched(ClassInfo record) {
+	}
+
 	protected void onMatched(Class<?> record) {
 	}
 
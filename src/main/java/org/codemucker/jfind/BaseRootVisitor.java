@@ -15,6 +15,11 @@ public class BaseRootVisitor implements RootVisitor {
 	public void endVisit(Root root) {
 	}
 
+	@Override
+	public boolean visitDirectory(Root root, String relDirPath) {
+		return true;
+	}
+
 	@Override
 	public boolean visit(RootResource resource) {
 		return true;
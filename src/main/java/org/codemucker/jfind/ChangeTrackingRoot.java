@@ -0,0 +1,16 @@
+package org.codemucker.jfind;
+
+import java.util.List;
+
+/**
+ * A {@link Root} which tracks which of its resources were added, changed or removed, so a rescan only needs to look at what
+ * changed instead of walking the whole root again. See {@link ClassScanner#findResourceChanges()}
+ */
+public interface ChangeTrackingRoot extends Root {
+
+    /**
+     * Return the changes since the previous call and start tracking afresh, so each change is only returned once. The first
+     * call returns every resource as {@link ResourceChange.Type#ADDED}
+     */
+    List<ResourceChange> takeChanges();
+}
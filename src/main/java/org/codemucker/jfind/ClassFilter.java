@@ -9,6 +9,7 @@ public class ClassFilter implements Filter{
 	
 	private final Matcher<Root> rootMatcher;
 	private final Matcher<RootResource> resourceMatcher;
+	private final Matcher<ClassInfo> classInfoMatcher;
 	private final Matcher<Class<?>> classMatcher;
 	
 	public static Builder where(){
@@ -22,10 +23,12 @@ public class ClassFilter implements Filter{
 	private ClassFilter(
 			Matcher<Root> rootMatcher
 			, Matcher<RootResource> resourceMatcher
+			, Matcher<ClassInfo> classInfoMatcher
 			, Matcher<Class<?>> classMatcher
 			){
 		this.rootMatcher = anyIfNull(rootMatcher);
 		this.resourceMatcher = anyIfNull(resourceMatcher);
+		this.classInfoMatcher = anyIfNull(classInfoMatcher);
 		this.classMatcher = anyIfNull(classMatcher);
 	}
 	
@@ -43,11 +46,28 @@ public class ClassFilter implements Filter{
 		return rootMatcher.matches(root);
 	}
 
+	/**
+	 * Uses the path hint of the resource matcher if it provides one (as {@link org.codemucker.jfind.matcher.ARootResource} does
+	 * for package and path matches)
+	 */
+	@Override
+	public boolean isIncludeDirectory(Root root, String relDirPath) {
+		if (resourceMatcher instanceof DirectoryFilter) {
+			return ((DirectoryFilter) resourceMatcher).isIncludeDirectory(relDirPath);
+		}
+		return true;
+	}
+
 	@Override
 	public boolean isIncludeClassResource(ClassResource resource) {
 		return true;
 	}
 
+	@Override
+	public boolean isIncludeClassInfo(ClassInfo classInfo) {
+		return classInfoMatcher.matches(classInfo);
+	}
+
 	@Override
 	public boolean isIncludeClass(Class<?> classToMatch) {
 		return classMatcher.matches(classToMatch);
@@ -67,6 +87,7 @@ public class ClassFilter implements Filter{
 	    
 		private Matcher<Root> rootMatcher;
 		private Matcher<RootResource> resourceMatcher;
+		private Matcher<ClassInfo> classInfoMatcher;
 		private Matcher<Class<?>> classMatcher;
 		
 		@Override
@@ -74,6 +95,7 @@ public class ClassFilter implements Filter{
 			return new ClassFilter(
 				rootMatcher
 				, resourceMatcher
+				, classInfoMatcher
 				, classMatcher
 			);
 		}
@@ -83,6 +105,14 @@ public class ClassFilter implements Filter{
         	return this;
         }
 
+		/**
+		 * Match on the class file metadata before the class is loaded. Classes not matching are never loaded
+		 */
+		public Builder classInfoMatches(Matcher<ClassInfo> classInfoMatcher) {
+			this.classInfoMatcher = classInfoMatcher;
+			return this;
+		}
+
 		public Builder rootMatches(Matcher<Root> matcher) {
         	this.rootMatcher = matcher;
         	return this;
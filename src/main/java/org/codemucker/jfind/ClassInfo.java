@@ -0,0 +1,150 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Objects;
+
+/**
+ * Lightweight metadata about a class, read directly from the class file bytes without loading the class. This allows
+ * matching on names, modifiers, super types and annotations before deciding whether it's worth handing the class to a
+ * class loader.
+ *
+ * <p>All type names are in their binary form (as used by {@link ClassLoader#loadClass(String)}), e.g. 'com.acme.Foo$Bar'</p>
+ */
+public class ClassInfo {
+
+    /** Class file access flags not exposed via {@link Modifier} */
+    public static final int ACC_SYNTHETIC = 0x1000;
+    public static final int ACC_ANNOTATION = 0x2000;
+    public static final int ACC_ENUM = 0x4000;
+
+    private final RootResource resource;
+    private final String className;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+    private final int accessFlags;
+
+    public ClassInfo(RootResource resource, String className, String superClassName, List<String> interfaceNames, List<String> annotationNames, int accessFlags) {
+        this.resource = checkNotNull(resource, "expect resource");
+        this.className = checkNotNull(className, "expect class name");
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames == null ? Collections.<String> emptyList() : Collections.unmodifiableList(interfaceNames);
+        this.annotationNames = annotationNames == null ? Collections.<String> emptyList() : Collections.unmodifiableList(annotationNames);
+        this.accessFlags = accessFlags;
+    }
+
+    public RootResource getResource() {
+        return resource;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the name of the direct super class, or null if this is java.lang.Object (or module-info)
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * @return the names of the interfaces directly declared on this class. Does not include inherited interfaces
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * @return the names of the runtime visible annotations declared directly on this class (as per {@link Class#getDeclaredAnnotations()})
+     */
+    public List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    public boolean hasAnnotation(String fullName) {
+        return annotationNames.contains(fullName);
+    }
+
+    public boolean hasInterface(String fullName) {
+        return interfaceNames.contains(fullName);
+    }
+
+    /**
+     * @return the class's modifiers as {@link Class#getModifiers()} reports them, so for a nested class those it was declared
+     * with, not those written to its class file. Compatible with {@link Modifier} for the flags they share
+     */
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public String getPackageName() {
+        int dot = className.lastIndexOf('.');
+        return dot == -1 ? "" : className.substring(0, dot);
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & Modifier.INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (accessFlags & ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isEnum() {
+        return (accessFlags & ACC_ENUM) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (accessFlags & Modifier.ABSTRACT) != 0;
+    }
+
+    public boolean isPublic() {
+        return (accessFlags & Modifier.PUBLIC) != 0;
+    }
+
+    public boolean isSynthetic() {
+        return (accessFlags & ACC_SYNTHETIC) != 0;
+    }
+
+    /**
+     * Name based check, true if this is a nested class of any kind (inner, local or anonymous)
+     */
+    public boolean isNested() {
+        return className.indexOf('$') != -1;
+    }
+
+    /**
+     * Name based check, true if the compiler generated name of this class marks it as anonymous (as in Foo$1)
+     */
+    public boolean isAnonymous() {
+        int dollar = className.lastIndexOf('$');
+        if (dollar == -1 || dollar == className.length() - 1) {
+            return false;
+        }
+        for (int i = dollar + 1; i < className.length(); i++) {
+            if (!Character.isDigit(className.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return Objects
+            .toStringHelper(this)
+            .add("className", className)
+            .add("superClassName", superClassName)
+            .add("interfaceNames", interfaceNames)
+            .add("annotationNames", annotationNames)
+            .add("accessFlags", accessFlags)
+            .add("resource", resource)
+            .toString();
+    }
+}
@@ -0,0 +1,332 @@
+package org.codemucker.jfind;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads the {@link ClassInfo} straight out of the class file bytes, without loading or initialising the class.
+ *
+ * <p>Only the constant pool entries actually required are decoded into strings, everything else (fields, methods, code,
+ * non annotation attributes) is skipped over.</p>
+ *
+ * <p>See the JVM spec, chapter 4 'The class File Format'</p>
+ */
+public final class ClassInfoReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_FLOAT = 4;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_CLASS = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_FIELD_REF = 9;
+    private static final int TAG_METHOD_REF = 10;
+    private static final int TAG_INTERFACE_METHOD_REF = 11;
+    private static final int TAG_NAME_AND_TYPE = 12;
+    private static final int TAG_METHOD_HANDLE = 15;
+    private static final int TAG_METHOD_TYPE = 16;
+    private static final int TAG_DYNAMIC = 17;
+    private static final int TAG_INVOKE_DYNAMIC = 18;
+    private static final int TAG_MODULE = 19;
+    private static final int TAG_PACKAGE = 20;
+
+    private static final String ATTR_RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String ATTR_INNER_CLASSES = "InnerClasses";
+
+    /** only tells the JVM how to treat invokespecial, and shares its value with {@link java.lang.reflect.Modifier#SYNCHRONIZED} */
+    private static final int ACC_SUPER = 0x0020;
+
+    private final byte[] bytes;
+    /** offset of each constant pool entry's tag byte, indexed by constant pool index */
+    private int[] cpOffsets;
+    private int pos;
+
+    private ClassInfoReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Read the class info from the given class file resource
+     *
+     * @throws IOException if the resource could not be read
+     * @throws JFindException if the resource is not a valid class file
+     */
+    public static ClassInfo read(RootResource resource) throws IOException {
+        return read(resource, (ScanStats.RootStats) null);
+    }
+
+    /**
+     * @param stats if not null, records the number of bytes read
+     */
+    static ClassInfo read(RootResource resource, ScanStats.RootStats stats) throws IOException {
+        InputStream is = null;
+        byte[] classBytes;
+        try {
+            is = resource.getInputStream();
+            classBytes = IOUtils.toByteArray(is);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        if (stats != null) {
+            stats.onBytesRead(classBytes.length);
+        }
+        return read(resource, classBytes);
+    }
+
+    /**
+     * Read the class info from the given class file bytes
+     *
+     * @param resource the resource the bytes were read from
+     * @param classBytes the full class file contents
+     * @throws JFindException if the bytes are not a valid class file
+     */
+    public static ClassInfo read(RootResource resource, byte[] classBytes) {
+        try {
+            return new ClassInfoReader(classBytes).readClassInfo(resource);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new JFindException("Truncated or corrupt class file " + resource, e);
+        }
+    }
+
+    private ClassInfo readClassInfo(RootResource resource) {
+        if (u4() != MAGIC) {
+            throw new JFindException("Not a class file (bad magic number) " + resource);
+        }
+        pos += 4; // minor and major version
+        readConstantPool(resource);
+
+        int accessFlags = u2() & ~ACC_SUPER;
+        String className = className(u2());
+        String superClassName = className(u2());
+
+        int numInterfaces = u2();
+        List<String> interfaceNames = numInterfaces == 0 ? Collections.<String> emptyList() : new ArrayList<String>(numInterfaces);
+        for (int i = 0; i < numInterfaces; i++) {
+            interfaceNames.add(className(u2()));
+        }
+
+        skipMembers();// fields
+        skipMembers();// methods
+
+        List<String> annotationNames = Collections.emptyList();
+        int numAttributes = u2();
+        for (int i = 0; i < numAttributes; i++) {
+            int nameIndex = u2();
+            int length = u4();
+            int end = pos + length;
+            if (utf8Equals(nameIndex, ATTR_RUNTIME_VISIBLE_ANNOTATIONS)) {
+                annotationNames = readAnnotationNames();
+            } else if (className != null && utf8Equals(nameIndex, ATTR_INNER_CLASSES)) {
+                accessFlags = readNestedAccessFlags(className, accessFlags);
+            }
+            pos = end;
+        }
+        if (className == null) {
+            throw new JFindException("Class file has no class name " + resource);
+        }
+        return new ClassInfo(resource, className, superClassName, interfaceNames, annotationNames, accessFlags);
+    }
+
+    /**
+     * A nested class's private, protected and static modifiers are only recorded in the InnerClasses attribute (the class
+     * itself is written as public or package private, and never static), so take its flags from its own entry, if any
+     */
+    private int readNestedAccessFlags(String className, int accessFlags) {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            int innerClassIndex = u2();
+            pos += 4;// outer class and simple name
+            int innerAccessFlags = u2();
+            if (className.equals(className(innerClassIndex))) {
+                return innerAccessFlags;
+            }
+        }
+        return accessFlags;
+    }
+
+    private void readConstantPool(RootResource resource) {
+        int count = u2();
+        cpOffsets = new int[count];
+        for (int i = 1; i < count; i++) {
+            cpOffsets[i] = pos;
+            int tag = bytes[pos++] & 0xFF;
+            switch (tag) {
+            case TAG_UTF8:
+                pos += 2 + u2();
+                break;
+            case TAG_CLASS:
+            case TAG_STRING:
+            case TAG_METHOD_TYPE:
+            case TAG_MODULE:
+            case TAG_PACKAGE:
+                pos += 2;
+                break;
+            case TAG_METHOD_HANDLE:
+                pos += 3;
+                break;
+            case TAG_INTEGER:
+            case TAG_FLOAT:
+            case TAG_FIELD_REF:
+            case TAG_METHOD_REF:
+            case TAG_INTERFACE_METHOD_REF:
+            case TAG_NAME_AND_TYPE:
+            case TAG_DYNAMIC:
+            case TAG_INVOKE_DYNAMIC:
+                pos += 4;
+                break;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                pos += 8;
+                i++; // takes up two slots
+                break;
+            default:
+                throw new JFindException("Unknown constant pool tag " + tag + " at index " + i + " in class file " + resource);
+            }
+        }
+    }
+
+    private void skipMembers() {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            pos += 6; // access, name, descriptor
+            skipAttributes();
+        }
+    }
+
+    private void skipAttributes() {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            pos += 2;
+            int length = u4();
+            pos += length;
+        }
+    }
+
+    private List<String> readAnnotationNames() {
+        int count = u2();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String descriptor = utf8(u2());
+            names.add(descriptorToClassName(descriptor));
+            skipElementValuePairs();
+        }
+        return names;
+    }
+
+    private void skipAnnotation() {
+        pos += 2;// type
+        skipElementValuePairs();
+    }
+
+    private void skipElementValuePairs() {
+        int numPairs = u2();
+        for (int i = 0; i < numPairs; i++) {
+            pos += 2;// name
+            skipElementValue();
+        }
+    }
+
+    private void skipElementValue() {
+        char tag = (char) (bytes[pos++] & 0xFF);
+        switch (tag) {
+        case 'e':// enum: type and const name
+            pos += 4;
+            break;
+        case '@':
+            skipAnnotation();
+            break;
+        case '[':
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                skipElementValue();
+            }
+            break;
+        default:// primitive, string or class constant index
+            pos += 2;
+        }
+    }
+
+    private static String descriptorToClassName(String descriptor) {
+        // Lcom/acme/Foo; ==> com.acme.Foo
+        if (descriptor.length() > 2 && descriptor.charAt(0) == 'L' && descriptor.charAt(descriptor.length() - 1) == ';') {
+            descriptor = descriptor.substring(1, descriptor.length() - 1);
+        }
+        return descriptor.replace('/', '.');
+    }
+
+    private String className(int cpIndex) {
+        if (cpIndex == 0) {
+            return null;
+        }
+        int offset = cpOffsets[cpIndex];
+        if ((bytes[offset] & 0xFF) != TAG_CLASS) {
+            throw new JFindException("Expected a class constant at constant pool index " + cpIndex);
+        }
+        return utf8(u2(offset + 1)).replace('/', '.');
+    }
+
+    private boolean utf8Equals(int cpIndex, String ascii) {
+        int offset = cpOffsets[cpIndex];
+        int len = u2(offset + 1);
+        if (len != ascii.length()) {
+            return false;
+        }
+        int start = offset + 3;
+        for (int i = 0; i < len; i++) {
+            if (bytes[start + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the 'modified utf8' constant at the given index
+     */
+    private String utf8(int cpIndex) {
+        int offset = cpOffsets[cpIndex];
+        if ((bytes[offset] & 0xFF) != TAG_UTF8) {
+            throw new JFindException("Expected a utf8 constant at constant pool index " + cpIndex);
+        }
+        int len = u2(offset + 1);
+        int i = offset + 3;
+        int end = i + len;
+        char[] chars = new char[len];
+        int numChars = 0;
+        while (i < end) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[numChars++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[numChars++] = (char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F));
+            } else {
+                chars[numChars++] = (char) (((b & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+            }
+        }
+        return new String(chars, 0, numChars);
+    }
+
+    private int u2() {
+        int val = u2(pos);
+        pos += 2;
+        return val;
+    }
+
+    private int u2(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private int u4() {
+        int val = ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16) | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+        pos += 4;
+        return val;
+    }
+}
@@ -1,21 +1,68 @@
 package org.codemucker.jfind;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.codemucker.jfind.Root.RootType;
+import org.codemucker.jfind.ScanStats.RootStats;
+import org.codemucker.jfind.ScanStats.Stage;
 import org.codemucker.lang.IBuilder;
 import org.codemucker.lang.PathUtil;
 
 import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * Scans a set of {@link Root}s for resources and classes.
+ *
+ * <p>By default roots are visited one after the other on the calling thread. If a {@link Builder#parallelism(int)} greater
+ * than one or an {@link Builder#executor(ExecutorService)} is set, roots are visited concurrently, one root per task. Results
+ * are always returned in root (classpath) order. In parallel mode the {@link Filter} and {@link MatchListener} root and resource
+ * callbacks are invoked from the worker threads, possibly concurrently, so they must be thread safe. Resources within a single
+ * root are always visited by a single thread, in order. The later class name, class info and class loading stages always run
+ * on the calling thread.</p>
+ * 
+ * <p>The find methods return lazy results. Nothing is scanned until the result is iterated, and each iteration performs a
+ * new scan (invoking the filter and listener callbacks again). Call {@link FindResult#toList()} to scan once and keep the
+ * results.</p>
+ *
+ * <p>Archive roots set to include their nested archives (see {@link ArchiveRoot.Builder#nestedArchives(boolean)}) are
+ * expanded when scanned, each nested archive being visited as a root of its own straight after its parent.</p>
+ *
+ * <p>If a {@link Builder#index(File)} is set, unchanged roots are listed (and their class files described) from the index
+ * instead of being walked and read. The index is updated and saved when a result has been fully iterated or closed.</p>
+ *
+ * <p>Classes are loaded without being initialised. With {@link Builder#throwawayClassLoading(boolean)} candidate classes are
+ * first loaded into a loader which is discarded after each scan, and only the matched classes are then loaded into the
+ * target class loader.</p>
+ *
+ * <p>To find classes by annotation or super type without a full scan each time, see
+ * {@link #findClassesAnnotatedWith(String)} and {@link #findSubtypesOf(String)}. To rescan only what changed in roots which
+ * track their changes, see {@link #findResourceChanges()}.</p>
+ *
+ * <p>Unless turned off via {@link Builder#collectStats(boolean)}, each result records per root timings and counts as it is
+ * iterated, see {@link FindResult#getStats()}.</p>
+ */
 public class ClassScanner {
 
     public static interface Filter {
@@ -23,10 +70,28 @@ public class ClassScanner {
 
         public boolean isIncludeRoot(Root root);
 
+        /**
+         * Called before descending into a directory (or archive path prefix) of a root. Return false to skip everything under it
+         * without it being listed. Defaults to including every directory
+         *
+         * @param relDirPath as in '/com/acme'
+         */
+        public default boolean isIncludeDirectory(Root root, String relDirPath) {
+            return true;
+        }
+
         public boolean isIncludeResource(RootResource resource);
 
         public boolean isIncludeClassResource(ClassResource resource);
 
+        /**
+         * Called before the class is loaded. Return false to prevent the class being loaded at all. Defaults to including every
+         * class
+         */
+        public default boolean isIncludeClassInfo(ClassInfo classInfo) {
+            return true;
+        }
+
         public boolean isIncludeClass(Class<?> classToMatch);
 
         public boolean isIncludeArchive(RootResource archiveFile);
@@ -56,16 +121,30 @@ public class ClassScanner {
     private final ClassLoader classLoader;
     private final Filter filter;
     private final MatchListener<Object> listener;
+    /** if set, used to visit the roots in parallel. Not owned by this scanner */
+    private final ExecutorService executor;
+    private final int parallelism;
+    /** optional, may be null */
+    private final ScanIndex index;
+    private final boolean collectStats;
+    private final boolean throwawayClassLoading;
+    /** built on first use */
+    private volatile ClassIndexes classIndexes;
     
     public static Builder with() {
         return new Builder();
     }
 
-    private ClassScanner(Iterable<Root> roots, Filter filter, ClassLoader classLoader, MatchListener<Object> listener) {
+    private ClassScanner(Iterable<Root> roots, Filter filter, ClassLoader classLoader, MatchListener<Object> listener, ExecutorService executor, int parallelism, ScanIndex index, boolean collectStats, boolean throwawayClassLoading) {
         this.scanRoots = ensureUnique(roots);
         this.filter = checkNotNull(filter, "expect filter");
         this.classLoader = checkNotNull(classLoader, "expect class loader");
         this.listener = listener==null?DEFAULT_LISTENER:listener;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.index = index;
+        this.collectStats = collectStats;
+        this.throwawayClassLoading = throwawayClassLoading;
     }
 
     private List<Root> ensureUnique(Iterable<Root> roots) {
@@ -91,36 +170,208 @@ public class ClassScanner {
     }
 
     public FindResult<Class<?>> findClasses() {
-        return DefaultFindResult.from(findClasses(findClassNames()));
+        ScanStats stats = newStats();
+        return loadClasses(findClassInfos(stats), stats);
     }
 
-    private Collection<Class<?>> findClasses(Iterable<ClassResource> classNames) {
-        Collection<Class<?>> classes = newArrayList();
-        for (ClassResource r : classNames) {
-            loadClass(classes, r.getResource(), r.getClassName());
+    /**
+     * Return the classes annotated with the given annotation, via the {@link #getAnnotationIndex() annotation index}. Only the
+     * annotated classes are loaded
+     */
+    public FindResult<Class<?>> findClassesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return findClassesAnnotatedWith(annotation.getName());
+    }
+
+    /**
+     * Return the classes annotated with the given annotation, via the {@link #getAnnotationIndex() annotation index}. Only the
+     * annotated classes are loaded
+     *
+     * @param annotationName the full annotation type name, as in 'javax.inject.Singleton'
+     */
+    public FindResult<Class<?>> findClassesAnnotatedWith(String annotationName) {
+        ScanStats stats = newStats();
+        return loadClasses(DefaultFindResult.from(getAnnotationIndex().getClassInfosAnnotatedWith(annotationName), stats), stats);
+    }
+
+    /**
+     * As {@link #findClassesAnnotatedWith(String)} but without loading the classes
+     */
+    public FindResult<ClassInfo> findClassInfosAnnotatedWith(String annotationName) {
+        return DefaultFindResult.from(getAnnotationIndex().getClassInfosAnnotatedWith(annotationName));
+    }
+
+    /**
+     * Return the classes extending or implementing the given type, directly or not, via the
+     * {@link #getTypeHierarchyIndex() type hierarchy index}. Only the subtypes are loaded
+     */
+    public FindResult<Class<?>> findSubtypesOf(Class<?> type) {
+        return findSubtypesOf(type.getName());
+    }
+
+    /**
+     * Return the classes extending or implementing the given type, directly or not, via the
+     * {@link #getTypeHierarchyIndex() type hierarchy index}. Only the subtypes are loaded
+     *
+     * @param typeName the full type name, as in 'java.lang.Runnable'
+     */
+    public FindResult<Class<?>> findSubtypesOf(String typeName) {
+        ScanStats stats = newStats();
+        return loadClasses(DefaultFindResult.from(getTypeHierarchyIndex().getSubtypes(typeName), stats), stats);
+    }
+
+    /**
+     * As {@link #findSubtypesOf(String)} but without loading the classes
+     */
+    public FindResult<ClassInfo> findClassInfosSubtypesOf(String typeName) {
+        return DefaultFindResult.from(getTypeHierarchyIndex().getSubtypes(typeName));
+    }
+
+    /**
+     * Return the index of annotation names to the classes annotated with them. The annotation and type hierarchy indexes are
+     * built together on first use, by scanning all the roots (via {@link #findClassInfos()}) once. They are then kept and
+     * reused for the life of this scanner, see {@link #clearIndexes()}
+     */
+    public AnnotationIndex getAnnotationIndex() {
+        return getClassIndexes().annotations;
+    }
+
+    /**
+     * Return the index of types to their subtypes. Built along with the {@link #getAnnotationIndex() annotation index}
+     */
+    public TypeHierarchyIndex getTypeHierarchyIndex() {
+        return getClassIndexes().hierarchy;
+    }
+
+    private ClassIndexes getClassIndexes() {
+        ClassIndexes indexes = classIndexes;
+        if (indexes == null) {
+            synchronized (this) {
+                indexes = classIndexes;
+                if (indexes == null) {
+                    List<ClassInfo> classInfos = findClassInfos().toList();
+                    indexes = new ClassIndexes(AnnotationIndex.from(classInfos), TypeHierarchyIndex.from(classInfos));
+                    classIndexes = indexes;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Drop the annotation and type hierarchy indexes, so the next lookup rescans the roots. Use after the roots have changed
+     */
+    public void clearIndexes() {
+        classIndexes = null;
+    }
+
+    private static class ClassIndexes {
+        final AnnotationIndex annotations;
+        final TypeHierarchyIndex hierarchy;
+
+        ClassIndexes(AnnotationIndex annotations, TypeHierarchyIndex hierarchy) {
+            this.annotations = annotations;
+            this.hierarchy = hierarchy;
+        }
+    }
+
+    private FindResult<Class<?>> loadClasses(final FindResult<ClassInfo> classInfos, final ScanStats stats) {
+        if (throwawayClassLoading) {
+            return DefaultFindResult.from(new Iterable<Class<?>>() {
+                @Override
+                public Iterator<Class<?>> iterator() {
+                    return new ThrowawayLoadingIterator(classInfos.iterator(), stats);
+                }
+            }, stats);
         }
-        return classes;
+        return classInfos.transform(new Function<ClassInfo, Class<?>>() {
+            @Override
+            public Class<?> apply(ClassInfo info) {
+                return loadClassOrNull(info, stats.forRoot(info.getResource().getRoot()), null);
+            }
+        });
     }
 
-    private void loadClass(Collection<Class<?>> foundClasses, RootResource resource, String className) {
-        Class<?> loadedClass = null;
+    private ScanStats newStats() {
+        return collectStats ? new ScanStats() : ScanStats.disabled();
+    }
+
+    /**
+     * @param throwawayLoader if not null, the class is matched as loaded by this loader and only loaded by the target loader if
+     * matched
+     */
+    private Class<?> loadClassOrNull(ClassInfo info, RootStats stats, ThrowawayClassLoader throwawayLoader) {
         try {
-            loadedClass = loadClass(className);
-            if (filter.isInclude(loadedClass) && filter.isIncludeClass(loadedClass)) {
+            Class<?> loadedClass = throwawayLoader == null ? loadClass(info.getClassName(), stats) : loadCandidate(info, stats, throwawayLoader);
+            long start = stats.start();
+            boolean include = filter.isInclude(loadedClass) && filter.isIncludeClass(loadedClass);
+            stats.stop(Stage.MATCH, start);
+            if (include) {
+                if (loadedClass.getClassLoader() == throwawayLoader) {
+                    loadedClass = resolveInTarget(info.getClassName(), stats);
+                }
                 listener.onMatched(loadedClass);
-                foundClasses.add(loadedClass);
+                return loadedClass;
             } else {
                 listener.onIgnored(loadedClass);
             }
         } catch (Throwable e) {
-            // allow clients to ignore errors if they want
-            try {
-                listener.onError(resource, e);
-            } catch(RuntimeException rethrown){
-                throw rethrown;
-            } catch (Throwable rethrown) {
-                throw new JFindException("error loading class", rethrown);
-            }
+            onError(info.getResource(), e, "error loading class", stats);
+        }
+        return null;
+    }
+
+    private Class<?> loadCandidate(ClassInfo info, RootStats stats, ThrowawayClassLoader throwawayLoader) throws IOException {
+        long start = stats.start();
+        try {
+            Class<?> loadedClass = throwawayLoader.loadCandidate(info.getClassName(), info.getResource(), stats);
+            stats.onClassLoaded();
+            return loadedClass;
+        } catch (LinkageError e) {
+            // can't be loaded apart from the target loader, as in extends a package private class. Fall through
+        } catch (IOException | RuntimeException e) {
+            stats.onClassLoadFailed();
+            throw e;
+        } finally {
+            stats.stop(Stage.CLASS_LOAD, start);
+        }
+        return loadClass(info.getClassName(), stats);
+    }
+
+    /**
+     * Load a class already counted when matched via the throwaway loader
+     */
+    private Class<?> resolveInTarget(String className, RootStats stats) {
+        long start = stats.start();
+        try {
+            return loadClass(className);
+        } finally {
+            stats.stop(Stage.CLASS_LOAD, start);
+        }
+    }
+
+    private void onError(Object record, Throwable e, String msg, RootStats stats) {
+        stats.onError();
+        // allow clients to ignore errors if they want
+        try {
+            listener.onError(record, e);
+        } catch(RuntimeException rethrown){
+            throw rethrown;
+        } catch (Throwable rethrown) {
+            throw new JFindException(msg, rethrown);
+        }
+    }
+
+    private Class<?> loadClass(String className, RootStats stats) {
+        long start = stats.start();
+        try {
+            Class<?> loadedClass = loadClass(className);
+            stats.onClassLoaded();
+            return loadedClass;
+        } catch (RuntimeException | Error e) {
+            stats.onClassLoadFailed();
+            throw e;
+        } finally {
+            stats.stop(Stage.CLASS_LOAD, start);
         }
     }
 
@@ -136,72 +387,606 @@ public class ClassScanner {
         }
     }
 
-    public FindResult<ClassResource> findClassNames() {
-        return DefaultFindResult.from(findClassNames(findResources()));
+    /**
+     * Read the class metadata of all the matched class resources directly from the class file, without loading the classes
+     */
+    public FindResult<ClassInfo> findClassInfos() {
+        return findClassInfos(newStats());
+    }
+
+    private FindResult<ClassInfo> findClassInfos(final ScanStats stats) {
+        return saveIndexOnEnd(findClassNames(stats).transform(new Function<ClassResource, ClassInfo>() {
+            @Override
+            public ClassInfo apply(ClassResource classResource) {
+                return readClassInfoOrNull(classResource, stats.forRoot(classResource.getResource().getRoot()));
+            }
+        }));
     }
 
-    private Collection<ClassResource> findClassNames(Iterable<RootResource> resources) {
-        Collection<ClassResource> found = newArrayList();
-        for (RootResource resource : resources) {
-            walkClassNames(found, resource);
+    private ClassInfo readClassInfoOrNull(ClassResource classResource, RootStats stats) {
+        try {
+            RootResource resource = classResource.getResource();
+            long start = stats.start();
+            ClassInfo info;
+            try {
+                info = index == null ? ClassInfoReader.read(resource, stats) : index.readClassInfo(resource, stats);
+            } finally {
+                stats.stop(Stage.CLASS_INFO, start);
+            }
+            start = stats.start();
+            boolean include = filter.isInclude(info) && filter.isIncludeClassInfo(info);
+            stats.stop(Stage.MATCH, start);
+            if (include) {
+                listener.onMatched(info);
+                return info;
+            } else {
+                listener.onIgnored(info);
+            }
+        } catch (Throwable e) {
+            onError(classResource.getResource(), e, "error reading class file", stats);
         }
-        return found;
+        return null;
     }
 
-    private void walkClassNames(Collection<ClassResource> found, RootResource resource) {
-        if (resource.hasExtension("class")) {
-            String className = PathUtil.filePathToClassNameOrNull(resource.getRelPath());
-            if(className != null){
-            	ClassResource classResource = new ClassResource(resource, className);
-            	 if (filter.isInclude(classResource) && filter.isIncludeClassResource(classResource)) {
-                     listener.onMatched(classResource);
-                     found.add(classResource);
-                 } else {
-                	 listener.onIgnored(classResource);
-                 }
+    public FindResult<ClassResource> findClassNames() {
+        return findClassNames(newStats());
+    }
+
+    private FindResult<ClassResource> findClassNames(final ScanStats stats) {
+        return findResources(stats).transform(new Function<RootResource, ClassResource>() {
+            @Override
+            public ClassResource apply(RootResource resource) {
+                return toClassResourceOrNull(resource, stats.forRoot(resource.getRoot()));
+            }
+        });
+    }
+
+    private ClassResource toClassResourceOrNull(RootResource resource, RootStats stats) {
+        long start = stats.start();
+        String className = resource.hasExtension("class") ? PathUtil.filePathToClassNameOrNull(resource.getRelPath()) : null;
+        stats.stop(Stage.CLASS_NAME, start);
+        if (className != null) {
+            ClassResource classResource = new ClassResource(resource, className);
+            start = stats.start();
+            boolean include = filter.isInclude(classResource) && filter.isIncludeClassResource(classResource);
+            stats.stop(Stage.MATCH, start);
+            if (include) {
+                listener.onMatched(classResource);
+                return classResource;
+            } else {
+                listener.onIgnored(classResource);
             }
         }
+        return null;
     }
 
+    /**
+     * Return all the matching resources. Unless running in parallel, the roots are walked lazily as the result is iterated,
+     * so stopping early (as in {@link FindResult#getFirstOrNull()}) stops the scan.
+     */
     public FindResult<RootResource> findResources() {
-        return DefaultFindResult.from(findResources(scanRoots));
+        return findResources(newStats());
     }
 
-    private Collection<RootResource> findResources(Iterable<Root> roots) {
-        final Collection<RootResource> resources = newArrayList();
-        RootVisitor visitor = new BaseRootVisitor() {
+    private FindResult<RootResource> findResources(final ScanStats stats) {
+        if(scanRoots.isEmpty()){
+        	throw new JFindException("No scan roots provided. Expected atleast 1");
+        }
+        if (scanRoots.size() > 1 && (executor != null || parallelism > 1)) {
+            return saveIndexOnEnd(DefaultFindResult.from(new Iterable<RootResource>() {
+                @Override
+                public Iterator<RootResource> iterator() {
+                    return findResourcesInParallel(scanRoots, stats).iterator();
+                }
+            }, stats));
+        }
+        return saveIndexOnEnd(DefaultFindResult.from(new Iterable<RootResource>() {
             @Override
-            public boolean visit(Root root) {
-                if (filter.isInclude(root) && filter.isIncludeRoot(root)) {
-                    listener.onMatched(root);
-                    return true;
-                } else {
-                    listener.onIgnored(root);
-                    return false;
+            public Iterator<RootResource> iterator() {
+                return new RootsResourceIterator(withNestedArchives(scanRoots.iterator()), stats);
+            }
+        }, stats));
+    }
+
+    /**
+     * Return the resources added, changed or removed since the previous call, from the roots which track their own changes
+     * (see {@link ChangeTrackingRoot}, as in {@link WatchingDirectoryRoot}). Other roots are skipped. The first call returns
+     * every resource as added. Added and changed resources are filtered as in {@link #findResources()}, removed ones by their
+     * directory only as they can no longer be read.
+     *
+     * <p>Unlike the other find methods the changes are taken straight away, so the result holds this one delta and can be
+     * iterated any number of times. Changes in roots rejected by the filter are left for a later call.</p>
+     */
+    public FindResult<ResourceChange> findResourceChanges() {
+        if(scanRoots.isEmpty()){
+        	throw new JFindException("No scan roots provided. Expected atleast 1");
+        }
+        ScanStats stats = newStats();
+        List<ResourceChange> changes = newArrayList();
+        for (Root root : scanRoots) {
+            if (!(root instanceof ChangeTrackingRoot)) {
+                continue;
+            }
+            RootStats rootStats = stats.forRoot(root);
+            if (!isIncludeRoot(root, rootStats)) {
+                continue;
+            }
+            long start = rootStats.start();
+            List<ResourceChange> rootChanges = ((ChangeTrackingRoot) root).takeChanges();
+            rootStats.stop(Stage.WALK, start);
+            Map<String, Boolean> includedDirs = newHashMap();
+            for (ResourceChange change : rootChanges) {
+                rootStats.onVisited();
+                if (isIncludeChange(root, change, includedDirs, rootStats)) {
+                    changes.add(change);
                 }
             }
+        }
+        return DefaultFindResult.from(changes, stats);
+    }
+
+    private boolean isIncludeChange(Root root, ResourceChange change, Map<String, Boolean> includedDirs, RootStats stats) {
+        if (!isIncludeParentDirectory(root, change.getResource().getRelPath(), includedDirs, stats)) {
+            stats.onIgnored();
+            return false;
+        }
+        if (change.isRemoved()) {
+            stats.onMatched();
+            return true;
+        }
+        return isIncludeResource(change.getResource(), stats);
+    }
+
+    private boolean isIncludeParentDirectory(Root root, String relPath, Map<String, Boolean> includedDirs, RootStats stats) {
+        return isIncludeDirectory(root, relPath.substring(0, relPath.lastIndexOf('/')), includedDirs, stats);
+    }
 
+    /**
+     * As when walking, a directory is included only if its parent is, and the filter is asked about each directory once
+     */
+    private boolean isIncludeDirectory(Root root, String relDirPath, Map<String, Boolean> includedDirs, RootStats stats) {
+        if (relDirPath.isEmpty()) {
+            return true;
+        }
+        Boolean include = includedDirs.get(relDirPath);
+        if (include == null) {
+            include = isIncludeDirectory(root, relDirPath.substring(0, relDirPath.lastIndexOf('/')), includedDirs, stats);
+            if (include) {
+                long start = stats.start();
+                include = filter.isIncludeDirectory(root, relDirPath);
+                stats.stop(Stage.MATCH, start);
+            }
+            includedDirs.put(relDirPath, include);
+        }
+        return include;
+    }
+
+    private <T> FindResult<T> saveIndexOnEnd(final FindResult<T> result) {
+        if (index == null) {
+            return result;
+        }
+        return DefaultFindResult.from(new Iterable<T>() {
             @Override
-            public boolean visit(RootResource resource) {
-                if (filter.isInclude(resource) && filter.isIncludeResource(resource)) {
-                    listener.onMatched(resource);
+            public Iterator<T> iterator() {
+                return new SaveIndexIterator<T>(result.iterator());
+            }
+        }, result.getStats());
+    }
+
+    private Collection<RootResource> findResourcesInParallel(List<Root> roots, final ScanStats stats) {
+        ExecutorService pool = executor != null ? executor : newScanPool(Math.min(parallelism, roots.size()));
+        List<Future<Collection<RootResource>>> futures = newArrayList();
+        // so the root stats are in classpath order, not the order the roots happen to start in
+        for (Root root : roots) {
+            stats.forRoot(root);
+        }
+        try {
+            for (final Root root : roots) {
+                futures.add(pool.submit(new Callable<Collection<RootResource>>() {
+                    @Override
+                    public Collection<RootResource> call() {
+                        Collection<RootResource> resources = newArrayList();
+                        for (Root expanded : Roots.withNestedArchives(root)) {
+                            visitRoot(expanded, resources, stats.forRoot(expanded));
+                        }
+                        return resources;
+                    }
+                }));
+            }
+            // merge in root order, regardless of which root finished first
+            Collection<RootResource> resources = newArrayList();
+            for (Future<Collection<RootResource>> future : futures) {
+                resources.addAll(waitFor(future));
+            }
+            return resources;
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);// no-op if done, stops remaining visits on failure
+            }
+            if (pool != executor) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Expands each archive root set to include its nested archives as it's reached, so they're only listed when scanned
+     */
+    private static Iterator<Root> withNestedArchives(Iterator<Root> roots) {
+        return Iterators.concat(Iterators.transform(roots, new Function<Root, Iterator<Root>>() {
+            @Override
+            public Iterator<Root> apply(Root root) {
+                return Roots.withNestedArchives(root).iterator();
+            }
+        }));
+    }
+
+    private static ExecutorService newScanPool(int numThreads) {
+        return Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("jfind-scanner-%d")
+            .build());
+    }
+
+    private static <T> T waitFor(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JFindException("Interrupted while waiting for roots to be scanned", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new JFindException("Error scanning root", cause);
+        }
+    }
+
+    private void visitRoot(Root root, Collection<RootResource> resources, RootStats stats) {
+        if (!isIncludeRoot(root, stats)) {
+            return;
+        }
+        Iterator<RootResource> iter = walkStatsIterator(root, stats);
+        try {
+            while (iter.hasNext()) {
+                RootResource resource = iter.next();
+                if (isIncludeResource(resource, stats)) {
                     resources.add(resource);
-                } else {
-                    listener.onIgnored(resource);
                 }
+            }
+        } finally {
+            DefaultFindResult.close(iter);
+        }
+    }
+
+    /**
+     * As {@link #resourceIterator(Root, RootStats)}, recording the time spent walking and the number of resources visited
+     */
+    private Iterator<RootResource> walkStatsIterator(Root root, RootStats stats) {
+        if (!stats.isEnabled()) {
+            return resourceIterator(root, stats);
+        }
+        long start = stats.start();
+        Iterator<RootResource> iter = resourceIterator(root, stats);
+        stats.stop(Stage.WALK, start);
+        return new WalkStatsIterator(iter, stats);
+    }
+
+    /**
+     * Return all the resources in the given root, from the index if the root is unchanged. Otherwise the root is walked and, if
+     * walked in full, the result recorded in the index. Without an index, directories rejected by the filter are not walked,
+     * with one the resources under them are dropped instead
+     */
+    private Iterator<RootResource> resourceIterator(final Root root, final RootStats stats) {
+        if (index != null) {
+            List<String> relPaths = index.getResourcePathsOrNull(root);
+            if (relPaths != null) {
+                return new DirectoryPruningIterator(root, Iterators.transform(relPaths.iterator(), new Function<String, RootResource>() {
+                    @Override
+                    public RootResource apply(String relPath) {
+                        return new RootResource(root, relPath);
+                    }
+                }), stats);
+            }
+            // walk everything so the index holds the full listing
+            return new DirectoryPruningIterator(root, new IndexingIterator(root, walkResources(root, null)), stats);
+        }
+        return walkResources(root, new DirectoryFilter() {
+            @Override
+            public boolean isIncludeDirectory(String relDirPath) {
+                long start = stats.start();
+                boolean include = filter.isIncludeDirectory(root, relDirPath);
+                // called while walking, so don't count as both
+                stats.stop(Stage.MATCH, start);
+                stats.exclude(Stage.WALK, start);
+                return include;
+            }
+        });
+    }
+
+    private static Iterator<RootResource> walkResources(Root root, final DirectoryFilter dirFilter) {
+        if (root instanceof IterableRoot) {
+            return ((IterableRoot) root).resourceIterator(dirFilter);
+        }
+        final Collection<RootResource> resources = newArrayList();
+        root.accept(new BaseRootVisitor() {
+            @Override
+            public boolean visitDirectory(Root root, String relDirPath) {
+                return dirFilter == null || dirFilter.isIncludeDirectory(relDirPath);
+            }
+
+            @Override
+            public boolean visit(RootResource resource) {
+                resources.add(resource);
                 return true;
             }
-        };
+        });
+        return resources.iterator();
+    }
 
-        int numRoots = 0;
-        for (Root root : roots) {
-        	numRoots++;
-        	root.accept(visitor);
+    private boolean isIncludeRoot(Root root, RootStats stats) {
+        long start = stats.start();
+        boolean include = filter.isInclude(root) && filter.isIncludeRoot(root);
+        stats.stop(Stage.MATCH, start);
+        if (include) {
+            listener.onMatched(root);
+            return true;
+        } else {
+            listener.onIgnored(root);
+            return false;
         }
-        if(numRoots == 0){
-        	throw new JFindException("No scan roots provided. Expected atleast 1");
+    }
+
+    private boolean isIncludeResource(RootResource resource, RootStats stats) {
+        long start = stats.start();
+        boolean include = filter.isInclude(resource) && filter.isIncludeResource(resource);
+        stats.stop(Stage.MATCH, start);
+        if (include) {
+            stats.onMatched();
+            listener.onMatched(resource);
+            return true;
+        } else {
+            stats.onIgnored();
+            listener.onIgnored(resource);
+            return false;
+        }
+    }
+
+    /**
+     * Walks each root in turn, only pulling the next resource from a root when asked for it. Roots which can't be iterated are
+     * walked in full via their visitor
+     */
+    private class RootsResourceIterator extends AbstractIterator<RootResource> implements CloseableIterator<RootResource> {
+        private final Iterator<Root> roots;
+        private final ScanStats stats;
+        private Iterator<RootResource> currentResources;
+        private RootStats currentStats;
+
+        RootsResourceIterator(Iterator<Root> roots, ScanStats stats) {
+            this.roots = roots;
+            this.stats = stats;
+        }
+
+        @Override
+        protected RootResource computeNext() {
+            while (true) {
+                while (currentResources != null && currentResources.hasNext()) {
+                    RootResource resource = currentResources.next();
+                    if (isIncludeResource(resource, currentStats)) {
+                        return resource;
+                    }
+                }
+                closeCurrent();
+                if (!roots.hasNext()) {
+                    return endOfData();
+                }
+                Root root = roots.next();
+                RootStats rootStats = stats.forRoot(root);
+                if (isIncludeRoot(root, rootStats)) {
+                    currentStats = rootStats;
+                    currentResources = walkStatsIterator(root, rootStats);
+                }
+            }
+        }
+
+        private void closeCurrent() {
+            DefaultFindResult.close(currentResources);
+            currentResources = null;
+        }
+
+        @Override
+        public void close() {
+            closeCurrent();
+        }
+    }
+
+    /**
+     * Loads each scan's candidate classes into a new throwaway loader, which is dropped once the scan is done or closed so the
+     * classes which didn't match can be unloaded
+     */
+    private class ThrowawayLoadingIterator extends AbstractIterator<Class<?>> implements CloseableIterator<Class<?>> {
+        private final Iterator<ClassInfo> classInfos;
+        private final ScanStats stats;
+        private ThrowawayClassLoader throwawayLoader = new ThrowawayClassLoader(classLoader);
+
+        ThrowawayLoadingIterator(Iterator<ClassInfo> classInfos, ScanStats stats) {
+            this.classInfos = classInfos;
+            this.stats = stats;
+        }
+
+        @Override
+        protected Class<?> computeNext() {
+            while (classInfos.hasNext()) {
+                ClassInfo info = classInfos.next();
+                Class<?> loadedClass = loadClassOrNull(info, stats.forRoot(info.getResource().getRoot()), throwawayLoader);
+                if (loadedClass != null) {
+                    return loadedClass;
+                }
+            }
+            throwawayLoader = null;
+            return endOfData();
+        }
+
+        @Override
+        public void close() {
+            DefaultFindResult.close(classInfos);
+            throwawayLoader = null;
+        }
+    }
+
+    /**
+     * Records the time spent walking a root, and the number of resources walked
+     */
+    private static class WalkStatsIterator implements CloseableIterator<RootResource> {
+        private final Iterator<RootResource> resources;
+        private final RootStats stats;
+
+        WalkStatsIterator(Iterator<RootResource> resources, RootStats stats) {
+            this.resources = resources;
+            this.stats = stats;
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = stats.start();
+            boolean hasNext = resources.hasNext();
+            stats.stop(Stage.WALK, start);
+            return hasNext;
+        }
+
+        @Override
+        public RootResource next() {
+            long start = stats.start();
+            RootResource resource = resources.next();
+            stats.stop(Stage.WALK, start);
+            stats.onVisited();
+            return resource;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            DefaultFindResult.close(resources);
+        }
+    }
+
+    /**
+     * Drops the resources under directories the filter excludes, for when the root's full listing is used rather than walking
+     * only the included directories
+     */
+    private class DirectoryPruningIterator extends AbstractIterator<RootResource> implements CloseableIterator<RootResource> {
+        private final Root root;
+        private final Iterator<RootResource> resources;
+        private final RootStats stats;
+        private final Map<String, Boolean> includedDirs = newHashMap();
+
+        DirectoryPruningIterator(Root root, Iterator<RootResource> resources, RootStats stats) {
+            this.root = root;
+            this.resources = resources;
+            this.stats = stats;
+        }
+
+        @Override
+        protected RootResource computeNext() {
+            while (resources.hasNext()) {
+                RootResource resource = resources.next();
+                long start = stats.start();
+                boolean include = isIncludeParentDirectory(root, resource.getRelPath(), includedDirs, stats);
+                // recorded as matching, so don't count as walking too
+                stats.exclude(Stage.WALK, start);
+                if (include) {
+                    return resource;
+                }
+            }
+            return endOfData();
+        }
+
+        @Override
+        public void close() {
+            DefaultFindResult.close(resources);
+        }
+    }
+
+    /**
+     * Records the paths of all the resources walked in a root, and adds them to the index once the root has been walked in full
+     */
+    private class IndexingIterator extends AbstractIterator<RootResource> implements CloseableIterator<RootResource> {
+        private final Root root;
+        private final Iterator<RootResource> resources;
+        private final List<String> relPaths = newArrayList();
+
+        IndexingIterator(Root root, Iterator<RootResource> resources) {
+            this.root = root;
+            this.resources = resources;
+        }
+
+        @Override
+        protected RootResource computeNext() {
+            if (resources.hasNext()) {
+                RootResource resource = resources.next();
+                relPaths.add(resource.getRelPath());
+                return resource;
+            }
+            index.putResourcePaths(root, relPaths);
+            return endOfData();
+        }
+
+        @Override
+        public void close() {
+            DefaultFindResult.close(resources);
+        }
+    }
+
+    /**
+     * Saves the index once the wrapped iterator is exhausted or closed
+     */
+    private class SaveIndexIterator<T> implements CloseableIterator<T> {
+        private final Iterator<T> source;
+        private boolean saved;
+
+        SaveIndexIterator(Iterator<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = source.hasNext();
+            if (!hasNext) {
+                save();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            return source.next();
+        }
+
+        @Override
+        public void remove() {
+            source.remove();
+        }
+
+        @Override
+        public void close() {
+            DefaultFindResult.close(source);
+            save();
+        }
+
+        private void save() {
+            if (!saved) {
+                saved = true;
+                index.save();
+            }
         }
-        return resources;
     }
 
     public static class Builder {
@@ -210,17 +995,21 @@ public class ClassScanner {
         private ClassLoader classLoader;
         private List<Root> scanRoots = newArrayList();
         private MatchListener<Object> listener;
+        private ExecutorService executor;
+        private int parallelism = 1;
+        private ScanIndex index;
+        private boolean collectStats = true;
+        private boolean throwawayClassLoading;
         
         public ClassScanner build() {
-            return new ClassScanner(scanRoots, toFilter(), toClassLoader(), listener);
+            return new ClassScanner(scanRoots, toFilter(), toClassLoader(), listener, executor, parallelism, index, collectStats, throwawayClassLoading);
         }
 
         private ClassLoader toClassLoader() {
             if (classLoader != null) {
                 return classLoader;
             }
-            // TODO:return a reloading classloader (so we can dump loaded
-            // classes found during search)
+            // see throwawayClassLoading to avoid keeping unmatched classes loaded
             return Thread.currentThread().getContextClassLoader();
         }
 
@@ -257,5 +1046,67 @@ public class ClassScanner {
             this.classLoader = classLoader;
             return this;
         }
+
+        /**
+         * The maximum number of roots to visit concurrently. A private pool is created (and shutdown) for each scan. Default is 1,
+         * meaning roots are visited sequentially on the calling thread. Ignored if an {@link #executor(ExecutorService)} is set.
+         * 
+         * <p>See {@link ClassScanner} for the thread safety requirements on filters and listeners</p>
+         */
+        public Builder parallelism(int parallelism) {
+            checkArgument(parallelism > 0, "expect parallelism to be 1 or more but was %s", parallelism);
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Visit roots using the given executor. The executor is not shutdown by the scanner.
+         * 
+         * <p>See {@link ClassScanner} for the thread safety requirements on filters and listeners</p>
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Use (and update) the scan index stored in the given file, creating it if it doesn't exist. See {@link ScanIndex}
+         */
+        public Builder index(File indexFile) {
+            index(ScanIndex.load(indexFile));
+            return this;
+        }
+
+        /**
+         * Use (and update) the given scan index. Allows an already loaded index to be shared between scanners
+         */
+        public Builder index(ScanIndex index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Whether to record timings and counts while scanning, see {@link FindResult#getStats()}. Defaults to true. Turn off to
+         * save the (small) cost of timing each resource
+         */
+        public Builder collectStats(boolean collect) {
+            this.collectStats = collect;
+            return this;
+        }
+
+        /**
+         * If true, candidate classes are loaded into a loader which is discarded after each scan, and only the classes which
+         * match are loaded into the target class loader. Keeps the unmatched classes from staying loaded for the life of the
+         * target loader when scanning repeatedly. Defaults to false.
+         *
+         * <p>The filter sees the candidate classes as loaded by the throwaway loader, so can't compare them by identity against
+         * classes from the target loader (their super types, interfaces and annotations are shared though). Classes which can't
+         * be loaded apart from the target loader, as in those extending a package private class, are loaded into the target
+         * loader directly</p>
+         */
+        public Builder throwawayClassLoading(boolean throwaway) {
+            this.throwawayClassLoading = throwaway;
+            return this;
+        }
     }
 }
\ No newline at end of file
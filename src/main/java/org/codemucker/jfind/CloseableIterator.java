@@ -0,0 +1,19 @@
+package org.codemucker.jfind;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An iterator which may hold on to resources (like open archives) until it is either exhausted or closed. Callers which
+ * stop iterating early should call {@link #close()}
+ *
+ * @param <T>
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * Release any held resources. Safe to call multiple times. Does not throw
+     */
+    @Override
+    public void close();
+}
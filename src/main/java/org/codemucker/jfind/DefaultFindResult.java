@@ -4,14 +4,30 @@ import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 import static org.codemucker.lang.Check.checkNotNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.codemucker.jmatch.MatchDiagnostics;
 import org.codemucker.jmatch.Matcher;
@@ -20,11 +36,19 @@ import org.codemucker.jmatch.NullMatchContext;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class DefaultFindResult<T> implements FindResult<T> {
 
+	/** number of items each parallel task evaluates */
+	private static final int CHUNK_SIZE = 64;
+	private static final int NUM_CPUS = Runtime.getRuntime().availableProcessors();
+	
 	private final Iterable<T> source;
+	private final ScanStats stats;
+	private final Mode mode;
 	private Boolean empty;
 	
 	@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -39,6 +63,13 @@ public class DefaultFindResult<T> implements FindResult<T> {
 		return new DefaultFindResult<T>(source);
 	}
 	
+	/**
+	 * @param stats collected while the source is iterated
+	 */
+	public static <T> DefaultFindResult<T> from(Iterable<T> source, ScanStats stats){
+		return new DefaultFindResult<T>(source, stats);
+	}
+	
 	public static <T> DefaultFindResult<T> from(Iterator<T> source){
 		return new DefaultFindResult<T>(toIterable(source));
 	}
@@ -59,20 +90,67 @@ public class DefaultFindResult<T> implements FindResult<T> {
 	 */
 	@SuppressWarnings("unchecked")
     public DefaultFindResult(Iterable<T> results) {
+	    this(results, null);
+    }
+	
+	/**
+	 * @param results can be null in which case it is treated as an empty list
+	 * @param stats can be null if the results did not come from a scan
+	 */
+	@SuppressWarnings("unchecked")
+    public DefaultFindResult(Iterable<T> results, ScanStats stats) {
+	    this(results, stats, Mode.SEQUENTIAL);
+    }
+	
+	@SuppressWarnings("unchecked")
+	private DefaultFindResult(Iterable<T> results, ScanStats stats, Mode mode) {
 	    super();
 	    this.source = results==null?Collections.EMPTY_LIST:results;
-    }
+	    this.stats = stats==null?ScanStats.disabled():stats;
+	    this.mode = mode;
+	}
 	
 	@Override
 	public FindResult<T> add(Iterable<T> other){
-		return new DefaultFindResult<>(Iterables.concat(this, other));
+		return new DefaultFindResult<>(Iterables.concat(this, other), stats, mode);
 	}
 
 	@Override
 	public FindResult<T> sort(Comparator<T> comparator){
 		List<T> newList = newArrayList(source);
 		Collections.sort(newList,comparator);
-		return new DefaultFindResult<>(newList);
+		return new DefaultFindResult<>(newList, stats, mode);
+	}
+	
+	@Override
+	public FindResult<T> parallel() {
+		return parallel(SharedPool.INSTANCE);
+	}
+	
+	@Override
+	public FindResult<T> parallel(Executor executor) {
+		return withMode(new Mode(checkNotNull("executor", executor), mode.ordered));
+	}
+	
+	@Override
+	public FindResult<T> unordered() {
+		return withMode(new Mode(mode.executor, false));
+	}
+	
+	@Override
+	public boolean isParallel() {
+		return mode.isParallel();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private FindResult<T> withMode(Mode newMode) {
+		// stages not yet evaluated pick up the new mode too
+		Iterable<T> results = source instanceof ParallelStages && newMode.isParallel() ? ((ParallelStages<?, T>) source).withMode(newMode) : source;
+		return new DefaultFindResult<T>(results, stats, newMode);
+	}
+	
+	private <B> FindResult<B> parallelStage(Stage<T, B> stage) {
+		return new DefaultFindResult<B>(ParallelStages.from(source, stage, mode), stats, mode);
 	}
 
 	@Override
@@ -80,13 +158,63 @@ public class DefaultFindResult<T> implements FindResult<T> {
 	    return source.iterator();
     }
 
+	/**
+	 * Sized if the results are a collection, and splits evenly (by index) if a random access list. Distinct only if the
+	 * results are a set, as scan results can hold the same item more than once
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		if (source instanceof List && source instanceof RandomAccess) {
+			List<T> list = (List<T>) source;
+			return new RandomAccessSpliterator<T>(list, 0, list.size());
+		}
+		if (source instanceof Collection) {
+			int characteristics = Spliterator.ORDERED | (source instanceof Set ? Spliterator.DISTINCT : 0);
+			return Spliterators.spliterator((Collection<T>) source, characteristics);
+		}
+		return Spliterators.spliteratorUnknownSize(source.iterator(), Spliterator.ORDERED);
+	}
+	
+	@Override
+	public Stream<T> stream() {
+		return toStream(false);
+	}
+	
+	@Override
+	public Stream<T> parallelStream() {
+		return toStream(true);
+	}
+	
+	private Stream<T> toStream(boolean parallel) {
+		if (source instanceof Collection) {
+			return StreamSupport.stream(spliterator(), parallel);
+		}
+		final Iterator<T> iter = source.iterator();
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED), parallel).onClose(new Runnable() {
+			@Override
+			public void run() {
+				close(iter);
+			}
+		});
+	}
+	
+	@Override
+	public ScanStats getStats() {
+		return stats;
+	}
+
 	@Override
 	public boolean isEmpty(){
 		if( empty == null){
 			if( source instanceof Collection){
 				empty = ((Collection<?>)source).isEmpty();
 			} else {
-				empty = source.iterator().hasNext();
+				Iterator<T> iter = source.iterator();
+				try {
+					empty = !iter.hasNext();
+				} finally {
+					close(iter);
+				}
 			}
 		}
 		return empty.booleanValue();
@@ -122,8 +250,29 @@ public class DefaultFindResult<T> implements FindResult<T> {
     }
     
 	@Override
-    public FindResult<T> filter(Matcher<T> matcher, MatchListener<? super T> listener, MatchDiagnostics diagnostics) {
-		return from(FilteringIterator.from(source.iterator(), matcher, listener, diagnostics==null?NullMatchContext.INSTANCE:diagnostics));
+    public FindResult<T> filter(final Matcher<T> matcher, final MatchListener<? super T> listener, MatchDiagnostics diagnostics) {
+		final MatchDiagnostics diag = diagnostics==null?NullMatchContext.INSTANCE:diagnostics;
+		if (mode.isParallel()) {
+			checkNotNull("matcher", matcher);
+			checkNotNull("listener", listener);
+			return parallelStage(new Stage<T, T>() {
+				@Override
+				public void apply(T item, Collection<T> results) {
+					if (matcher.matches(item, diag)) {
+						listener.onMatched(item);
+						results.add(item);
+					} else {
+						listener.onIgnored(item);
+					}
+				}
+			});
+		}
+		return from(new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return FilteringIterator.from(source.iterator(), matcher, listener, diag);
+			}
+		}, stats);
     }
 
 	@Override
@@ -138,9 +287,9 @@ public class DefaultFindResult<T> implements FindResult<T> {
 
 	@Override
     public T getFirst() {
-		Iterator<T> iterator = iterator();
-		if(iterator.hasNext()){
-			return iterator.next();
+		T first = getFirstOrNull();
+		if(first != null){
+			return first;
 		}
 	    throw new NoSuchElementException("No elements in find result, can't return first");
 	}
@@ -148,21 +297,78 @@ public class DefaultFindResult<T> implements FindResult<T> {
 	@Override
 	public T getFirstOrNull() {
 		Iterator<T> iter = iterator();
-		if (iter.hasNext()) {
-			return iter.next();
+		try {
+			if (iter.hasNext()) {
+				return iter.next();
+			}
+			return null;
+		} finally {
+			//stop any lazy scan
+			close(iter);
 		}
-		return null;
 	}
 	
 	@Override
-	public <B> FindResult<B> transform(Function<T, B> transformFunc) {
-		return from(SingleTransformIterator.from(this.iterator(),transformFunc));
+	public <B> FindResult<B> transform(final Function<T, B> transformFunc) {
+		if (mode.isParallel()) {
+			checkNotNull("transform", transformFunc);
+			return parallelStage(new Stage<T, B>() {
+				@Override
+				public void apply(T item, Collection<B> results) {
+					B result = transformFunc.apply(item);
+					if (result != null) {
+						results.add(result);
+					}
+				}
+			});
+		}
+		return from(new Iterable<B>() {
+			@Override
+			public Iterator<B> iterator() {
+				return SingleTransformIterator.from(source.iterator(), transformFunc);
+			}
+		}, stats);
 	}
 
 	@Override
-	public <B> FindResult<B> transformToMany(
-			Function<T, Iterator<B>> transformFunc) {
-		return from(ExpandingTransformIterator.from(this.iterator(),transformFunc));
+	public <B> FindResult<B> transformToMany(final Function<T, Iterator<B>> transformFunc) {
+		if (mode.isParallel()) {
+			checkNotNull("transform", transformFunc);
+			return parallelStage(new Stage<T, B>() {
+				@Override
+				public void apply(T item, Collection<B> results) {
+					Iterator<B> expanded = transformFunc.apply(item);
+					if (expanded == null) {
+						return;
+					}
+					try {
+						while (expanded.hasNext()) {
+							B result = expanded.next();
+							if (result != null) {
+								results.add(result);
+							}
+						}
+					} finally {
+						close(expanded);
+					}
+				}
+			});
+		}
+		return from(new Iterable<B>() {
+			@Override
+			public Iterator<B> iterator() {
+				return ExpandingTransformIterator.from(source.iterator(), transformFunc);
+			}
+		}, stats);
+	}
+	
+	/**
+	 * Release any resources held by the given iterator, if it's a {@link CloseableIterator}
+	 */
+	static void close(Iterator<?> iter) {
+		if (iter instanceof CloseableIterator) {
+			((CloseableIterator<?>) iter).close();
+		}
 	}
 	
 	@Override
@@ -170,10 +376,269 @@ public class DefaultFindResult<T> implements FindResult<T> {
 		return Objects
 			.toStringHelper(getClass())
 			.add("results", this.source)
+			.add("parallel", mode.isParallel())
 			.toString();
 	}
 	
-	private static class FilteringIterator<T> implements Iterator<T> {
+	/**
+	 * Splits a list by index, halving on each split
+	 */
+	private static class RandomAccessSpliterator<T> implements Spliterator<T> {
+		private final List<T> list;
+		private int index;
+		private final int end;
+		
+		RandomAccessSpliterator(List<T> list, int start, int end) {
+			this.list = list;
+			this.index = start;
+			this.end = end;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (index < end) {
+				action.accept(list.get(index++));
+				return true;
+			}
+			return false;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			for (; index < end; index++) {
+				action.accept(list.get(index));
+			}
+		}
+		
+		@Override
+		public Spliterator<T> trySplit() {
+			int mid = (index + end) >>> 1;
+			if (mid <= index) {
+				return null;
+			}
+			Spliterator<T> prefix = new RandomAccessSpliterator<T>(list, index, mid);
+			index = mid;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
+	
+	/**
+	 * How filter and transform stages are evaluated
+	 */
+	private static final class Mode {
+		static final Mode SEQUENTIAL = new Mode(null, true);
+		
+		/** null if sequential */
+		final Executor executor;
+		final boolean ordered;
+		
+		Mode(Executor executor, boolean ordered) {
+			this.executor = executor;
+			this.ordered = ordered;
+		}
+		
+		boolean isParallel() {
+			return executor != null;
+		}
+	}
+	
+	/**
+	 * Whether the current thread is evaluating a parallel stage, so nested parallel results are run inline rather than
+	 * waiting on (and possibly deadlocking) the pool they're running on
+	 */
+	private static final ThreadLocal<Boolean> IN_PARALLEL_STAGE = new ThreadLocal<Boolean>() {
+		@Override
+		protected Boolean initialValue() {
+			return Boolean.FALSE;
+		}
+	};
+	
+	private static class SharedPool {
+		static final Executor INSTANCE = Executors.newFixedThreadPool(NUM_CPUS, new ThreadFactoryBuilder()
+			.setDaemon(true)
+			.setNameFormat("jfind-find-%d")
+			.build());
+	}
+	
+	/**
+	 * A filter or transform, adding the results for the given item (if any) to the results
+	 */
+	private static interface Stage<A, B> {
+		void apply(A item, Collection<B> results);
+	}
+	
+	/**
+	 * Consecutive parallel stages over a source, evaluated together so each chunk is handed off once
+	 */
+	private static class ParallelStages<S, T> implements Iterable<T> {
+		private final Iterable<S> source;
+		private final Stage<S, T> stage;
+		private final Mode mode;
+		
+		private ParallelStages(Iterable<S> source, Stage<S, T> stage, Mode mode) {
+			this.source = source;
+			this.stage = stage;
+			this.mode = mode;
+		}
+		
+		@SuppressWarnings("unchecked")
+		static <A, B> Iterable<B> from(Iterable<A> source, Stage<A, B> stage, Mode mode) {
+			if (source instanceof ParallelStages) {
+				return ((ParallelStages<?, A>) source).then(stage, mode);
+			}
+			return new ParallelStages<A, B>(source, stage, mode);
+		}
+		
+		private <B> ParallelStages<S, B> then(final Stage<T, B> next, Mode newMode) {
+			final Stage<S, T> first = stage;
+			return new ParallelStages<S, B>(source, new Stage<S, B>() {
+				@Override
+				public void apply(S item, Collection<B> results) {
+					List<T> intermediate = new ArrayList<T>(1);
+					first.apply(item, intermediate);
+					for (T result : intermediate) {
+						next.apply(result, results);
+					}
+				}
+			}, newMode);
+		}
+		
+		ParallelStages<S, T> withMode(Mode newMode) {
+			return new ParallelStages<S, T>(source, stage, newMode);
+		}
+		
+		@Override
+		public Iterator<T> iterator() {
+			return new ParallelIterator<S, T>(source.iterator(), stage, mode);
+		}
+	}
+	
+	/**
+	 * Reads chunks of the source on the calling thread and evaluates the stage over each chunk on the executor, with a bounded
+	 * number of chunks in flight so a slow consumer doesn't buffer the whole source
+	 */
+	private static class ParallelIterator<S, T> extends AbstractIterator<T> implements CloseableIterator<T> {
+		private final Iterator<S> source;
+		private final Stage<S, T> stage;
+		private final Mode mode;
+		private final int maxInFlight = NUM_CPUS * 2;
+		/** in submission order */
+		private final Deque<FutureTask<List<T>>> inFlight = new ArrayDeque<FutureTask<List<T>>>();
+		/** in completion order, only used if unordered */
+		private final BlockingQueue<FutureTask<List<T>>> completed = new LinkedBlockingQueue<FutureTask<List<T>>>();
+		
+		private Iterator<T> current = Collections.<T> emptyList().iterator();
+		
+		ParallelIterator(Iterator<S> source, Stage<S, T> stage, Mode mode) {
+			this.source = source;
+			this.stage = stage;
+			this.mode = mode;
+		}
+		
+		@Override
+		protected T computeNext() {
+			while (!current.hasNext()) {
+				submitChunks();
+				if (inFlight.isEmpty()) {
+					DefaultFindResult.close(source);
+					return endOfData();
+				}
+				current = waitFor(nextDone()).iterator();
+			}
+			return current.next();
+		}
+		
+		private void submitChunks() {
+			while (inFlight.size() < maxInFlight && source.hasNext()) {
+				final List<S> chunk = new ArrayList<S>(CHUNK_SIZE);
+				while (chunk.size() < CHUNK_SIZE && source.hasNext()) {
+					chunk.add(source.next());
+				}
+				FutureTask<List<T>> task = new FutureTask<List<T>>(new Callable<List<T>>() {
+					@Override
+					public List<T> call() {
+						boolean nested = IN_PARALLEL_STAGE.get();
+						IN_PARALLEL_STAGE.set(Boolean.TRUE);
+						try {
+							List<T> results = new ArrayList<T>(chunk.size());
+							for (S item : chunk) {
+								stage.apply(item, results);
+							}
+							return results;
+						} finally {
+							IN_PARALLEL_STAGE.set(nested);
+						}
+					}
+				}) {
+					@Override
+					protected void done() {
+						if (!mode.ordered) {
+							completed.add(this);
+						}
+					}
+				};
+				inFlight.add(task);
+				if (IN_PARALLEL_STAGE.get()) {
+					task.run();
+				} else {
+					mode.executor.execute(task);
+				}
+			}
+		}
+		
+		private FutureTask<List<T>> nextDone() {
+			if (mode.ordered) {
+				return inFlight.poll();
+			}
+			try {
+				FutureTask<List<T>> task = completed.take();
+				inFlight.remove(task);
+				return task;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JFindException("Interrupted while waiting for results", e);
+			}
+		}
+		
+		private static <T> T waitFor(FutureTask<T> task) {
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JFindException("Interrupted while waiting for results", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new JFindException("Error evaluating results", cause);
+			}
+		}
+		
+		@Override
+		public void close() {
+			for (FutureTask<?> task : inFlight) {
+				task.cancel(false);// only stop those not yet started, the executor may be shared
+			}
+			inFlight.clear();
+			DefaultFindResult.close(source);
+		}
+	}
+	
+	private static class FilteringIterator<T> implements CloseableIterator<T> {
 
 		private final Iterator<T> source;
 		private final Matcher<T> matcher;
@@ -239,14 +704,20 @@ public class DefaultFindResult<T> implements FindResult<T> {
 		public void remove() {
 			throw new UnsupportedOperationException();
 		}
+		
+		@Override
+		public void close() {
+			DefaultFindResult.close(source);
+		}
 	}
 	
-	private static class SingleTransformIterator<A,B> implements Iterator<B> {
+	private static class SingleTransformIterator<A,B> implements CloseableIterator<B> {
 
 		private final Iterator<A> source;
 		private final Function<A, B> transformFunc;
 		
 		private B next;
+		private boolean init = true;
 		
 		static <A,B> SingleTransformIterator<A,B> from(Iterator<A> source,Function<A, B> transformFunc){
 			return new SingleTransformIterator<A,B>(source,transformFunc);
@@ -258,17 +729,20 @@ public class DefaultFindResult<T> implements FindResult<T> {
 			
 			this.source = source;
 			this.transformFunc = transformFunc;
-			this.next = nextItem();
 		}
 		
 		@Override
 		public boolean hasNext() {
+			if (init) {
+				init = false;
+				next = nextItem();
+			}
 			return next != null;
 		}
 
 		@Override
 		public B next() {
-			if (next == null) {
+			if (!hasNext()) {
 				throw new NoSuchElementException();
 			}
 			B ret = next;
@@ -287,16 +761,22 @@ public class DefaultFindResult<T> implements FindResult<T> {
 		@Override
 		public void remove() {
 			throw new UnsupportedOperationException("removals not supported");
-		}	
+		}
+		
+		@Override
+		public void close() {
+			DefaultFindResult.close(source);
+		}
 	}
 	
-	private static class ExpandingTransformIterator<A,B> implements Iterator<B> {
+	private static class ExpandingTransformIterator<A,B> implements CloseableIterator<B> {
 
 		private final Iterator<A> source;
 		private final Function<A, Iterator<B>> transformFunc;
 		
 		private Iterator<B> currentExpandedIterator;
 		private B nextItem;
+		private boolean init = true;
 
 		static <A,B> ExpandingTransformIterator<A,B> from(Iterator<A> source,Function<A, Iterator<B>> transformFunc){
 			return new ExpandingTransformIterator<A,B>(source,transformFunc);
@@ -308,17 +788,20 @@ public class DefaultFindResult<T> implements FindResult<T> {
 			
 			this.source = source;
 			this.transformFunc = transformFunc;
-			this.nextItem = nextItem();
 		}
 		
 		@Override
 		public boolean hasNext() {
+			if (init) {
+				init = false;
+				nextItem = nextItem();
+			}
 			return nextItem != null;
 		}
 
 		@Override
 		public B next() {
-			if (nextItem == null) {
+			if (!hasNext()) {
 				throw new NoSuchElementException();
 			}
 			B ret = nextItem;
@@ -347,6 +830,12 @@ public class DefaultFindResult<T> implements FindResult<T> {
 		@Override
 		public void remove() {
 			throw new UnsupportedOperationException("removals not supported");
-		}	
+		}
+		
+		@Override
+		public void close() {
+			DefaultFindResult.close(currentExpandedIterator);
+			DefaultFindResult.close(source);
+		}
 	}
 }
\ No newline at end of file
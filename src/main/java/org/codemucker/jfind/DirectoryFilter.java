@@ -0,0 +1,14 @@
+package org.codemucker.jfind;
+
+/**
+ * Decides before descending into a directory (or archive path prefix) whether anything under it could be wanted, so whole
+ * subtrees can be skipped without being listed
+ */
+public interface DirectoryFilter {
+
+    /**
+     * @param relDirPath the directory path relative to the root, with a leading slash and no trailing slash, as in '/com/acme'
+     * @return false to skip the directory and everything under it
+     */
+    boolean isIncludeDirectory(String relDirPath);
+}
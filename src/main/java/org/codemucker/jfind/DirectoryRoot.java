@@ -3,7 +3,6 @@ package org.codemucker.jfind;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -12,34 +11,28 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-
-import javax.print.DocFlavor.STRING;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 import org.codemucker.lang.IBuilder;
 import org.codemucker.lang.PathUtil;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.AbstractIterator;
 
 /**
  * Classpath root which handles directory type classpath entries
  */
-public class DirectoryRoot implements Root {
-	
-	private static FileFilter DIR_FILTER = new FileFilter() {
-		private static final char HIDDEN_DIR_PREFIX = '.';//like .git, .svn,....
-		
-		@Override
-		public boolean accept(File dir) {
-			return dir.isDirectory() && dir.getName().charAt(0) != HIDDEN_DIR_PREFIX && !dir.getName().equals("CVS");
-		}
-	};
+public class DirectoryRoot implements IterableRoot {
 	
-	private static FileFilter FILE_FILTER = new FileFilter() {
-		@Override
-		public boolean accept(File f) {
-			return f.isFile();
-		}
-	};
+	private static final char HIDDEN_DIR_PREFIX = '.';//like .git, .svn,....
 	
 	private final File baseDir;
 	private final RootType type;
@@ -238,28 +231,49 @@ public class DirectoryRoot implements Root {
 		visitor.endVisit(this);
 	}
 
-	private void visitResources(RootVisitor visitor) {
-		if(isDirectoryAndExists()){
-			visitResources(this,visitor,null,baseDir);
+	private void visitResources(final RootVisitor visitor) {
+		CloseableIterator<RootResource> resources = resourceIterator(new DirectoryFilter() {
+			@Override
+			public boolean isIncludeDirectory(String relDirPath) {
+				return visitor.visitDirectory(DirectoryRoot.this, relDirPath);
+			}
+		});
+		try {
+			while (resources.hasNext()) {
+				RootResource child = resources.next();
+				visitor.visit(child);
+				visitor.endVisit(child);
+				if (isCancelled()) {
+					return;
+				}
+			}
+		} finally {
+			resources.close();
 		}
 	}
 
-	private static void visitResources(Root root, RootVisitor visitor, String parentPath, File dir) {
-		File[] files = dir.listFiles(FILE_FILTER);
-		String basePath = parentPath==null?"":(parentPath + "/");
-		for (File f : files) {
-			String relPath = basePath + f.getName();
-			RootResource child = new RootResource(root, relPath);
-			visitor.visit(child);
-			visitor.endVisit(child);
-			if( isCancelled()){
-				return;
-			}
-		}
-		File[] childDirs = dir.listFiles(DIR_FILTER);
-		for (File childDir : childDirs) {
-			visitResources(root, visitor, basePath + childDir.getName(), childDir);
-		}
+	/**
+	 * Walks the directory tree depth first, returning the files in each directory before descending into its child directories.
+	 * Each directory is listed once, and the returned resources carry the size and timestamp read during the listing
+	 */
+	@Override
+	public CloseableIterator<RootResource> resourceIterator() {
+		return resourceIterator(null);
+	}
+	
+	@Override
+	public CloseableIterator<RootResource> resourceIterator(DirectoryFilter dirFilter) {
+		return new DirectoryResourceIterator(null, dirFilter);
+	}
+	
+	/**
+	 * As {@link #resourceIterator(DirectoryFilter)} but only walking the given sub directory
+	 * 
+	 * @param relDirPath as in '/com/acme'
+	 */
+	CloseableIterator<RootResource> resourceIterator(String relDirPath, DirectoryFilter dirFilter) {
+		String relPath = relDirPath.startsWith("/") ? relDirPath.substring(1) : relDirPath;
+		return new DirectoryResourceIterator(relPath.isEmpty() ? null : relPath, dirFilter);
 	}
 	
 	private static boolean isCancelled(){
@@ -276,14 +290,106 @@ public class DirectoryRoot implements Root {
         return true;
     }
     
+    static boolean isIncludeDir(String name) {
+    	return name.charAt(0) != HIDDEN_DIR_PREFIX && !name.equals("CVS");
+    }
+    
+    private static class PendingDir {
+    	final String relPath;
+    	final Path dir;
+		
+    	PendingDir(String relPath, Path dir) {
+			this.relPath = relPath;
+			this.dir = dir;
+		}
+    }
+    
+    private class DirectoryResourceIterator extends AbstractIterator<RootResource> implements CloseableIterator<RootResource> {
+    	private final Deque<PendingDir> pendingDirs = new ArrayDeque<>();
+    	private final List<RootResource> files = new ArrayList<>();
+    	private final List<PendingDir> childDirs = new ArrayList<>();
+    	/** may be null */
+    	private final DirectoryFilter dirFilter;
+    	private int fileIndex;
+    	
+    	/**
+    	 * @param startRelPath the dir to start from, as in 'com/acme', or null for the base dir
+    	 */
+    	DirectoryResourceIterator(String startRelPath, DirectoryFilter dirFilter) {
+    		this.dirFilter = dirFilter;
+    		if (isDirectoryAndExists()) {
+    			Path start = startRelPath == null ? baseDir.toPath() : baseDir.toPath().resolve(startRelPath);
+    			pendingDirs.push(new PendingDir(startRelPath, start));
+    		}
+		}
+    	
+		@Override
+		protected RootResource computeNext() {
+			while (true) {
+				if (fileIndex < files.size()) {
+					return files.get(fileIndex++);
+				}
+				if (pendingDirs.isEmpty()) {
+					return endOfData();
+				}
+				list(pendingDirs.pop());
+			}
+		}
+
+		/**
+		 * Read the files and child dirs of the given dir in a single pass, reading each entry's attributes only once
+		 */
+		private void list(PendingDir dir) {
+			files.clear();
+			fileIndex = 0;
+			childDirs.clear();
+			String basePath = dir.relPath==null?"":(dir.relPath + "/");
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir.dir)) {
+				for (Path entry : entries) {
+					String name = entry.getFileName().toString();
+					BasicFileAttributes attrs;
+					try {
+						attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+					} catch (IOException e) {
+						continue;//removed since listed, or broken link
+					}
+					if (attrs.isRegularFile()) {
+						files.add(new RootResource(DirectoryRoot.this, basePath + name, attrs.lastModifiedTime().toMillis(), attrs.size()));
+					} else if (attrs.isDirectory() && isIncludeDir(name)) {
+						String childPath = basePath + name;
+						if (dirFilter == null || dirFilter.isIncludeDirectory("/" + childPath)) {
+							childDirs.add(new PendingDir(childPath, entry));
+						}
+					}
+				}
+			} catch (IOException | DirectoryIteratorException e) {
+				//unreadable dir, skip as File.listFiles did
+			}
+			//push in reverse so the first child dir is walked next
+			for (int i = childDirs.size() - 1; i >= 0; i--) {
+				pendingDirs.push(childDirs.get(i));
+			}
+		}
+
+		@Override
+		public void close() {
+			pendingDirs.clear();
+			files.clear();
+		}
+    }
+    
     public static class Builder implements IBuilder<DirectoryRoot> {
 
         private File baseDir;
         private RootType type;
         private RootContentType contentType;
+        private boolean watch;
 
         @Override
         public DirectoryRoot build() {
+            if (watch) {
+                return new WatchingDirectoryRoot(baseDir,type,contentType);
+            }
             return new DirectoryRoot(baseDir,type,contentType);
         }
 
@@ -307,6 +413,14 @@ public class DirectoryRoot implements Root {
             return this;
         }
 
+        /**
+         * Keep the directory listing in memory and up to date from file system events, see {@link WatchingDirectoryRoot}
+         */
+        public Builder watch(boolean watch) {
+            this.watch = watch;
+            return this;
+        }
+
     }
 
 }
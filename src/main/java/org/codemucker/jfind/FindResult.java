@@ -4,6 +4,8 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import org.codemucker.jmatch.MatchDiagnostics;
 import org.codemucker.jmatch.Matcher;
@@ -23,6 +25,12 @@ public interface FindResult<T> extends Iterable<T> {
 	
 	public List<T> toList();
 
+	/**
+	 * The timings and counts collected so far while scanning for these results, including by any results these were
+	 * filtered or transformed from. Empty (and disabled) if the results did not come from a scan
+	 */
+	public ScanStats getStats();
+
 	/**
 	 * Return a new view over the current results using the given filter. Anything that matches
 	 * the filter is kept, non matching items are removed
@@ -60,6 +68,46 @@ public interface FindResult<T> extends Iterable<T> {
 	 */
 	public <K> Map<K,T> toMap(KeyProvider<K, T> keyProvider);
 
+	/**
+	 * Return a new view over the current results where the filter and transform stages added after this call are evaluated
+	 * concurrently, on a shared pool of daemon threads, over chunks of the results. The underlying results (as in the scan)
+	 * are still iterated on the calling thread. Results keep their order unless {@link #unordered()} is set.
+	 *
+	 * <p>Matchers, transform functions and the {@link MatchListener} callbacks of {@link #filter(Matcher, MatchListener)} and
+	 * {@link #filter(Filter)} are then invoked from the pool threads, possibly concurrently, so must be thread safe.
+	 * Consecutive parallel stages are evaluated together, each chunk passing through all of them in a single task.</p>
+	 *
+	 * <p>A parallel result iterated from within a parallel stage (as in a matcher which itself finds methods in parallel) is
+	 * evaluated on the thread already running the stage, so nested results can't use up the pool waiting on each other.</p>
+	 */
+	public FindResult<T> parallel();
+	
+	/**
+	 * As {@link #parallel()}, evaluating the stages on the given executor
+	 */
+	public FindResult<T> parallel(Executor executor);
+	
+	/**
+	 * Return a new view over the current results which in {@link #parallel()} mode returns each chunk of results as soon as
+	 * it's ready, instead of in the order of the underlying results. No effect on sequential results
+	 */
+	public FindResult<T> unordered();
+	
+	public boolean isParallel();
+	
+	/**
+	 * The results as a stream, sized and splitting evenly if the results are already in a list or other collection, else
+	 * pulled from the underlying (lazy) results as the stream is consumed, so short circuiting operations like
+	 * {@link Stream#anyMatch(java.util.function.Predicate)} stop the scan early. Close the stream (as in via try with resources)
+	 * to release a scan not fully consumed
+	 */
+	public Stream<T> stream();
+	
+	/**
+	 * As {@link #stream()}, but a parallel stream. Independent of {@link #parallel()}
+	 */
+	public Stream<T> parallelStream();
+	
 	public T getFirst();
 	
 	public T getFirstOrNull();
@@ -0,0 +1,22 @@
+package org.codemucker.jfind;
+
+/**
+ * A {@link Root} which can provide its resources on demand, rather than only pushing them all to a {@link RootVisitor}.
+ * This allows callers to stop walking a root part way through without having enumerated all of its resources.
+ */
+public interface IterableRoot extends Root {
+
+    /**
+     * Return a lazy iterator over all the resources in this root, in the same order as they would be passed to a
+     * {@link RootVisitor}. Directories are not returned. The caller must close the iterator if it is not exhausted.
+     */
+    CloseableIterator<RootResource> resourceIterator();
+
+    /**
+     * As {@link #resourceIterator()}, but skipping any directories (or archive path prefixes) rejected by the given filter,
+     * without listing them
+     *
+     * @param dirFilter may be null to walk everything
+     */
+    CloseableIterator<RootResource> resourceIterator(DirectoryFilter dirFilter);
+}
@@ -0,0 +1,424 @@
+package org.codemucker.jfind;
+
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Read only zip reader which memory maps the archive and reads the central directory directly. Entries are addressed by
+ * index, and their directories can be compared without decoding, so callers pruning directories only decode a directory's
+ * name once and never decode the names of the entries under an excluded one.
+ *
+ * <p>Supports stored and deflated entries, and the zip64 end of central directory (for archives with more than 65535
+ * entries). Archives larger than 2GB can't be mapped, use a {@link java.util.zip.ZipFile} for these.</p>
+ *
+ * <p>Can also read an archive already in memory, as in a jar nested in another archive, see {@link #wrap(File, ByteBuffer)}.</p>
+ *
+ * <p>Thread safe once opened. The mapping is released by the garbage collector, not by {@link #close()}, which only
+ * prevents further use.</p>
+ *
+ * <p>See the PKWARE APPNOTE.TXT for the format</p>
+ */
+final class MappedZipFile implements Closeable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int SIG_LOCAL_HEADER = 0x04034b50;
+    private static final int SIG_CENTRAL_HEADER = 0x02014b50;
+    private static final int SIG_END = 0x06054b50;
+    private static final int SIG_ZIP64_END = 0x06064b50;
+    private static final int SIG_ZIP64_LOCATOR = 0x07064b50;
+
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private static final int EXTRA_ZIP64 = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final File file;
+    private final ByteBuffer buf;
+    /** offset of each entry's central directory header */
+    private final int[] entryOffsets;
+    /** lazily built on the first lookup by name */
+    private volatile Map<String, Integer> nameToIndex;
+    private volatile boolean closed;
+
+    private MappedZipFile(File file, ByteBuffer buf, int[] entryOffsets) {
+        this.file = file;
+        this.buf = buf;
+        this.entryOffsets = entryOffsets;
+    }
+
+    static MappedZipFile open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive too large to memory map " + file.getAbsolutePath());
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedZipFile(file, mapped, readEntryOffsets(file, mapped));
+        } finally {
+            raf.close();// mapping remains valid after the channel is closed
+        }
+    }
+
+    /**
+     * Read an archive from the given buffer, as in a slice of the archive it's nested in
+     *
+     * @param file the file the buffer was read from, for error messages
+     */
+    static MappedZipFile wrap(File file, ByteBuffer archive) throws IOException {
+        ByteBuffer buf = archive.slice();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        return new MappedZipFile(file, buf, readEntryOffsets(file, buf));
+    }
+
+    private static int[] readEntryOffsets(File file, ByteBuffer buf) throws IOException {
+        int end = findEnd(file, buf);
+        long numEntries = buf.getShort(end + 10) & 0xFFFF;
+        long cdOffset = buf.getInt(end + 16) & 0xFFFFFFFFL;
+
+        int locator = end - ZIP64_LOCATOR_SIZE;
+        if (locator >= 0 && buf.getInt(locator) == SIG_ZIP64_LOCATOR) {
+            long zip64End = buf.getLong(locator + 8);
+            if (zip64End < 0 || zip64End > buf.limit() - 56 || buf.getInt((int) zip64End) != SIG_ZIP64_END) {
+                throw new IOException("Invalid zip64 end of central directory in " + file.getAbsolutePath());
+            }
+            numEntries = buf.getLong((int) zip64End + 32);
+            cdOffset = buf.getLong((int) zip64End + 48);
+        }
+        if (cdOffset > end || numEntries > (end - cdOffset) / CENTRAL_HEADER_SIZE) {
+            throw new IOException("Invalid central directory in " + file.getAbsolutePath());
+        }
+        int[] offsets = new int[(int) numEntries];
+        int pos = (int) cdOffset;
+        for (int i = 0; i < offsets.length; i++) {
+            if (pos > end - CENTRAL_HEADER_SIZE || buf.getInt(pos) != SIG_CENTRAL_HEADER) {
+                throw new IOException("Invalid central directory entry " + i + " in " + file.getAbsolutePath());
+            }
+            offsets[i] = pos;
+            pos += CENTRAL_HEADER_SIZE + u2(buf, pos + 28) + u2(buf, pos + 30) + u2(buf, pos + 32);
+            if (pos > end) {
+                // the name, extra field or comment runs into the end record
+                throw new IOException("Invalid central directory in " + file.getAbsolutePath());
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Find the end of central directory record, searching back from the end to skip over any archive comment
+     */
+    private static int findEnd(File file, ByteBuffer buf) throws IOException {
+        int min = Math.max(0, buf.limit() - END_SIZE - MAX_COMMENT_SIZE);
+        for (int pos = buf.limit() - END_SIZE; pos >= min; pos--) {
+            if (buf.getInt(pos) == SIG_END && pos + END_SIZE + u2(buf, pos + 20) == buf.limit()) {
+                return pos;
+            }
+        }
+        throw new IOException("Not a zip file (no end of central directory) " + file.getAbsolutePath());
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int size() {
+        return entryOffsets.length;
+    }
+
+    boolean isDirectory(int index) {
+        int len = nameLength(index);
+        return len > 0 && buf.get(nameOffset(index) + len - 1) == '/';
+    }
+
+    /**
+     * True if both entries' names have the same directory part. Compares the raw name bytes, without decoding
+     */
+    boolean isSameDir(int index, int otherIndex) {
+        int len = dirNameLength(index);
+        if (len != dirNameLength(otherIndex)) {
+            return false;
+        }
+        int offset = nameOffset(index);
+        int otherOffset = nameOffset(otherIndex);
+        for (int i = 0; i < len; i++) {
+            if (buf.get(offset + i) != buf.get(otherOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the directory part of the entry's name without the trailing slash, as in 'com/acme' for 'com/acme/Foo.class', or
+     *         an empty string for a top level entry
+     */
+    String getDirName(int index) {
+        return decode(nameOffset(index), dirNameLength(index));
+    }
+
+    private int dirNameLength(int index) {
+        int offset = nameOffset(index);
+        for (int i = nameLength(index) - 1; i >= 0; i--) {
+            if (buf.get(offset + i) == '/') {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    String getName(int index) {
+        return decode(nameOffset(index), nameLength(index));
+    }
+
+    private String decode(int offset, int len) {
+        byte[] bytes = new byte[len];
+        ByteBuffer dup = buf.duplicate();
+        dup.position(offset);
+        dup.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * @return the index of the entry with the given name, or -1 if there is no such entry
+     */
+    int indexOf(String name) {
+        Map<String, Integer> map = nameToIndex;
+        if (map == null) {
+            map = newHashMapWithExpectedSize(entryOffsets.length);
+            for (int i = 0; i < entryOffsets.length; i++) {
+                map.put(getName(i), i);
+            }
+            nameToIndex = map;
+        }
+        Integer index = map.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return the entry's modification time, from the MS-DOS date and time fields, as per {@link java.util.zip.ZipEntry#getTime()}
+     */
+    long getTime(int index) {
+        int offset = entryOffsets[index];
+        int time = u2(buf, offset + 12);
+        int date = u2(buf, offset + 14);
+        Calendar cal = new GregorianCalendar(
+            ((date >> 9) & 0x7F) + 1980,
+            ((date >> 5) & 0x0F) - 1,
+            date & 0x1F,
+            (time >> 11) & 0x1F,
+            (time >> 5) & 0x3F,
+            (time << 1) & 0x3E);
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * @return the entry's crc-32 as recorded in the central directory, without reading the entry
+     */
+    long getCrc(int index) {
+        return buf.getInt(entryOffsets[index] + 16) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return a hash of each entry's raw name bytes, crc and size, as per {@link ArchiveFingerprint}
+     */
+    long fingerprint() {
+        long hash = ArchiveFingerprint.START;
+        for (int i = 0; i < entryOffsets.length; i++) {
+            int offset = nameOffset(i);
+            int end = offset + nameLength(i);
+            for (int pos = offset; pos < end; pos++) {
+                hash = ArchiveFingerprint.addByte(hash, buf.get(pos));
+            }
+            hash = ArchiveFingerprint.addEntry(hash, getCrc(i), getSize(i));
+        }
+        return hash;
+    }
+
+    long getSize(int index) {
+        long size = buf.getInt(entryOffsets[index] + 24) & 0xFFFFFFFFL;
+        return size == ZIP64_MAGIC ? zip64Value(index, 0) : size;
+    }
+
+    InputStream getInputStream(int index) throws IOException {
+        checkOpen();
+        int method = u2(buf, entryOffsets[index] + 10);
+        long compressedSize = getCompressedSize(index);
+        long dataStart = getDataStart(index, compressedSize);
+        switch (method) {
+        case METHOD_STORED:
+            return new ByteBufferInputStream(slice((int) dataStart, (int) compressedSize));
+        case METHOD_DEFLATED:
+            // the inflater may need a trailing byte past the data to detect the end, always present as the central
+            // directory follows
+            int len = (int) Math.min(compressedSize + 1, buf.limit() - dataStart);
+            return new InflaterInputStream(new ByteBufferInputStream(slice((int) dataStart, len)), new Inflater(true)) {
+                private boolean ended;
+
+                @Override
+                public void close() throws IOException {
+                    if (!ended) {
+                        ended = true;
+                        super.close();
+                        inf.end();
+                    }
+                }
+            };
+        default:
+            throw new IOException("Unsupported compression method " + method + " for entry '" + getName(index) + "' in " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the entry's content in place, without copying, if stored uncompressed. Else null
+     */
+    ByteBuffer getStoredContentOrNull(int index) throws IOException {
+        checkOpen();
+        if (u2(buf, entryOffsets[index] + 10) != METHOD_STORED) {
+            return null;
+        }
+        long size = getCompressedSize(index);
+        return slice((int) getDataStart(index, size), (int) size);
+    }
+
+    private long getCompressedSize(int index) {
+        long compressedSize = buf.getInt(entryOffsets[index] + 20) & 0xFFFFFFFFL;
+        return compressedSize == ZIP64_MAGIC ? zip64Value(index, 1) : compressedSize;
+    }
+
+    /**
+     * @return the offset of the entry's data, after its local header
+     */
+    private long getDataStart(int index, long compressedSize) throws IOException {
+        long localOffset = buf.getInt(entryOffsets[index] + 42) & 0xFFFFFFFFL;
+        if (localOffset == ZIP64_MAGIC) {
+            localOffset = zip64Value(index, 2);
+        }
+        if (localOffset > buf.limit() - LOCAL_HEADER_SIZE || buf.getInt((int) localOffset) != SIG_LOCAL_HEADER) {
+            throw new IOException("Invalid local header for entry '" + getName(index) + "' in " + file.getAbsolutePath());
+        }
+        int local = (int) localOffset;
+        long dataStart = local + LOCAL_HEADER_SIZE + u2(buf, local + 26) + u2(buf, local + 28);
+        if (dataStart + compressedSize > buf.limit()) {
+            throw new IOException("Truncated entry '" + getName(index) + "' in " + file.getAbsolutePath());
+        }
+        return dataStart;
+    }
+
+    /**
+     * Read a value from the entry's zip64 extra field. The field only holds the values whose central header fields are
+     * maxed out, in the order: size, compressed size, local header offset
+     *
+     * @param field 0 for size, 1 for compressed size, 2 for local header offset
+     */
+    private long zip64Value(int index, int field) {
+        int offset = entryOffsets[index];
+        int[] headerFields = { offset + 24, offset + 20, offset + 42 };
+        int pos = nameOffset(index) + nameLength(index);
+        int extraEnd = pos + u2(buf, offset + 30);
+        while (pos + 4 <= extraEnd) {
+            int id = u2(buf, pos);
+            int len = u2(buf, pos + 2);
+            if (id == EXTRA_ZIP64) {
+                int valuePos = pos + 4;
+                for (int i = 0; i < field; i++) {
+                    if ((buf.getInt(headerFields[i]) & 0xFFFFFFFFL) == ZIP64_MAGIC) {
+                        valuePos += 8;
+                    }
+                }
+                if (valuePos + 8 <= pos + 4 + len) {
+                    return buf.getLong(valuePos);
+                }
+                break;
+            }
+            pos += 4 + len;
+        }
+        // no valid zip64 value, will fail the bounds checks
+        return Long.MAX_VALUE;
+    }
+
+    private ByteBuffer slice(int start, int len) {
+        ByteBuffer dup = buf.duplicate();
+        dup.position(start);
+        dup.limit(start + len);
+        return dup.slice();
+    }
+
+    private int nameOffset(int index) {
+        return entryOffsets[index] + CENTRAL_HEADER_SIZE;
+    }
+
+    private int nameLength(int index) {
+        return u2(buf, entryOffsets[index] + 28);
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Archive closed " + file.getAbsolutePath());
+        }
+    }
+
+    private static int u2(ByteBuffer buf, int offset) {
+        return buf.getShort(offset) & 0xFFFF;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+
+        ByteBufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buf.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+    }
+}
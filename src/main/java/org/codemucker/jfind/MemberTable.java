@@ -0,0 +1,157 @@
+package org.codemucker.jfind;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The methods and fields of a class, read via reflection once per class and shared by every {@link ReflectedClass} (and so
+ * matcher) querying it, instead of each query copying the declared members of every class in the hierarchy again.
+ *
+ * <p>Bridge methods are excluded. A method overridden (or hidden) by a subclass method with the same name and parameter types
+ * is only included once, as the subclass's method. Private methods, and package private ones seen from a subclass in another
+ * package, can't be overridden so are always included. Methods of {@link Object} are never included. The members are the JDK's
+ * own instances, so are shared by all callers.</p>
+ */
+final class MemberTable {
+
+    private static final ClassValue<MemberTable> TABLES = new ClassValue<MemberTable>() {
+        @Override
+        protected MemberTable computeValue(Class<?> type) {
+            return new MemberTable(type);
+        }
+    };
+
+    private final List<Method> declaredMethods;
+    private final List<Method> methods;
+    private final List<Field> declaredFields;
+
+    private MemberTable(Class<?> type) {
+        if (type == Object.class) {
+            declaredMethods = ImmutableList.of();
+            methods = ImmutableList.of();
+        } else {
+            declaredMethods = nonBridge(type.getDeclaredMethods());
+            methods = type.getSuperclass() == null || type.getSuperclass() == Object.class ? declaredMethods : merge(type, declaredMethods, get(type.getSuperclass()).methods);
+        }
+        declaredFields = ImmutableList.copyOf(type.getDeclaredFields());
+    }
+
+    static MemberTable get(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    private static List<Method> nonBridge(Method[] declared) {
+        ImmutableList.Builder<Method> methods = ImmutableList.builder();
+        for (Method m : declared) {
+            if (!m.isBridge()) {
+                methods.add(m);
+            }
+        }
+        return methods.build();
+    }
+
+    /**
+     * The declared methods followed by those of the super class not overridden by them. The super class's are already merged
+     * with its own super classes, so each class in the hierarchy is only read once
+     */
+    private static List<Method> merge(Class<?> type, List<Method> declared, List<Method> inherited) {
+        if (inherited.isEmpty()) {
+            return declared;
+        }
+        Map<Signature, Method> bySignature = newHashMap();
+        for (Method m : declared) {
+            bySignature.put(new Signature(m), m);
+        }
+        ImmutableList.Builder<Method> methods = ImmutableList.builder();
+        methods.addAll(declared);
+        String packageName = packageName(type);
+        for (Method m : inherited) {
+            if (!isOverridable(m, packageName) || !bySignature.containsKey(new Signature(m))) {
+                methods.add(m);
+            }
+        }
+        return methods.build();
+    }
+
+    /**
+     * Private methods, and package private ones from another package, can only be shadowed by a subclass method, not overridden
+     */
+    private static boolean isOverridable(Method m, String fromPackageName) {
+        int modifiers = m.getModifiers();
+        if (Modifier.isPrivate(modifiers)) {
+            return false;
+        }
+        if (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) {
+            return true;
+        }
+        return packageName(m.getDeclaringClass()).equals(fromPackageName);
+    }
+
+    /**
+     * From the name, as {@link Class#getPackage()} can be null for classes from some class loaders
+     */
+    private static String packageName(Class<?> type) {
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? "" : name.substring(0, dot);
+    }
+
+    /**
+     * @return the non bridge methods declared directly on the class
+     */
+    List<Method> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    /**
+     * @return the non bridge methods declared on the class and its super classes (excluding Object), most derived first,
+     * without the overridden ones
+     */
+    List<Method> getMethods() {
+        return methods;
+    }
+
+    List<Field> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * A method's name and parameter types, which is what overriding is decided on
+     */
+    private static final class Signature {
+        private final String name;
+        private final Class<?>[] paramTypes;
+        private final int hash;
+
+        Signature(Method m) {
+            this.name = m.getName();
+            this.paramTypes = m.getParameterTypes();
+            this.hash = name.hashCode() * 31 + Arrays.hashCode(paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) obj;
+            return hash == other.hash && name.equals(other.name) && Arrays.equals(paramTypes, other.paramTypes);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collection;
+
+/**
+ * Fixed size Bloom filter of resource paths. {@link #mightContain(String)} never returns false for an added path, and
+ * returns true for a path which wasn't added with about the given probability. Not thread safe while adding, safe to query
+ * concurrently once built.
+ */
+final class PathBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashes;
+
+    private PathBloomFilter(int expectedPaths, double falsePositiveRate) {
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "expect false positive rate between 0 and 1");
+        int n = Math.max(1, expectedPaths);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * LN2));
+        this.bits = new long[(numBits + 63) >>> 6];
+    }
+
+    static PathBloomFilter from(Collection<String> paths, double falsePositiveRate) {
+        PathBloomFilter filter = new PathBloomFilter(paths.size(), falsePositiveRate);
+        for (String path : paths) {
+            filter.add(path);
+        }
+        return filter;
+    }
+
+    private void add(String path) {
+        int h1 = mix(path.hashCode());
+        int h2 = secondHash(path);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String path) {
+        int h1 = mix(path.hashCode());
+        int h2 = secondHash(path);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The murmur3 finaliser, to spread the bits of {@link String#hashCode()}
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * FNV-1a over the chars, independent of the first hash. Odd so every probe lands on a different bit
+     */
+    private static int secondHash(String path) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < path.length(); i++) {
+            h = (h ^ path.charAt(i)) * 0x01000193;
+        }
+        return h | 1;
+    }
+
+    int getNumBits() {
+        return numBits;
+    }
+}
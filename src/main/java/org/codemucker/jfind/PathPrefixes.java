@@ -0,0 +1,158 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.codemucker.lang.PathUtil;
+
+import com.google.common.base.Objects;
+
+/**
+ * A set of relative directory paths which all wanted resources must be under. Used as a hint to roots so they only walk
+ * the directories which could contain matches. An empty set matches nothing.
+ *
+ * <p>Prefixes are stored with a leading and trailing slash, as in '/com/acme/'. A prefix of '/' matches everything</p>
+ */
+public final class PathPrefixes implements DirectoryFilter {
+
+    private final List<String> prefixes;
+
+    private PathPrefixes(List<String> prefixes) {
+        this.prefixes = Collections.unmodifiableList(prefixes);
+    }
+
+    /**
+     * @param relDirPaths directories relative to the root, as in 'com/acme' or '/com/acme/'
+     */
+    public static PathPrefixes dirs(String... relDirPaths) {
+        List<String> prefixes = newArrayList();
+        for (String path : relDirPaths) {
+            prefixes.add(toPrefix(path));
+        }
+        return new PathPrefixes(prefixes);
+    }
+
+    /**
+     * The prefix for all resources in the given package (and its sub packages)
+     */
+    public static PathPrefixes packageName(String packageName) {
+        return dirs(packageName.replace('.', '/'));
+    }
+
+    /**
+     * The directory part of the given relative path
+     */
+    public static PathPrefixes parentOf(String relPath) {
+        relPath = PathUtil.toForwardSlashes(checkNotNull(relPath, "expect path"));
+        int slash = relPath.lastIndexOf('/');
+        return dirs(slash <= 0 ? "" : relPath.substring(0, slash));
+    }
+
+    /**
+     * The directory part of the pattern before the first wildcard, as in 'com/acme/' for 'com/acme/**&#47;*.class', or null if
+     * the pattern starts with a wildcard (so can match anywhere)
+     */
+    public static PathPrefixes fromAntPatternOrNull(String antPattern) {
+        antPattern = PathUtil.toForwardSlashes(checkNotNull(antPattern, "expect pattern"));
+        int wildcard = indexOfWildcard(antPattern);
+        String literal = wildcard == -1 ? antPattern : antPattern.substring(0, wildcard);
+        int slash = literal.lastIndexOf('/');
+        if (slash <= 0) {
+            return null;
+        }
+        return dirs(literal.substring(0, slash));
+    }
+
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String toPrefix(String path) {
+        path = PathUtil.toForwardSlashes(checkNotNull(path, "expect path"));
+        if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+        if (!path.endsWith("/")) {
+            path = path + "/";
+        }
+        return path;
+    }
+
+    /**
+     * Combine with another set of prefixes which must also hold (as in both matchers must match). Keeps the more specific
+     * prefix of each overlapping pair
+     */
+    public PathPrefixes and(PathPrefixes other) {
+        List<String> combined = newArrayList();
+        for (String a : prefixes) {
+            for (String b : other.prefixes) {
+                if (a.startsWith(b)) {
+                    combined.add(a);
+                } else if (b.startsWith(a)) {
+                    combined.add(b);
+                }
+            }
+        }
+        return new PathPrefixes(combined);
+    }
+
+    /**
+     * Combine with another set of prefixes, either of which may hold (as in either matcher may match)
+     */
+    public PathPrefixes or(PathPrefixes other) {
+        List<String> combined = newArrayList(prefixes);
+        for (String b : other.prefixes) {
+            if (!combined.contains(b)) {
+                combined.add(b);
+            }
+        }
+        return new PathPrefixes(combined);
+    }
+
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    /**
+     * True if the directory is under one of the prefixes, or on the way to one
+     */
+    @Override
+    public boolean isIncludeDirectory(String relDirPath) {
+        String dir = toPrefix(relDirPath);
+        for (String prefix : prefixes) {
+            if (dir.startsWith(prefix) || prefix.startsWith(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the resource path is under one of the prefixes
+     */
+    public boolean isIncludePath(String relPath) {
+        if (!relPath.startsWith("/")) {
+            relPath = "/" + relPath;
+        }
+        for (String prefix : prefixes) {
+            if (relPath.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("prefixes", prefixes).toString();
+    }
+}
@@ -20,7 +20,7 @@ public class ReflectedAnnotation extends AbstractReflectedObject {
     }
 
     public ReflectedAnnotation(Annotation anon) {
-        super(anon.annotationType().getAnnotations(),anon.annotationType().getModifiers());
+        super(anon.annotationType(),anon.annotationType().getModifiers());
         this.anon = anon;
     }
 
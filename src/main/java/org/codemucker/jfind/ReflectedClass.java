@@ -9,17 +9,27 @@ import org.codemucker.jmatch.Matcher;
 
 public class ReflectedClass extends AbstractReflectedObject {
 
+    private static final ClassValue<ReflectedClass> CACHE = new ClassValue<ReflectedClass>() {
+        @Override
+        protected ReflectedClass computeValue(Class<?> type) {
+            return new ReflectedClass(type);
+        }
+    };
+    
     private final Class<?> type;
 
+    /**
+     * @return the shared instance for the given class, or null if the class is null
+     */
     public static ReflectedClass from(Class<?> type) {
         if (type == null) {
             return null;
         }
-        return new ReflectedClass(type);
+        return CACHE.get(type);
     }
 
     public ReflectedClass(Class<?> type) {
-        super(type.getAnnotations(), type.getModifiers());
+        super(type, type.getModifiers());
         this.type = type;
     }
 
@@ -28,24 +38,10 @@ public class ReflectedClass extends AbstractReflectedObject {
     }
 
     public boolean hasMethodMatching(Matcher<Method> matcher) {
-        Class<?> t = type;
-        List<String> visitedMethods = new ArrayList<>();// ignore overridden
-                                                        // methods
-        while (t != null && t != Object.class) {
-            for (Method m : t.getDeclaredMethods()) {
-                if (m.isBridge()) {
-                    continue;
-                }
-                String sig = m.toGenericString();
-                if (!visitedMethods.contains(sig)) {
-                    if (matcher.matches(m)) {
-                        return true;
-                    }
-                    ;
-                    visitedMethods.add(sig);
-                }
+        for (Method m : MemberTable.get(type).getMethods()) {
+            if (matcher.matches(m)) {
+                return true;
             }
-            t = t.getSuperclass();
         }
         return false;
     }
@@ -56,29 +52,18 @@ public class ReflectedClass extends AbstractReflectedObject {
     }
     
     public FindResult<Method> findMethodsMatching(Matcher<Method> matcher, SearchScope scope) {
+        MemberTable members = MemberTable.get(type);
         List<Method> found = new ArrayList<>();
-        Class<?> currentType = type;
-        List<String> visitedMethods = new ArrayList<>();
-        while (currentType != null && currentType != Object.class) {
-            for (Method m : currentType.getDeclaredMethods()) {
-                if (m.isBridge()) {
-                    continue;
-                }
-                String sig = m.toGenericString();
-                if (!visitedMethods.contains(sig)) {
-                    visitedMethods.add(sig);
-                    if (matcher.matches(m)) {
-                        found.add(m);
-                    }
-                }
-            };
-            currentType = SearchScope.PARENT.isSet(scope)?currentType.getSuperclass():null;
+        for (Method m : SearchScope.PARENT.isSet(scope) ? members.getMethods() : members.getDeclaredMethods()) {
+            if (matcher.matches(m)) {
+                found.add(m);
+            }
         }
         return DefaultFindResult.from(found);
     }
 
     public boolean hasFieldsMatching(Matcher<Field> matcher) {
-        for (Field f : type.getDeclaredFields()) {
+        for (Field f : MemberTable.get(type).getDeclaredFields()) {
             if (matcher.matches(f)) {
                 return true;
             }
@@ -88,7 +73,7 @@ public class ReflectedClass extends AbstractReflectedObject {
 
     public FindResult<Field> findFieldsMatching(Matcher<Field> matcher) {
         List<Field> found = new ArrayList<>();
-        for (Field f : type.getDeclaredFields()) {
+        for (Field f : MemberTable.get(type).getDeclaredFields()) {
             if (matcher.matches(f)) {
                 found.add(f);
             }
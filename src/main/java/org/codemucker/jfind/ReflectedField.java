@@ -14,7 +14,7 @@ public class ReflectedField extends AbstractReflectedObject {
     }
 
     public ReflectedField(Field field) {
-        super(field.getAnnotations(),field.getModifiers());
+        super(field,field.getModifiers());
         this.field = field;
     }
 
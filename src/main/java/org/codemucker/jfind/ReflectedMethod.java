@@ -14,7 +14,7 @@ public class ReflectedMethod extends AbstractReflectedObject {
     }
 
     public ReflectedMethod(Method method) {
-        super(method.getAnnotations(),method.getModifiers());
+        super(method,method.getModifiers());
         this.method = method;
     }
     
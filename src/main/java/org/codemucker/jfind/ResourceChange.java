@@ -0,0 +1,43 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Objects;
+
+/**
+ * A resource which was added, changed or removed since a {@link ChangeTrackingRoot} last reported its changes
+ */
+public final class ResourceChange {
+
+    public static enum Type {
+        ADDED, CHANGED, REMOVED
+    }
+
+    private final Type type;
+    private final RootResource resource;
+
+    public ResourceChange(Type type, RootResource resource) {
+        this.type = checkNotNull(type, "expect change type");
+        this.resource = checkNotNull(resource, "expect resource");
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the resource as it is now, or as it was last seen if removed
+     */
+    public RootResource getResource() {
+        return resource;
+    }
+
+    public boolean isRemoved() {
+        return type == Type.REMOVED;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("type", type).add("resource", resource.getRelPath()).toString();
+    }
+}
@@ -15,14 +15,30 @@ import com.google.common.base.Objects;
 
 public class RootResource  {
 
+	public static final long SIZE_UNKNOWN = -1;
+	
+	private static final long NOT_SET = Long.MIN_VALUE;
+	
 	private final Root root;
 	private final String relPath;
     private final int depth;
+    /** if known when the resource was found, saves asking the root again */
+    private final long lastModified;
+    private final long size;
 
 	public RootResource(Root root, String relPath) {
+		this(root, relPath, NOT_SET, SIZE_UNKNOWN);
+	}
+	
+	/**
+	 * For roots which already know the resource's attributes when walking, as in from a directory listing
+	 */
+	public RootResource(Root root, String relPath, long lastModified, long size) {
 		this.root = checkNotNull(root,"expect class path root");
 		this.relPath = cleanRelPath(checkNotNull(relPath,"expect relative path"));
-		this.depth = countForwardSlashes(relPath);
+		this.depth = countForwardSlashes(this.relPath);
+		this.lastModified = lastModified;
+		this.size = size;
 	}
 
 	private static String cleanRelPath(String path) {
@@ -111,8 +127,20 @@ public class RootResource  {
 		return root;
 	}
 
+	/**
+	 * @return the last modified time as when this resource was found if known, else as currently reported by the root. A
+	 *         time taken when found isn't re-read, so won't reflect later changes to the resource. Use
+	 *         {@link Root#getResourceLastModified(String)} for the current time
+	 */
 	public long getLastModified(){
-	    return root.getResourceLastModified(relPath);
+	    return lastModified != NOT_SET ? lastModified : root.getResourceLastModified(relPath);
+	}
+	
+	/**
+	 * @return the size in bytes as when this resource was found, or {@link #SIZE_UNKNOWN} if the root didn't provide it
+	 */
+	public long getSize(){
+		return size;
 	}
 	
 	public int getDepthFromRoot() {
@@ -0,0 +1,238 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.codemucker.lang.PathUtil;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An ordered set of roots (as in a classpath) for looking up resources by relative path, without asking every root in turn.
+ *
+ * <p>On the first lookup each root's resource paths are listed once. Archives keep the exact set of their paths, so are only
+ * asked for the resources they contain. Directories keep a Bloom filter of their paths, so are only asked (with a file
+ * stat) when the path might be in them. Roots which can't be listed are always asked. Archive roots set to include their
+ * nested archives (see {@link ArchiveRoot.Builder#nestedArchives(boolean)}) are expanded then too, each nested archive
+ * following its parent.</p>
+ *
+ * <p>The listings are a snapshot, resources added to a root afterwards are not found until {@link #refresh()} is called.
+ * Thread safe.</p>
+ */
+public final class RootSet implements Iterable<Root> {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /** as given, before any nested archives are expanded */
+    private final List<Root> declaredRoots;
+    /** null until first needed */
+    private volatile ExpandedRoots expanded;
+    private final AtomicLong rootsSkipped = new AtomicLong();
+    private final AtomicLong rootsAsked = new AtomicLong();
+
+    private RootSet(List<Root> declaredRoots) {
+        this.declaredRoots = declaredRoots;
+    }
+
+    /**
+     * @param roots in lookup order, duplicates are removed
+     */
+    public static RootSet from(Iterable<? extends Root> roots) {
+        checkNotNull(roots, "expect roots");
+        return new RootSet(ImmutableList.<Root> copyOf(ImmutableSet.<Root> copyOf(roots)));
+    }
+
+    /**
+     * @return the resource in the first root which contains it, or null if none do
+     */
+    public RootResource findResourceOrNull(String relPath) {
+        String path = toPath(relPath);
+        ExpandedRoots expanded = expanded();
+        for (int i = 0; i < expanded.roots.size(); i++) {
+            if (contains(expanded, i, path)) {
+                return expanded.roots.get(i).getResource(path);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the resource from each root which contains it, in root order. Empty if none
+     */
+    public List<RootResource> findResources(String relPath) {
+        String path = toPath(relPath);
+        List<RootResource> found = null;
+        ExpandedRoots expanded = expanded();
+        for (int i = 0; i < expanded.roots.size(); i++) {
+            if (contains(expanded, i, path)) {
+                if (found == null) {
+                    found = newArrayList();
+                }
+                found.add(expanded.roots.get(i).getResource(path));
+            }
+        }
+        return found == null ? Collections.<RootResource> emptyList() : found;
+    }
+
+    public boolean containsResource(String relPath) {
+        return findResourceOrNull(relPath) != null;
+    }
+
+    private boolean contains(ExpandedRoots expanded, int index, String path) {
+        PathLookup lookup = expanded.getLookup(index);
+        if (lookup.isDefinitelyAbsent(path)) {
+            rootsSkipped.incrementAndGet();
+            return false;
+        }
+        rootsAsked.incrementAndGet();
+        return lookup.isExact() || expanded.roots.get(index).canReadResource(path);
+    }
+
+    private ExpandedRoots expanded() {
+        ExpandedRoots roots = expanded;
+        if (roots == null) {
+            synchronized (this) {
+                roots = expanded;
+                if (roots == null) {
+                    roots = new ExpandedRoots(ImmutableList.copyOf(Roots.withNestedArchives(declaredRoots)));
+                    expanded = roots;
+                }
+            }
+        }
+        return roots;
+    }
+
+    private static String toPath(String relPath) {
+        String path = PathUtil.toForwardSlashes(checkNotNull(relPath, "expect relative path"));
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    /**
+     * Drop the root listings (and nested archives found), so they're taken again on the next lookup. Use after the roots'
+     * content has changed
+     */
+    public void refresh() {
+        expanded = null;
+    }
+
+    /**
+     * @return the roots in lookup order, including any nested archives
+     */
+    public List<Root> getRoots() {
+        return expanded().roots;
+    }
+
+    @Override
+    public Iterator<Root> iterator() {
+        return getRoots().iterator();
+    }
+
+    /**
+     * @return how many times a root was not asked for a resource as its listing showed it couldn't contain it
+     */
+    public long getRootsSkipped() {
+        return rootsSkipped.get();
+    }
+
+    /**
+     * @return how many times a root was asked for, or found to contain, a resource
+     */
+    public long getRootsAsked() {
+        return rootsAsked.get();
+    }
+
+    @Override
+    public String toString() {
+        return Objects
+            .toStringHelper(this)
+            .add("numRoots", declaredRoots.size())
+            .add("rootsSkipped", getRootsSkipped())
+            .add("rootsAsked", getRootsAsked())
+            .toString();
+    }
+
+    /**
+     * The roots once nested archives are expanded, with the lookup for each
+     */
+    private static class ExpandedRoots {
+        private final List<Root> roots;
+        /** the lookup for each root, by index. Null until first needed */
+        private final AtomicReferenceArray<PathLookup> lookups;
+
+        ExpandedRoots(List<Root> roots) {
+            this.roots = roots;
+            this.lookups = new AtomicReferenceArray<PathLookup>(roots.size());
+        }
+
+        PathLookup getLookup(int index) {
+            PathLookup lookup = lookups.get(index);
+            if (lookup == null) {
+                // at worst two threads list the same root
+                lookup = PathLookup.of(roots.get(index));
+                lookups.compareAndSet(index, null, lookup);
+            }
+            return lookup;
+        }
+    }
+
+    /**
+     * Which paths a single root could contain
+     */
+    private static class PathLookup {
+        private static final PathLookup UNKNOWN = new PathLookup(null, null);
+
+        /** exact paths, for archives */
+        private final Set<String> paths;
+        /** for directories */
+        private final PathBloomFilter filter;
+
+        private PathLookup(Set<String> paths, PathBloomFilter filter) {
+            this.paths = paths;
+            this.filter = filter;
+        }
+
+        static PathLookup of(Root root) {
+            if (!(root instanceof IterableRoot)) {
+                return UNKNOWN;
+            }
+            List<String> relPaths = newArrayList();
+            CloseableIterator<RootResource> resources;
+            try {
+                resources = ((IterableRoot) root).resourceIterator();
+            } catch (JFindException e) {
+                return UNKNOWN;// as in a missing archive, let the root decide on each lookup
+            }
+            try {
+                while (resources.hasNext()) {
+                    relPaths.add(resources.next().getRelPath());
+                }
+            } finally {
+                resources.close();
+            }
+            if (root.isArchive()) {
+                return new PathLookup(ImmutableSet.copyOf(relPaths), null);
+            }
+            return new PathLookup(null, PathBloomFilter.from(relPaths, FALSE_POSITIVE_RATE));
+        }
+
+        boolean isExact() {
+            return paths != null;
+        }
+
+        boolean isDefinitelyAbsent(String path) {
+            if (paths != null) {
+                return !paths.contains(path);
+            }
+            return filter != null && !filter.mightContain(path);
+        }
+    }
+}
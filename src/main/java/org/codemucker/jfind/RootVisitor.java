@@ -4,6 +4,15 @@ package org.codemucker.jfind;
 public interface RootVisitor {
 	public boolean visit(Root root);
 	public void endVisit(Root root);
+	/**
+	 * Called before descending into a directory (or archive path prefix) of the root. Return false to skip everything under it.
+	 * Defaults to visiting every directory
+	 * 
+	 * @param relDirPath as in '/com/acme'
+	 */
+	public default boolean visitDirectory(Root root, String relDirPath) {
+		return true;
+	}
 	public boolean visit(RootResource resource);
 	public void endVisit(RootResource resource);
 }
\ No newline at end of file
@@ -33,6 +33,28 @@ public final class Roots  {
 		return new Builder(roots);
 	}
 	
+	/**
+	 * The given root, followed by the archives nested in it if it's an archive root set to include them (which lists the
+	 * archive). See {@link ArchiveRoot#isIncludeNestedArchives()}
+	 */
+	static List<Root> withNestedArchives(Root root) {
+		if (!(root instanceof ArchiveRoot) || !((ArchiveRoot) root).isIncludeNestedArchives()) {
+			return Collections.singletonList(root);
+		}
+		List<Root> roots = newArrayList();
+		roots.add(root);
+		roots.addAll(((ArchiveRoot) root).getNestedRoots());
+		return roots;
+	}
+	
+	static List<Root> withNestedArchives(Iterable<? extends Root> roots) {
+		List<Root> expanded = newArrayList();
+		for (Root root : roots) {
+			expanded.addAll(withNestedArchives(root));
+		}
+		return expanded;
+	}
+	
 	public static class Builder implements IBuilder<List<Root>> {
 
 		private final Map<String,Root> roots = newLinkedHashMap();
@@ -55,6 +77,9 @@ public final class Roots  {
 
 		private boolean ignoreUnknownRootTypes;	
 		
+		private ArchiveRoot.ReaderType archiveReaderType = ArchiveRoot.ReaderType.ZIP_FILE;
+		private boolean includeNestedArchives = false;
+		
 		private Builder(){
 			//prevent instantiation outside of builder method
 		}
@@ -73,6 +98,8 @@ public final class Roots  {
 			
 			Builder copy = new Builder();
 			copy.roots.putAll(roots);
+			copy.archiveReaderType = archiveReaderType;
+			copy.includeNestedArchives = includeNestedArchives;
 			if (includeMainSrcDir) {
 				copy.roots(resolver.getMainSrcDirs(),RootType.MAIN, RootContentType.SRC);
 			}
@@ -100,6 +127,13 @@ public final class Roots  {
 			return newArrayList(copy.roots.values());
 		}
 		
+		/**
+		 * As {@link #build()}, for looking up resources by path across all the roots
+		 */
+		public RootSet buildRootSet(){
+			return RootSet.from(build());
+		}
+		
 		private ProjectLayout toResolver(){
 			return projectLayout != null ? projectLayout : ProjectLayouts.getDefaultResolver();
 		}
@@ -115,6 +149,8 @@ public final class Roots  {
 			copy.includeTestCompiledDir = includeTestCompiledDir;
 			copy.roots.putAll(roots);
 			copy.archiveTypes.addAll(archiveTypes);
+			copy.archiveReaderType = archiveReaderType;
+			copy.includeNestedArchives = includeNestedArchives;
 			
 			return copy;
 		}
@@ -223,6 +259,24 @@ public final class Roots  {
 			this.archiveTypes.add(extension);
 	    	return this;
 	    }
+		
+		/**
+		 * How archive roots added after this call are read. Default is {@link ArchiveRoot.ReaderType#ZIP_FILE}
+		 */
+		public Builder archiveReaderType(ArchiveRoot.ReaderType readerType) {
+			this.archiveReaderType = readerType;
+			return this;
+		}
+		
+		/**
+		 * Whether archive roots added after this call are followed by the archives nested within them, as in the jars in a
+		 * war's WEB-INF/lib. The archives aren't opened here, only when scanned (or first looked up in a {@link RootSet}), see
+		 * {@link ArchiveRoot.Builder#nestedArchives(boolean)}. Default is false
+		 */
+		public Builder nestedArchives(boolean b) {
+			this.includeNestedArchives = b;
+			return this;
+		}
 
         public Builder urls(Iterable<URL> urls) {
             for(URL url:urls){
@@ -266,12 +320,12 @@ public final class Roots  {
             return this;
         }
 		
-        private static Root toRootOrNull(File f, RootType relation, RootContentType contentType) {
+        private Root toRootOrNull(File f, RootType relation, RootContentType contentType) {
             if (DirectoryRoot.is(f)) {
                 return new DirectoryRoot(f, relation, contentType);
             }
             if (ArchiveRoot.is(f)) {
-                return new ArchiveRoot(f, relation, contentType);
+                return new ArchiveRoot(f, relation, contentType, archiveReaderType);
             }
             return null;
         }
@@ -295,7 +349,7 @@ public final class Roots  {
 			if(path.isFile()){
 				String extension = Files.getFileExtension(path.getName()).toLowerCase();
 				if(archiveTypes.contains(extension)){
-					root(new ArchiveRoot(path,RootType.DEPENDENCY, RootContentType.BINARY));	
+					root(new ArchiveRoot(path,RootType.DEPENDENCY, RootContentType.BINARY, archiveReaderType));	
 				} else {
 					if(!ignoreUnknownRootTypes && !ignoreTypes.contains(extension)){
 						throw new IllegalArgumentException("Don't currently know how to handle roots with file extension '." + extension + "' (for path '" +path.getAbsolutePath() + "')"); 
@@ -325,6 +379,9 @@ public final class Roots  {
 		}
 		
         public Builder root(Root root) {
+            if (includeNestedArchives && root instanceof ArchiveRoot) {
+                root = ((ArchiveRoot) root).withNestedArchives();
+            }
             String path = root.getFullPath();
             if (!roots.containsKey(path) || (root.getType() != RootType.UNKNOWN)) { //always replace UNKNOWN with a  known type
                 roots.put(path, root);
@@ -0,0 +1,354 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Persistent cache of scan results, so unchanged roots don't need to be walked (or their class files parsed) again on the
+ * next run. Stores per root the relative paths of all its resources and the {@link ClassInfo} of any class files read.
+ *
+ * <p>An entry is keyed by {@link Root#getFullPath()} and is only used if the root is unchanged:</p>
+ * <ul>
+ * <li>archives - the archive's {@link ArchiveRoot#getFingerprint() fingerprint} must match, so a rebuilt archive is only
+ * rescanned if its content changed. For other archive roots, the last modified time and size</li>
+ * <li>directories - the latest last modified time of all the directories containing the indexed resources must match. As
+ * directory timestamps only change when entries are added or removed, each cached class info is additionally checked
+ * against its class file's own timestamp. Directories which contained no files when indexed are not tracked</li>
+ * </ul>
+ *
+ * <p>Thread safe. Use {@link ClassScanner.Builder#index(File)} to have a scanner use and update the index.</p>
+ */
+public class ScanIndex {
+
+    private static final Logger log = LogManager.getLogger(ScanIndex.class);
+
+    private static final int MAGIC = 0x4A464958;// 'JFIX'
+    private static final int VERSION = 3;
+
+    private final File file;
+    private final Map<String, RootEntry> entries = newLinkedHashMap();
+    private boolean changed;
+
+    /**
+     * Load the index from the given file. If the file does not exist or can't be read an empty index is returned. The index
+     * is written back to the same file on {@link #save()}
+     */
+    public static ScanIndex load(File file) {
+        ScanIndex index = new ScanIndex(file);
+        if (file.isFile()) {
+            try {
+                index.read();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring unreadable scan index " + file.getAbsolutePath(), e);
+                index.entries.clear();
+            }
+        }
+        return index;
+    }
+
+    private ScanIndex(File file) {
+        this.file = checkNotNull(file, "expect index file");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Write the index to disk if it has changed since it was loaded or last saved. The file is replaced atomically (as far as
+     * the file system allows) so concurrent readers never see a partial index
+     */
+    public synchronized void save() {
+        if (!changed) {
+            return;
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            write(out);
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Couldn't rename " + tmp.getAbsolutePath() + " to " + file.getAbsolutePath());
+                }
+            }
+            changed = false;
+        } catch (IOException e) {
+            throw new JFindException("Error writing scan index " + file.getAbsolutePath(), e);
+        } finally {
+            IOUtils.closeQuietly(out);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Return the relative paths of all the resources in the given root if the root is unchanged since it was indexed, else
+     * null. Also marks whether the class infos cached for this root can be used during this scan
+     */
+    List<String> getResourcePathsOrNull(Root root) {
+        RootEntry entry;
+        synchronized (this) {
+            entry = entries.get(root.getFullPath());
+        }
+        if (entry == null) {
+            return null;
+        }
+        // outside the lock as it reads the root, so roots visited in parallel don't wait on each other
+        long stamp = stamp(root, entry.resourcePaths);
+        boolean fresh = entry.stamp == stamp;
+        synchronized (this) {
+            entry.fresh = fresh;
+        }
+        return fresh ? entry.resourcePaths : null;
+    }
+
+    /**
+     * Record all the resources found in a full walk of the given root. Replaces any previous entry for the root, including its
+     * class infos if the root has changed
+     */
+    void putResourcePaths(Root root, List<String> relPaths) {
+        long stamp = stamp(root, relPaths);
+        RootEntry entry = new RootEntry(stamp, relPaths);
+        entry.fresh = true;
+        synchronized (this) {
+            RootEntry previous = entries.get(root.getFullPath());
+            if (previous != null && previous.stamp == stamp) {
+                entry.classInfos.putAll(previous.classInfos);
+            }
+            entries.put(root.getFullPath(), entry);
+            changed = true;
+        }
+    }
+
+    /**
+     * Return the cached class info for the given resource, or read it from the resource and cache it
+     *
+     * @param stats if not null, records the bytes read on a cache miss
+     */
+    ClassInfo readClassInfo(RootResource resource, ScanStats.RootStats stats) throws IOException {
+        boolean isArchive = resource.getRoot().isArchive();
+        long lastModified = isArchive ? 0 : resource.getLastModified();
+        synchronized (this) {
+            RootEntry entry = entries.get(resource.getRoot().getFullPath());
+            if (entry != null && entry.fresh) {
+                CachedClassInfo cached = entry.classInfos.get(resource.getRelPath());
+                if (cached != null && cached.lastModified == lastModified) {
+                    return cached.toClassInfo(resource);
+                }
+            }
+        }
+        ClassInfo info = ClassInfoReader.read(resource, stats);
+        synchronized (this) {
+            RootEntry entry = entries.get(resource.getRoot().getFullPath());
+            if (entry != null && entry.fresh) {
+                entry.classInfos.put(resource.getRelPath(), new CachedClassInfo(lastModified, info));
+                changed = true;
+            }
+        }
+        return info;
+    }
+
+    private static long stamp(Root root, List<String> relPaths) {
+        File f = new File(root.getFullPath());
+        if (root instanceof ArchiveRoot) {
+            return ((ArchiveRoot) root).getFingerprint();
+        }
+        if (root.isArchive()) {
+            // combine so a change in either is detected
+            return f.lastModified() * 31 + f.length();
+        }
+        if (root.isDirectory()) {
+            long latest = f.lastModified();
+            Set<String> dirs = Sets.newHashSet();
+            for (String relPath : relPaths) {
+                int slash = relPath.lastIndexOf('/');
+                while (slash > 0) {
+                    String dir = relPath.substring(0, slash);
+                    if (!dirs.add(dir)) {
+                        break;// parents already added
+                    }
+                    long ts = new File(f, dir).lastModified();
+                    if (ts == 0) {
+                        return Root.TIMESTAMP_NOT_EXIST;// directory removed
+                    }
+                    latest = Math.max(latest, ts);
+                    slash = dir.lastIndexOf('/');
+                }
+            }
+            return latest * 31 + dirs.size();
+        }
+        return Root.TIMESTAMP_NOT_EXIST;
+    }
+
+    private void read() throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.debug("Ignoring scan index with unknown format " + file.getAbsolutePath());
+                return;
+            }
+            int numRoots = in.readInt();
+            for (int r = 0; r < numRoots; r++) {
+                String rootPath = in.readUTF();
+                long stamp = in.readLong();
+                int numPaths = in.readInt();
+                List<String> paths = newArrayList();
+                for (int i = 0; i < numPaths; i++) {
+                    paths.add(in.readUTF());
+                }
+                RootEntry entry = new RootEntry(stamp, paths);
+                int numClassInfos = in.readInt();
+                for (int i = 0; i < numClassInfos; i++) {
+                    String relPath = paths.get(in.readInt());
+                    entry.classInfos.put(relPath, CachedClassInfo.read(in));
+                }
+                entries.put(rootPath, entry);
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, RootEntry> e : entries.entrySet()) {
+            RootEntry entry = e.getValue();
+            out.writeUTF(e.getKey());
+            out.writeLong(entry.stamp);
+            out.writeInt(entry.resourcePaths.size());
+            Map<String, Integer> pathIndex = newHashMap();
+            for (String path : entry.resourcePaths) {
+                pathIndex.put(path, pathIndex.size());
+                out.writeUTF(path);
+            }
+            // only class infos for resources in the listing are written, by path position
+            List<Map.Entry<String, CachedClassInfo>> infos = newArrayList();
+            for (Map.Entry<String, CachedClassInfo> info : entry.classInfos.entrySet()) {
+                if (pathIndex.containsKey(info.getKey())) {
+                    infos.add(info);
+                }
+            }
+            out.writeInt(infos.size());
+            for (Map.Entry<String, CachedClassInfo> info : infos) {
+                out.writeInt(pathIndex.get(info.getKey()));
+                info.getValue().write(out);
+            }
+        }
+    }
+
+    private static class RootEntry {
+        final long stamp;
+        final List<String> resourcePaths;
+        final Map<String, CachedClassInfo> classInfos = newHashMap();
+        /** whether this entry has been checked against the root during this scan and found unchanged. Not persisted */
+        boolean fresh;
+
+        RootEntry(long stamp, List<String> resourcePaths) {
+            this.stamp = stamp;
+            this.resourcePaths = Collections.unmodifiableList(resourcePaths);
+        }
+    }
+
+    /**
+     * Class info without the resource, so it can be stored and rebound to the resource when used
+     */
+    private static class CachedClassInfo {
+        /** for directory roots, the class file's timestamp when read. Zero for archives */
+        final long lastModified;
+        final String className;
+        final String superClassName;
+        final List<String> interfaceNames;
+        final List<String> annotationNames;
+        final int accessFlags;
+
+        CachedClassInfo(long lastModified, ClassInfo info) {
+            this(lastModified, info.getClassName(), info.getSuperClassName(), info.getInterfaceNames(), info.getAnnotationNames(), info.getAccessFlags());
+        }
+
+        CachedClassInfo(long lastModified, String className, String superClassName, List<String> interfaceNames, List<String> annotationNames, int accessFlags) {
+            this.lastModified = lastModified;
+            this.className = className;
+            this.superClassName = superClassName;
+            this.interfaceNames = interfaceNames;
+            this.annotationNames = annotationNames;
+            this.accessFlags = accessFlags;
+        }
+
+        ClassInfo toClassInfo(RootResource resource) {
+            return new ClassInfo(resource, className, superClassName, interfaceNames, annotationNames, accessFlags);
+        }
+
+        static CachedClassInfo read(DataInputStream in) throws IOException {
+            long lastModified = in.readLong();
+            String className = in.readUTF();
+            String superClassName = in.readBoolean() ? in.readUTF() : null;
+            List<String> interfaceNames = readNames(in);
+            List<String> annotationNames = readNames(in);
+            int accessFlags = in.readUnsignedShort();
+            return new CachedClassInfo(lastModified, className, superClassName, interfaceNames, annotationNames, accessFlags);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(lastModified);
+            out.writeUTF(className);
+            out.writeBoolean(superClassName != null);
+            if (superClassName != null) {
+                out.writeUTF(superClassName);
+            }
+            writeNames(out, interfaceNames);
+            writeNames(out, annotationNames);
+            out.writeShort(accessFlags);
+        }
+
+        private static List<String> readNames(DataInputStream in) throws IOException {
+            int num = in.readUnsignedShort();
+            if (num == 0) {
+                return Collections.emptyList();
+            }
+            List<String> names = newArrayList();
+            for (int i = 0; i < num; i++) {
+                names.add(in.readUTF());
+            }
+            return names;
+        }
+
+        private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+            out.writeShort(names.size());
+            for (Iterator<String> iter = names.iterator(); iter.hasNext();) {
+                out.writeUTF(iter.next());
+            }
+        }
+    }
+}
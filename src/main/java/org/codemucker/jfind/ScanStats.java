@@ -0,0 +1,307 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Timings and counts collected while a {@link ClassScanner} result is iterated, per root and in total. Use to find which root
+ * or matcher a slow scan is spending its time in.
+ *
+ * <p>Stats accumulate over every iteration of the result they are attached to (each iteration is a new scan), see
+ * {@link FindResult#getStats()}. Stage times are wall times on the thread doing the work, and exclude the time spent in the
+ * filter, which is recorded as {@link Stage#MATCH}. Thread safe.</p>
+ */
+public final class ScanStats {
+
+    public static enum Stage {
+        /** listing the resources of a root, or reading them from the index */
+        WALK,
+        /** working out class names from resource paths */
+        CLASS_NAME,
+        /** reading class files (or the index) to describe classes without loading them */
+        CLASS_INFO,
+        /** loading classes */
+        CLASS_LOAD,
+        /** evaluating the scan's filter, at any stage */
+        MATCH
+    }
+
+    private static enum Counter {
+        RESOURCES_VISITED, RESOURCES_MATCHED, RESOURCES_IGNORED, ERRORS, BYTES_READ, CLASSES_LOADED, CLASS_LOAD_FAILURES
+    }
+
+    private static final RootStats DISABLED_ROOT = new RootStats(null, false);
+    private static final ScanStats DISABLED = new ScanStats(false);
+
+    private final boolean enabled;
+    private final Map<Root, RootStats> byRoot = new ConcurrentHashMap<Root, RootStats>();
+    /** in the order roots were first seen, see {@link #getRootStats()} */
+    private final List<RootStats> roots = new CopyOnWriteArrayList<RootStats>();
+
+    public ScanStats() {
+        this(true);
+    }
+
+    private ScanStats(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Stats which record nothing, for when collection is turned off or the results did not come from a scan
+     */
+    static ScanStats disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    RootStats forRoot(Root root) {
+        if (!enabled) {
+            return DISABLED_ROOT;
+        }
+        RootStats stats = byRoot.get(root);
+        if (stats == null) {
+            synchronized (this) {
+                stats = byRoot.get(root);
+                if (stats == null) {
+                    stats = new RootStats(root.getFullPath(), true);
+                    byRoot.put(root, stats);
+                    roots.add(stats);
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the stats for each root visited so far. The scan roots are in classpath order (even when scanned in
+     *         parallel), nested archives come somewhere after the root holding them
+     */
+    public List<RootStats> getRootStats() {
+        return ImmutableList.copyOf(roots);
+    }
+
+    /**
+     * @return the stats of the given root, or null if it has not been visited
+     */
+    public RootStats getRootStatsOrNull(Root root) {
+        return byRoot.get(checkNotNull(root, "expect root"));
+    }
+
+    /**
+     * @return the sum over all roots, as of now
+     */
+    public RootStats getTotal() {
+        RootStats total = new RootStats(null, true);
+        for (RootStats stats : roots) {
+            total.addAll(stats);
+        }
+        return total;
+    }
+
+    /**
+     * @return the root the most time was spent in, or null if none visited
+     */
+    public RootStats getSlowestRootOrNull() {
+        RootStats slowest = null;
+        for (RootStats stats : roots) {
+            if (slowest == null || stats.getTotalNanos() > slowest.getTotalNanos()) {
+                slowest = stats;
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * Clear all the stats collected so far
+     */
+    public synchronized void reset() {
+        byRoot.clear();
+        roots.clear();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("total", getTotal()).add("roots", roots).toString();
+    }
+
+    /**
+     * The stats for a single root, or for all the roots if the total
+     */
+    public static final class RootStats {
+
+        private final String rootPath;
+        private final boolean enabled;
+        private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+        private final AtomicLongArray counts = new AtomicLongArray(Counter.values().length);
+
+        private RootStats(String rootPath, boolean enabled) {
+            this.rootPath = rootPath;
+            this.enabled = enabled;
+        }
+
+        boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return the start time to pass to {@link #stop(Stage, long)}
+         */
+        long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        void stop(Stage stage, long start) {
+            if (enabled) {
+                nanos.addAndGet(stage.ordinal(), System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Exclude the time since the given start from the stage, as it was spent in a nested stage
+         */
+        void exclude(Stage stage, long start) {
+            if (enabled) {
+                nanos.addAndGet(stage.ordinal(), start - System.nanoTime());
+            }
+        }
+
+        private void increment(Counter counter, long amount) {
+            if (enabled) {
+                counts.addAndGet(counter.ordinal(), amount);
+            }
+        }
+
+        void onVisited() {
+            increment(Counter.RESOURCES_VISITED, 1);
+        }
+
+        void onMatched() {
+            increment(Counter.RESOURCES_MATCHED, 1);
+        }
+
+        void onIgnored() {
+            increment(Counter.RESOURCES_IGNORED, 1);
+        }
+
+        void onError() {
+            increment(Counter.ERRORS, 1);
+        }
+
+        void onBytesRead(long numBytes) {
+            increment(Counter.BYTES_READ, numBytes);
+        }
+
+        void onClassLoaded() {
+            increment(Counter.CLASSES_LOADED, 1);
+        }
+
+        void onClassLoadFailed() {
+            increment(Counter.CLASS_LOAD_FAILURES, 1);
+        }
+
+        private void addAll(RootStats other) {
+            for (int i = 0; i < nanos.length(); i++) {
+                nanos.addAndGet(i, other.nanos.get(i));
+            }
+            for (int i = 0; i < counts.length(); i++) {
+                counts.addAndGet(i, other.counts.get(i));
+            }
+        }
+
+        /**
+         * @return the root's full path, or null if these are the total stats
+         */
+        public String getRootPathOrNull() {
+            return rootPath;
+        }
+
+        public long getNanos(Stage stage) {
+            return nanos.get(stage.ordinal());
+        }
+
+        public long getMillis(Stage stage) {
+            return TimeUnit.NANOSECONDS.toMillis(getNanos(stage));
+        }
+
+        /**
+         * @return the time spent in all the stages
+         */
+        public long getTotalNanos() {
+            long total = 0;
+            for (int i = 0; i < nanos.length(); i++) {
+                total += nanos.get(i);
+            }
+            return total;
+        }
+
+        public long getResourcesVisited() {
+            return counts.get(Counter.RESOURCES_VISITED.ordinal());
+        }
+
+        /**
+         * @return the number of resources which passed the filter
+         */
+        public long getResourcesMatched() {
+            return counts.get(Counter.RESOURCES_MATCHED.ordinal());
+        }
+
+        public long getResourcesIgnored() {
+            return counts.get(Counter.RESOURCES_IGNORED.ordinal());
+        }
+
+        /**
+         * @return the number of errors passed to the listener, at any stage
+         */
+        public long getErrors() {
+            return counts.get(Counter.ERRORS.ordinal());
+        }
+
+        /**
+         * @return the number of class file bytes read to describe classes
+         */
+        public long getBytesRead() {
+            return counts.get(Counter.BYTES_READ.ordinal());
+        }
+
+        public long getClassesLoaded() {
+            return counts.get(Counter.CLASSES_LOADED.ordinal());
+        }
+
+        public long getClassLoadFailures() {
+            return counts.get(Counter.CLASS_LOAD_FAILURES.ordinal());
+        }
+
+        @Override
+        public String toString() {
+            return Objects
+                .toStringHelper(this)
+                .omitNullValues()
+                .add("root", rootPath)
+                .add("walkMillis", getMillis(Stage.WALK))
+                .add("classNameMillis", getMillis(Stage.CLASS_NAME))
+                .add("classInfoMillis", getMillis(Stage.CLASS_INFO))
+                .add("classLoadMillis", getMillis(Stage.CLASS_LOAD))
+                .add("matchMillis", getMillis(Stage.MATCH))
+                .add("visited", getResourcesVisited())
+                .add("matched", getResourcesMatched())
+                .add("ignored", getResourcesIgnored())
+                .add("errors", getErrors())
+                .add("bytesRead", getBytesRead())
+                .add("classesLoaded", getClassesLoaded())
+                .add("classLoadFailures", getClassLoadFailures())
+                .toString();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.codemucker.jfind;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Defines scanned candidate classes apart from the target class loader, so they can be unloaded again once the scan is done
+ * and this loader discarded. Everything else the candidates need (super types, annotations..) is loaded via the parent as
+ * normal, so matching against those still works. Classes are never initialised.
+ */
+final class ThrowawayClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    ThrowawayClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Define the candidate class from its class file, unless this loader already knows of a class with that name (in which
+     * case that is returned, and may come from the parent)
+     *
+     * @throws LinkageError if the class can't be defined apart from the parent, as in when it extends a package private class
+     */
+    Class<?> loadCandidate(String className, RootResource resource, ScanStats.RootStats stats) throws IOException {
+        synchronized (getClassLoadingLock(className)) {
+            Class<?> loaded = findLoadedClass(className);
+            if (loaded != null) {
+                return loaded;
+            }
+            InputStream is = null;
+            byte[] classBytes;
+            try {
+                is = resource.getInputStream();
+                classBytes = IOUtils.toByteArray(is);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+            stats.onBytesRead(classBytes.length);
+            return defineClass(className, classBytes, 0, classBytes.length);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.codemucker.jfind;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+
+/**
+ * Maps type names to their direct subclasses and implementations, as read from the class files without loading the classes,
+ * so all the subtypes of a type can be found by walking down from it.
+ *
+ * <p>Only the scanned classes are indexed, so a subtype is only found if every type between it and the queried type was
+ * scanned too (in any root). As in a class extending java.util.AbstractList won't be found as a java.util.List unless the
+ * JDK was scanned. See {@link ClassScanner#getTypeHierarchyIndex()}</p>
+ */
+public final class TypeHierarchyIndex {
+
+    private final Map<String, List<ClassInfo>> directSubtypes;
+    private final int numClasses;
+
+    private TypeHierarchyIndex(Map<String, List<ClassInfo>> directSubtypes, int numClasses) {
+        this.directSubtypes = directSubtypes;
+        this.numClasses = numClasses;
+    }
+
+    public static TypeHierarchyIndex from(Iterable<ClassInfo> classInfos) {
+        Map<String, List<ClassInfo>> building = newHashMap();
+        int numClasses = 0;
+        for (ClassInfo info : classInfos) {
+            numClasses++;
+            if (info.getSuperClassName() != null) {
+                add(building, info.getSuperClassName(), info);
+            }
+            for (String interfaceName : info.getInterfaceNames()) {
+                add(building, interfaceName, info);
+            }
+        }
+        ImmutableMap.Builder<String, List<ClassInfo>> directSubtypes = ImmutableMap.builder();
+        for (Map.Entry<String, List<ClassInfo>> entry : building.entrySet()) {
+            directSubtypes.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        return new TypeHierarchyIndex(directSubtypes.build(), numClasses);
+    }
+
+    private static void add(Map<String, List<ClassInfo>> map, String typeName, ClassInfo subtype) {
+        List<ClassInfo> subtypes = map.get(typeName);
+        if (subtypes == null) {
+            subtypes = newArrayList();
+            map.put(typeName, subtypes);
+        }
+        subtypes.add(subtype);
+    }
+
+    /**
+     * @param typeName the full type name, as in 'java.lang.Runnable'
+     * @return the classes directly extending or implementing the given type. Empty if none
+     */
+    public List<ClassInfo> getDirectSubtypes(String typeName) {
+        List<ClassInfo> subtypes = directSubtypes.get(checkNotNull(typeName, "expect type name"));
+        return subtypes == null ? Collections.<ClassInfo> emptyList() : subtypes;
+    }
+
+    /**
+     * @param typeName the full type name, as in 'java.lang.Runnable'
+     * @return all the classes extending or implementing the given type, directly or not, nearest first. Does not include the
+     * type itself. Empty if none
+     */
+    public List<ClassInfo> getSubtypes(String typeName) {
+        List<ClassInfo> subtypes = newArrayList();
+        // a class can be reached more than once, as in when it both extends and implements the type
+        Set<ClassInfo> added = Sets.newIdentityHashSet();
+        Set<String> expanded = newHashSet();
+        Deque<String> toExpand = new ArrayDeque<String>();
+        toExpand.add(checkNotNull(typeName, "expect type name"));
+        expanded.add(typeName);
+        while (!toExpand.isEmpty()) {
+            for (ClassInfo subtype : getDirectSubtypes(toExpand.poll())) {
+                if (!added.add(subtype)) {
+                    continue;
+                }
+                subtypes.add(subtype);
+                // the same class may be in more than one root, return each but only walk down once
+                if (expanded.add(subtype.getClassName())) {
+                    toExpand.add(subtype.getClassName());
+                }
+            }
+        }
+        return subtypes;
+    }
+
+    /**
+     * @return the number of classes the index was built from
+     */
+    public int getNumClassesIndexed() {
+        return numClasses;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("numClasses", numClasses).add("numSupertypes", directSubtypes.size()).toString();
+    }
+}
@@ -0,0 +1,330 @@
+package org.codemucker.jfind;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.collect.Maps.newTreeMap;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import org.codemucker.jfind.ResourceChange.Type;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A {@link DirectoryRoot} which is walked once, then kept up to date from file system change events, so rescans (as in for
+ * hot reloading) don't walk the whole tree again.
+ *
+ * <p>On first use the tree is walked and every included directory registered with a {@link WatchService}. Pending events
+ * are drained whenever the root is iterated or asked for its changes, and resources are then returned from the in memory
+ * listing, in path order. If events were lost the tree is walked again and compared with the listing by timestamp and
+ * size.</p>
+ *
+ * <p>How quickly changes are seen depends on the platform's watch service. Where there is no native one (as on macOS) the
+ * JDK polls every few seconds, in which case plain rescans may well be faster. Either way the watch service runs its own
+ * background thread, and keeps the registrations until the root is closed, so call {@link #close()} once done with it.
+ * After that the root is walked in full each time as a plain {@link DirectoryRoot}.</p>
+ */
+public class WatchingDirectoryRoot extends DirectoryRoot implements ChangeTrackingRoot, Closeable {
+
+    private final Path basePath;
+    /** keyed by the watched dir's rel path, as in '/com/acme', or empty for the base dir */
+    private final Map<WatchKey, String> watchedDirs = newHashMap();
+    /** the current listing, by rel path */
+    private final NavigableMap<String, RootResource> resources = newTreeMap();
+    /** changes not yet taken, by rel path, in the order first seen */
+    private final Map<String, ResourceChange> pending = newLinkedHashMap();
+
+    private WatchService watcher;
+    private boolean closed;
+
+    public WatchingDirectoryRoot(File path) {
+        this(path, RootType.UNKNOWN, RootContentType.BINARY);
+    }
+
+    public WatchingDirectoryRoot(File path, RootType type, RootContentType contentType) {
+        super(path, type, contentType);
+        this.basePath = path.getAbsoluteFile().toPath();
+    }
+
+    @Override
+    public synchronized List<ResourceChange> takeChanges() {
+        if (closed) {
+            throw new JFindException("root is closed, no longer tracking changes of " + getFullPath());
+        }
+        sync();
+        List<ResourceChange> changes = ImmutableList.copyOf(pending.values());
+        pending.clear();
+        return changes;
+    }
+
+    /**
+     * Returns the resources from the in memory listing, after applying any pending changes. Directories rejected by the
+     * filter are skipped, along with everything under them
+     */
+    @Override
+    public CloseableIterator<RootResource> resourceIterator(DirectoryFilter dirFilter) {
+        Collection<RootResource> snapshot;
+        synchronized (this) {
+            if (closed) {
+                return super.resourceIterator(dirFilter);
+            }
+            sync();
+            snapshot = newArrayList(resources.values());
+        }
+        return new FilteringIterator(snapshot, dirFilter);
+    }
+
+    /**
+     * Stop watching. The root can still be iterated, but is walked again each time
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                // nothing more to release
+            }
+            watcher = null;
+        }
+        watchedDirs.clear();
+        resources.clear();
+        pending.clear();
+    }
+
+    /**
+     * Bring the listing up to date, walking the tree on first use
+     */
+    private void sync() {
+        if (watcher == null) {
+            try {
+                watcher = basePath.getFileSystem().newWatchService();
+            } catch (IOException e) {
+                throw new JFindException("couldn't watch directory " + getFullPath(), e);
+            }
+            rescan();
+            return;
+        }
+        boolean overflowed = false;
+        WatchKey key;
+        while ((key = watcher.poll()) != null) {
+            String dirPath = watchedDirs.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    overflowed = true;
+                } else if (dirPath != null) {
+                    onEvent(event.kind(), dirPath + "/" + event.context());
+                }
+            }
+            if (!key.reset()) {
+                // dir deleted or no longer accessible
+                watchedDirs.remove(key);
+            }
+        }
+        if (overflowed) {
+            rescan();
+        }
+    }
+
+    private void onEvent(WatchEvent.Kind<?> kind, String relPath) {
+        BasicFileAttributes attrs = kind == ENTRY_DELETE ? null : readAttributesOrNull(relPath);
+        if (attrs == null) {
+            removeAll(relPath);
+        } else if (attrs.isRegularFile()) {
+            // the timestamp may be too coarse to show a quick rewrite, so trust the event
+            update(new RootResource(this, relPath, attrs.lastModifiedTime().toMillis(), attrs.size()), kind == ENTRY_MODIFY);
+        } else if (attrs.isDirectory() && kind == ENTRY_CREATE && isIncludeDir(relPath.substring(relPath.lastIndexOf('/') + 1))) {
+            // files may have been created before the dir was registered, so walk it
+            walk(relPath, null);
+        }
+    }
+
+    private BasicFileAttributes readAttributesOrNull(String relPath) {
+        try {
+            return Files.readAttributes(basePath.resolve(relPath.substring(1)), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;// removed since the event, or broken link
+        }
+    }
+
+    /**
+     * Remove the resource at the given path, or if it was a dir everything under it
+     */
+    private void removeAll(String relPath) {
+        RootResource removed = resources.remove(relPath);
+        if (removed != null) {
+            record(Type.REMOVED, removed);
+            return;
+        }
+        // '0' sorts straight after '/', so this is everything under the dir
+        Map<String, RootResource> children = resources.subMap(relPath + "/", true, relPath + "0", false);
+        for (RootResource child : children.values()) {
+            record(Type.REMOVED, child);
+        }
+        children.clear();
+    }
+
+    private void update(RootResource resource, boolean modified) {
+        RootResource previous = resources.put(resource.getRelPath(), resource);
+        if (previous == null) {
+            record(Type.ADDED, resource);
+        } else if (modified || isChanged(previous, resource)) {
+            record(Type.CHANGED, resource);
+        }
+    }
+
+    private static boolean isChanged(RootResource previous, RootResource current) {
+        return previous.getLastModified() != current.getLastModified() || previous.getSize() != current.getSize();
+    }
+
+    /**
+     * Merge with any pending change to the same resource, so each resource is reported at most once
+     */
+    private void record(Type type, RootResource resource) {
+        String relPath = resource.getRelPath();
+        ResourceChange previous = pending.get(relPath);
+        if (previous != null) {
+            switch (previous.getType()) {
+            case ADDED:
+                if (type == Type.REMOVED) {
+                    // never seen by the caller
+                    pending.remove(relPath);
+                    return;
+                }
+                type = Type.ADDED;
+                break;
+            case REMOVED:
+                // removed then re-added, so to the caller it changed
+                type = type == Type.REMOVED ? Type.REMOVED : Type.CHANGED;
+                break;
+            case CHANGED:
+                type = type == Type.REMOVED ? Type.REMOVED : Type.CHANGED;
+                break;
+            }
+        }
+        pending.put(relPath, new ResourceChange(type, resource));
+    }
+
+    /**
+     * Walk the whole tree and compare with the listing, registering any dirs not yet watched
+     */
+    private void rescan() {
+        register("");
+        Map<String, RootResource> unseen = newHashMap(resources);
+        walk("", unseen);
+        for (RootResource removed : unseen.values()) {
+            resources.remove(removed.getRelPath());
+            record(Type.REMOVED, removed);
+        }
+    }
+
+    /**
+     * Walk the given dir and everything under it, registering each included dir before it is listed so no later change is
+     * missed
+     *
+     * @param unseen if not null, each resource found is removed from it
+     */
+    private void walk(String relDirPath, Map<String, RootResource> unseen) {
+        if (!relDirPath.isEmpty()) {
+            register(relDirPath);
+        }
+        CloseableIterator<RootResource> iter = super.resourceIterator(relDirPath, new DirectoryFilter() {
+            @Override
+            public boolean isIncludeDirectory(String childRelDirPath) {
+                register(childRelDirPath);
+                return true;
+            }
+        });
+        try {
+            while (iter.hasNext()) {
+                RootResource resource = iter.next();
+                if (unseen != null) {
+                    unseen.remove(resource.getRelPath());
+                }
+                update(resource, false);
+            }
+        } finally {
+            iter.close();
+        }
+    }
+
+    private void register(String relDirPath) {
+        Path dir = relDirPath.isEmpty() ? basePath : basePath.resolve(relDirPath.substring(1));
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try {
+            watchedDirs.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), relDirPath);
+        } catch (IOException e) {
+            // unreadable or since removed, changes under it will be missed until the next overflow rescan
+        }
+    }
+
+    /**
+     * Skips resources under directories rejected by the filter, asking the filter about each directory only once
+     */
+    private static class FilteringIterator extends AbstractIterator<RootResource> implements CloseableIterator<RootResource> {
+        private final Iterator<RootResource> resources;
+        /** may be null */
+        private final DirectoryFilter dirFilter;
+        private final Map<String, Boolean> includedDirs = newHashMap();
+
+        FilteringIterator(Collection<RootResource> resources, DirectoryFilter dirFilter) {
+            this.resources = resources.iterator();
+            this.dirFilter = dirFilter;
+        }
+
+        @Override
+        protected RootResource computeNext() {
+            while (resources.hasNext()) {
+                RootResource resource = resources.next();
+                if (dirFilter == null || isIncludeDir(parentOf(resource.getRelPath()))) {
+                    return resource;
+                }
+            }
+            return endOfData();
+        }
+
+        private boolean isIncludeDir(String relDirPath) {
+            if (relDirPath.isEmpty()) {
+                return true;
+            }
+            Boolean include = includedDirs.get(relDirPath);
+            if (include == null) {
+                // as when walking, a dir is only asked about if its parent was included
+                include = isIncludeDir(parentOf(relDirPath)) && dirFilter.isIncludeDirectory(relDirPath);
+                includedDirs.put(relDirPath, include);
+            }
+            return include;
+        }
+
+        private static String parentOf(String relPath) {
+            return relPath.substring(0, relPath.lastIndexOf('/'));
+        }
+
+        @Override
+        public void close() {
+            includedDirs.clear();
+        }
+    }
+}
@@ -20,8 +20,18 @@ import org.codemucker.jmatch.expression.AbstractMatchBuilderCallback;
 import org.codemucker.jmatch.expression.ExpressionParser;
 import org.codemucker.jmatch.expression.ParseException;
 
+import com.google.common.base.Function;
+
 public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
 
+	private static final ExpressionCache<Class<?>> EXPRESSIONS = new ExpressionCache<Class<?>>(new Function<String, Matcher<Class<?>>>() {
+		@Override
+		public Matcher<Class<?>> apply(String expression) {
+			Matcher<Class<?>> compiled = ModifierExpression.compileOrNull(expression, ClassMatchBuilderCallback.methodMap.keySet());
+			return compiled != null ? compiled : ExpressionParser.parse(expression, new ClassMatchBuilderCallback());
+		}
+	});
+
 	public static final AClass STRING = AClass.with().fullName("java.util.String");
 	public static final AClass BOOL_PRIMITIVE = AClass.with().fullName("boolean");
 	
@@ -133,15 +143,18 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
      *  
      *  </ul>
      *  </p>
+     *  
+     *  <p>Parsed expressions are cached by their text. Expressions only over modifiers (as in 'public &amp;&amp; !abstract') are
+     *  compiled into a single test of the modifier bits</p>
      * @return
      */
     public AClass expression(String expression){
     	if(!isBlank(expression)){
-	    	Matcher<Class<?>> matcher = ExpressionParser.parse(expression, new ClassMatchBuilderCallback());
+	    	Matcher<Class<?>> matcher = EXPRESSIONS.get(expression);
 	    	if( matcher instanceof AClass){ //make the matching are bit faster by directly running the matchers directly
-	    		for(Matcher<Class<?>> m:((AClass)matcher).getMatchers()){
-	    			addMatcher(m);
-	    		}
+	    		addMatchersOf((AClass)matcher);
+	    	} else if (matcher instanceof ModifierExpression) {
+	    		addMatcher(matcher, MatcherCost.FLAG);
 	    	} else {
 	    		addMatcher(matcher);
 	    	}
@@ -163,8 +176,18 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
         return this;
     }
     
-    public AClass fullName(Matcher<String> matcher){
-        matchProperty("name", String.class, matcher);
+    public AClass fullName(final Matcher<String> matcher){
+        addMatcher(new AbstractNotNullMatcher<Class<?>>() {
+            @Override
+            protected boolean matchesSafely(Class<?> actual, MatchDiagnostics diag) {
+                return diag.tryMatch(this, actual.getName(), matcher);
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("name", matcher);
+            }
+        }, MatcherCost.NAME);
         return this;
     }
 
@@ -189,12 +212,23 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
 	        public void describeTo(Description desc) {
 	            desc.value("is subclass of", superclass);
 	        }
-		});
+		}, MatcherCost.NAME);
 		return this;
 	}
 	
-    public AClass annotation(Class<? extends Annotation> annotation){
-        annotation(AnAnnotation.with().fullName(annotation));
+    public AClass annotation(final Class<? extends Annotation> annotation){
+        addMatcher(new AbstractNotNullMatcher<Class<?>>() {
+
+            @Override
+            protected boolean matchesSafely(Class<?> actual, MatchDiagnostics diag) {
+                return actual.isAnnotationPresent(annotation);
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("with annotation", annotation.getName());
+            }
+        }, MatcherCost.ANNOTATION);
         return this;
     }
 	
@@ -203,14 +237,15 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
 
             @Override
             protected boolean matchesSafely(Class<?> actual, MatchDiagnostics diag) {
-                return actual.getAnnotations().length > 0 && ReflectedClass.from(actual).hasAnnotation(matcher);
+                ReflectedClass reflected = ReflectedClass.from(actual);
+                return reflected.hasAnnotations() && reflected.hasAnnotation(matcher);
             }
 
             @Override
             public void describeTo(Description desc) {
                 desc.value("with annotation", matcher);
             }
-        });
+        }, MatcherCost.ANNOTATION);
         return this;
     }
     
@@ -226,7 +261,7 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
             public void describeTo(Description desc) {
                 desc.value("with field", matcher);
             }
-        });
+        }, MatcherCost.MEMBERS);
         return this;
     }
     
@@ -242,17 +277,17 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
             public void describeTo(Description desc) {
                 desc.value("with method", matcher);
             }
-        });
+        }, MatcherCost.MEMBERS);
         return this;
     }
 
 	public AClass isNotPrimitve() {
-		addMatcher(Logical.not(MATCHER_IS_PRIMITIVE));
+		addMatcher(Logical.not(MATCHER_IS_PRIMITIVE), MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isPrimitve() {
-		addMatcher(MATCHER_IS_PRIMITIVE);
+		addMatcher(MATCHER_IS_PRIMITIVE, MatcherCost.FLAG);
 		return this;
 	}
 	
@@ -264,42 +299,42 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
     }
 	
 	public AClass isNotEnum() {
-		addMatcher(Logical.not(MATCHER_ENUM));
+		addMatcher(Logical.not(MATCHER_ENUM), MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isNotAnonymous() {
-		addMatcher(Logical.not(MATCHER_ANONYMOUS));
+		addMatcher(Logical.not(MATCHER_ANONYMOUS), MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isNotInnerClass() {
-		addMatcher(Logical.not(MATCHER_INNER_CLASS));
+		addMatcher(Logical.not(MATCHER_INNER_CLASS), MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isNotInterface() {
-		addMatcher(Logical.not(MATCHER_INTERFACE));
+		addMatcher(Logical.not(MATCHER_INTERFACE), MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isEnum() {
-		addMatcher(MATCHER_ENUM);
+		addMatcher(MATCHER_ENUM, MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isAnonymous() {
-		addMatcher(MATCHER_ANONYMOUS);
+		addMatcher(MATCHER_ANONYMOUS, MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isInnerClass() {
-		addMatcher(MATCHER_INNER_CLASS);
+		addMatcher(MATCHER_INNER_CLASS, MatcherCost.FLAG);
 		return this;
 	}
 
 	public AClass isInterface() {
-		addMatcher(MATCHER_INTERFACE);
+		addMatcher(MATCHER_INTERFACE, MatcherCost.FLAG);
 		return this;
 	}
 
@@ -312,7 +347,8 @@ public class AClass extends AbstractModiferMatcher<AClass,Class<?>> {
     	private static Matcher<Method> methodMatcher  = AMethod.that().isPublic().isNotAbstract().numArgs(0).isNotVoidReturn().name("is*");
     	
     	static {
-    		for(Method m : AClass.class.getDeclaredMethods()){
+    		//include the inherited modifier checks, as in isPublic()
+    		for(Method m : AClass.class.getMethods()){
     			if(methodMatcher.matches(m)){
     				methodMap.put(m.getName().toLowerCase(),m);
     				if(m.getName().startsWith("is")){
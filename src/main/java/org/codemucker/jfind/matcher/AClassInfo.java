@@ -0,0 +1,281 @@
+package org.codemucker.jfind.matcher;
+
+import java.lang.annotation.Annotation;
+
+import org.codemucker.jfind.ClassInfo;
+import org.codemucker.jmatch.AString;
+import org.codemucker.jmatch.AbstractNotNullMatcher;
+import org.codemucker.jmatch.Description;
+import org.codemucker.jmatch.Logical;
+import org.codemucker.jmatch.MatchDiagnostics;
+import org.codemucker.jmatch.Matcher;
+
+/**
+ * Matches on the class file metadata of a class, before it has been loaded. Use this to cheaply reject classes
+ * which would otherwise need to be loaded to match via {@link AClass}
+ */
+public class AClassInfo extends AbstractModiferMatcher<AClassInfo, ClassInfo> {
+
+    public static final Matcher<ClassInfo> MATCHER_ANONYMOUS = new AbstractNotNullMatcher<ClassInfo>() {
+        @Override
+        public boolean matchesSafely(ClassInfo found, MatchDiagnostics diag) {
+            return found.isAnonymous();
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("is anonymous");
+        }
+    };
+
+    public static final Matcher<ClassInfo> MATCHER_ENUM = new AbstractNotNullMatcher<ClassInfo>() {
+        @Override
+        public boolean matchesSafely(ClassInfo found, MatchDiagnostics diag) {
+            return found.isEnum();
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("is enum");
+        }
+    };
+
+    public static final Matcher<ClassInfo> MATCHER_NESTED_CLASS = new AbstractNotNullMatcher<ClassInfo>() {
+        @Override
+        public boolean matchesSafely(ClassInfo found, MatchDiagnostics diag) {
+            return found.isNested();
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("is nested class");
+        }
+    };
+
+    public static final Matcher<ClassInfo> MATCHER_INTERFACE = new AbstractNotNullMatcher<ClassInfo>() {
+        @Override
+        public boolean matchesSafely(ClassInfo found, MatchDiagnostics diag) {
+            return found.isInterface();
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("is interface");
+        }
+    };
+
+    public static final Matcher<ClassInfo> MATCHER_ANNOTATION = new AbstractNotNullMatcher<ClassInfo>() {
+        @Override
+        public boolean matchesSafely(ClassInfo found, MatchDiagnostics diag) {
+            return found.isAnnotation();
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("is annotation");
+        }
+    };
+
+    /**
+     * synonym for with()
+     * @return
+     */
+    public static AClassInfo that() {
+        return with();
+    }
+
+    public static AClassInfo with() {
+        return new AClassInfo();
+    }
+
+    private AClassInfo() {
+        super(ClassInfo.class);
+    }
+
+    @Override
+    protected int getModifier(ClassInfo instance) {
+        return instance.getAccessFlags();
+    }
+
+    @SafeVarargs
+    public static Matcher<ClassInfo> any(final Matcher<ClassInfo>... matchers) {
+        return Logical.any(matchers);
+    }
+
+    @SafeVarargs
+    public static Matcher<ClassInfo> all(final Matcher<ClassInfo>... matchers) {
+        return Logical.all(matchers);
+    }
+
+    public AClassInfo fullName(Class<?> type) {
+        fullName(type.getName());
+        return this;
+    }
+
+    public AClassInfo fullName(String fullName) {
+        fullName(AString.equalTo(fullName));
+        return this;
+    }
+
+    public AClassInfo fullNameAntPattern(String fullName) {
+        fullName(AString.matchingAntPattern(fullName));
+        return this;
+    }
+
+    public AClassInfo fullName(final Matcher<String> matcher) {
+        addMatcher(new AbstractNotNullMatcher<ClassInfo>() {
+            @Override
+            protected boolean matchesSafely(ClassInfo actual, MatchDiagnostics diag) {
+                return diag.tryMatch(this, actual.getClassName(), matcher);
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("full name", matcher);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Expect the class to directly extend the given super class
+     */
+    public AClassInfo superClass(Class<?> superClass) {
+        superClass(AString.equalTo(superClass.getName()));
+        return this;
+    }
+
+    public AClassInfo superClass(final Matcher<String> matcher) {
+        addMatcher(new AbstractNotNullMatcher<ClassInfo>() {
+            @Override
+            protected boolean matchesSafely(ClassInfo actual, MatchDiagnostics diag) {
+                return actual.getSuperClassName() != null && diag.tryMatch(this, actual.getSuperClassName(), matcher);
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("super class", matcher);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Expect the class to directly declare the given interface. Inherited interfaces are not visible without loading
+     * super classes, so are not considered
+     */
+    public AClassInfo interfaceDeclared(Class<?> iface) {
+        interfaceDeclared(AString.equalTo(iface.getName()));
+        return this;
+    }
+
+    public AClassInfo interfaceDeclared(final Matcher<String> matcher) {
+        addMatcher(new AbstractNotNullMatcher<ClassInfo>() {
+            @Override
+            protected boolean matchesSafely(ClassInfo actual, MatchDiagnostics diag) {
+                for (String name : actual.getInterfaceNames()) {
+                    if (matcher.matches(name)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("with interface", matcher);
+            }
+        });
+        return this;
+    }
+
+    public AClassInfo annotation(Class<? extends Annotation> annotation) {
+        annotation(annotation.getName());
+        return this;
+    }
+
+    public AClassInfo annotation(final String fullName) {
+        addMatcher(new AbstractNotNullMatcher<ClassInfo>() {
+            @Override
+            protected boolean matchesSafely(ClassInfo actual, MatchDiagnostics diag) {
+                return actual.hasAnnotation(fullName);
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("with annotation", fullName);
+            }
+        });
+        return this;
+    }
+
+    public AClassInfo annotation(final Matcher<String> fullNameMatcher) {
+        addMatcher(new AbstractNotNullMatcher<ClassInfo>() {
+            @Override
+            protected boolean matchesSafely(ClassInfo actual, MatchDiagnostics diag) {
+                for (String name : actual.getAnnotationNames()) {
+                    if (fullNameMatcher.matches(name)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("with annotation", fullNameMatcher);
+            }
+        });
+        return this;
+    }
+
+    public AClassInfo isNotEnum() {
+        addMatcher(Logical.not(MATCHER_ENUM));
+        return this;
+    }
+
+    public AClassInfo isEnum() {
+        addMatcher(MATCHER_ENUM);
+        return this;
+    }
+
+    public AClassInfo isNotAnonymous() {
+        addMatcher(Logical.not(MATCHER_ANONYMOUS));
+        return this;
+    }
+
+    public AClassInfo isAnonymous() {
+        addMatcher(MATCHER_ANONYMOUS);
+        return this;
+    }
+
+    public AClassInfo isNotNestedClass() {
+        addMatcher(Logical.not(MATCHER_NESTED_CLASS));
+        return this;
+    }
+
+    public AClassInfo isNestedClass() {
+        addMatcher(MATCHER_NESTED_CLASS);
+        return this;
+    }
+
+    public AClassInfo isNotInterface() {
+        addMatcher(Logical.not(MATCHER_INTERFACE));
+        return this;
+    }
+
+    public AClassInfo isInterface() {
+        addMatcher(MATCHER_INTERFACE);
+        return this;
+    }
+
+    public AClassInfo isNotAnnotation() {
+        addMatcher(Logical.not(MATCHER_ANNOTATION));
+        return this;
+    }
+
+    public AClassInfo isAnnotation() {
+        addMatcher(MATCHER_ANNOTATION);
+        return this;
+    }
+}
@@ -25,20 +25,21 @@ public class AClassName extends ObjectMatcher<String> {
     	return Logical.none();
     }
 
+    /**
+     * Match classes directly in the given package, not in its sub packages
+     */
     public AClassName packageName(String packageName) {
-		String regExp = packageName.replaceAll("\\.", "\\.") + "\\.[^.]*";
-		regex(regExp);
+		addMatcher(LiteralMatchers.classInPackage(packageName));
 		return this;
     }
     
     public AClassName packageStartingWith(String packageName) {
-		String regExp = packageName.replaceAll("\\.", "\\.") + "\\..*";
-		regex(regExp);
+		addMatcher(LiteralMatchers.startingWith(packageName + "."));
 		return this;
 	}
     
     public AClassName antPattern(final String nameAntPattern){
-    	addMatcher(AString.matchingAntPattern(nameAntPattern));
+    	addMatcher(LiteralMatchers.antPattern(nameAntPattern));
     	return this;
     }
 
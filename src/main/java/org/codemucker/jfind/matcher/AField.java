@@ -3,6 +3,9 @@ package org.codemucker.jfind.matcher;
 import java.lang.reflect.Field;
 
 import org.codemucker.jmatch.AString;
+import org.codemucker.jmatch.AbstractNotNullMatcher;
+import org.codemucker.jmatch.Description;
+import org.codemucker.jmatch.MatchDiagnostics;
 import org.codemucker.jmatch.Matcher;
 
 public class AField extends AbstractModiferMatcher<AField,Field>{
@@ -29,8 +32,18 @@ public class AField extends AbstractModiferMatcher<AField,Field>{
 		return this;
 	}
 	
-	public AField name(Matcher<String> matcher){
-		matchProperty("name", String.class, matcher);
+	public AField name(final Matcher<String> matcher){
+		addMatcher(new AbstractNotNullMatcher<Field>() {
+			@Override
+			protected boolean matchesSafely(Field found, MatchDiagnostics diag) {
+				return diag.tryMatch(this, found.getName(), matcher);
+			}
+			
+			@Override
+			public void describeTo(Description desc) {
+				desc.value("name", matcher);
+			}
+		}, MatcherCost.NAME);
 		return this;
 	}
 
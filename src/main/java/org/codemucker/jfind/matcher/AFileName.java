@@ -22,8 +22,7 @@ public class AFileName extends ObjectMatcher<String> {
     }
     
 	public AFileName packageName(String packageName) {
-		String regExp = "/" + packageName.replace('.', '/') + "/.*";
-		pathRegexMatch(Pattern.compile(regExp));
+		addMatcher(LiteralMatchers.startingWith("/" + packageName.replace('.', '/') + "/"));
 		return this;
 	}
 
@@ -33,12 +32,12 @@ public class AFileName extends ObjectMatcher<String> {
 	}
 
 	public AFileName name(Class<?> classToMatch) {
-		String path = '/' + classToMatch.getSimpleName() + "\\.java";
+		String path = '/' + classToMatch.getSimpleName() + ".java";
 		Package pkg = classToMatch.getPackage();
 		if (pkg != null) {
 			path = '/' + pkg.getName().replace('.', '/') + path;
 		}
-		pathRegexMatch(Pattern.compile(path));
+		addMatcher(AString.equalTo(path));
 		return this;
 	}
 	
@@ -58,7 +57,7 @@ public class AFileName extends ObjectMatcher<String> {
 	}
 	
 	public AFileName pathAntPatternMatch(String antPattern) {
-		addMatcher(AString.matchingAntPattern(antPattern));
+		addMatcher(LiteralMatchers.antPattern(antPattern));
 		return this;
 	}
 
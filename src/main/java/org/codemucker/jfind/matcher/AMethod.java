@@ -55,13 +55,23 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 		return this;
 	}
 	
-	public AMethod name(Matcher<String> matcher){
-		matchProperty("name", String.class, matcher);
+	public AMethod name(final Matcher<String> matcher){
+		addMatcher(new AbstractNotNullMatcher<Method>() {
+			@Override
+			protected boolean matchesSafely(Method found, MatchDiagnostics diag) {
+				return diag.tryMatch(this, found.getName(), matcher);
+			}
+			
+			@Override
+			public void describeTo(Description desc) {
+				desc.value("name", matcher);
+			}
+		}, MatcherCost.NAME);
 		return this;
 	}
 	
 	public AMethod signature(Matcher<String> matcher){
-		matchProperty("name", String.class, matcher);
+		name(matcher);
 		return this;
 	}
 	
@@ -88,7 +98,7 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 						.isPublic()
 						.returnType(AString.equalToAny("boolean","java.lang.Boolean")));
 		
-		addMatcher(nameMatcher);
+		addMatcher(nameMatcher, MatcherCost.ANNOTATION);
 		return this;
 	}
 	
@@ -100,7 +110,7 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 						.name(AString.matchingExpression("set?*"))
 						.isPublic()
 						.isVoidReturn());
-		addMatcher(nameMatcher);
+		addMatcher(nameMatcher, MatcherCost.ANNOTATION);
 		return this;
 	}
 	
@@ -126,7 +136,7 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 			public void describeTo(Description desc) {
 				desc.text("is" + (b?"":" not")+ " void");
 			}
-		});
+		}, MatcherCost.FLAG);
 		return this;
 	}
 	
@@ -151,7 +161,7 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 			public void describeTo(Description desc) {
 				desc.value("return type", fullNameMatcher);
 			}
-		});
+		}, MatcherCost.NAME);
 		return this;
 	}
 	
@@ -170,8 +180,20 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 		return this;
 	}
 	
-	public AMethod annotation(Class<? extends Annotation> annotation){
-        annotation(AnAnnotation.with().fullName(annotation));
+	public AMethod annotation(final Class<? extends Annotation> annotation){
+        addMatcher(new AbstractNotNullMatcher<Method>() {
+
+            @Override
+            protected boolean matchesSafely(Method found, MatchDiagnostics diag) {
+                // the JDK caches the method's annotations, so no need to wrap it
+                return found.isAnnotationPresent(annotation);
+            }
+
+            @Override
+            public void describeTo(Description desc) {
+                desc.value("with annotation", annotation.getName());
+            }
+        }, MatcherCost.ANNOTATION);
         return this;
     }
     
@@ -180,14 +202,15 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 
             @Override
             protected boolean matchesSafely(Method found, MatchDiagnostics diag) {
-                return found.getAnnotations().length > 0 && ReflectedMethod.from(found).hasAnnotation(matcher);
+                ReflectedMethod reflected = ReflectedMethod.from(found);
+                return reflected.hasAnnotations() && reflected.hasAnnotation(matcher);
             }
 
             @Override
             public void describeTo(Description desc) {
                 desc.value("with annotation", matcher);
             }
-        });
+        }, MatcherCost.ANNOTATION);
         return this;
     }
 
@@ -208,7 +231,7 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
 			public void describeTo(Description desc) {
 				desc.text("numArgs " + matcher);
 			}
-		});
+		}, MatcherCost.FLAG);
 		return this;
 	}
 
@@ -255,7 +278,7 @@ public class AMethod extends AbstractModiferMatcher<AMethod,Method>{
             public void describeTo(Description desc) {
                 desc.value("method arg", matcher);
             }
-        });
+        }, MatcherCost.ANNOTATION);
         return this;
     }
 	
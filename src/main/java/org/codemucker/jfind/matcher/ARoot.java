@@ -17,8 +17,17 @@ import org.codemucker.jmatch.expression.AbstractMatchBuilderCallback;
 import org.codemucker.jmatch.expression.ExpressionParser;
 import org.codemucker.jpattern.generate.Dependency;
 
+import com.google.common.base.Function;
+
 public class ARoot extends PropertyMatcher<Root> {
 
+    private static final ExpressionCache<Root> EXPRESSIONS = new ExpressionCache<Root>(new Function<String, Matcher<Root>>() {
+        @Override
+        public Matcher<Root> apply(String expression) {
+            return ExpressionParser.parse(expression, new RootMatchBuilderCallback());
+        }
+    });
+
     public static ARoot that() {
         return with();
     }
@@ -27,8 +36,31 @@ public class ARoot extends PropertyMatcher<Root> {
         return new ARoot();
     }
 
+    private final CostOrderedMatcher<Root> ordered = new CostOrderedMatcher<Root>();
+
     private ARoot() {
         super(Root.class);
+        super.addMatcher(ordered);
+    }
+
+    /**
+     * The added matchers are evaluated cheapest first, not in the order added
+     */
+    @Override
+    public void addMatcher(Matcher<Root> matcher) {
+        addMatcher(matcher, MatcherCost.UNKNOWN);
+    }
+
+    private void addMatcher(Matcher<Root> matcher, MatcherCost cost) {
+        ordered.add(matcher, cost);
+    }
+
+    /**
+     * Whether to reorder the matchers as they are evaluated, so those which reject the most for their cost run first
+     */
+    public ARoot adaptiveOrder(boolean adaptive) {
+        ordered.setAdaptive(adaptive);
+        return this;
     }
 
     public static Matcher<Root> any() {
@@ -61,11 +93,9 @@ public class ARoot extends PropertyMatcher<Root> {
 
     public ARoot dependenciesExpression(String expression) {
     	if(expression != null && expression.trim().length() != 0){
-    		Matcher<Root> matcher = ExpressionParser.parse(expression, new RootMatchBuilderCallback());
+    		Matcher<Root> matcher = EXPRESSIONS.get(expression);
     		if(matcher instanceof ARoot){ //make the matching are bit faster by directly running the matchers
-    			for(Matcher<Root> m:((ARoot)matcher).getMatchers()){
-    				addMatcher(m);
-    			}
+    			ordered.addAll(((ARoot)matcher).ordered);
     		} else {
     			addMatcher(matcher);
     		}
@@ -133,7 +163,7 @@ public class ARoot extends PropertyMatcher<Root> {
                 // desc.text("not null resouce");
                 desc.value("of type " + RootType.DEPENDENCY + " and path", dependencyPathMatcher);
             }
-        });
+        }, MatcherCost.NAME);
         return this;
     }
     
@@ -164,7 +194,7 @@ public class ARoot extends PropertyMatcher<Root> {
                 // desc.text("not null resouce");
                 desc.value("path", pathMatcher);
             }
-        });
+        }, MatcherCost.NAME);
         return this;
     }
 
@@ -185,7 +215,7 @@ public class ARoot extends PropertyMatcher<Root> {
             public void describeTo(Description desc) {
                 desc.text("is" + (isArchive?"":" not") + " an archive");
             }
-        });
+        }, MatcherCost.FLAG);
         return this;
     }
     
@@ -206,7 +236,7 @@ public class ARoot extends PropertyMatcher<Root> {
             public void describeTo(Description desc) {
                 desc.text("path that is" + (isDirectory?"":" not") + " a directory");
             }
-        });
+        }, MatcherCost.FLAG);
         return this;
     }
     
@@ -252,7 +282,7 @@ public class ARoot extends PropertyMatcher<Root> {
             public void describeTo(Description desc) {
                 desc.value("content type",matcher);
             }
-        });
+        }, MatcherCost.FLAG);
         return this;
     }
 
@@ -300,7 +330,7 @@ public class ARoot extends PropertyMatcher<Root> {
             public void describeTo(Description desc) {
                 desc.value("path:",matcher);
             }
-        });
+        }, MatcherCost.FLAG);
         return this;
     }
 
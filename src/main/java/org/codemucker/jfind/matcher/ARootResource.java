@@ -1,8 +1,16 @@
 package org.codemucker.jfind.matcher;
 
+import static com.google.common.collect.Lists.newArrayList;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
 import java.util.regex.Pattern;
 
+import org.apache.commons.io.IOUtils;
+import org.codemucker.jfind.DirectoryFilter;
+import org.codemucker.jfind.PathPrefixes;
 import org.codemucker.jfind.RootResource;
 import org.codemucker.jmatch.AString;
 import org.codemucker.jmatch.AbstractMatcher;
@@ -15,7 +23,16 @@ import org.codemucker.lang.PathUtil;
 
 import com.google.common.base.Preconditions;
 
-public class ARootResource extends PropertyMatcher<RootResource> {
+/**
+ * Matches resources. Package, class and path matches also narrow the directories which need to be walked, see
+ * {@link #isIncludeDirectory(String)}
+ */
+public class ARootResource extends PropertyMatcher<RootResource> implements DirectoryFilter {
+	
+	/** all matched resources must be under these, or null if they could be anywhere */
+	private PathPrefixes pathPrefixes;
+	/** all the path matches, so the path is only fetched and matched in one place. Null until the first is added */
+	private ResourcePathMatcher pathMatcher;
 	
 	public static ARootResource with(){
 		return new ARootResource();
@@ -53,7 +70,13 @@ public class ARootResource extends PropertyMatcher<RootResource> {
     }
 
     public ARootResource packageName(String packageName) {
-        packageName(AString.equalTo(packageName));
+        if (packageName.isEmpty()) {
+            packageName(AString.equalTo(packageName));
+            return this;
+        }
+        narrowPathPrefixes(PathPrefixes.packageName(packageName));
+        // same as matching the package name, without working it out from each path
+        path(LiteralMatchers.pathInPackage(packageName));
         return this;
     }
     
@@ -63,7 +86,12 @@ public class ARootResource extends PropertyMatcher<RootResource> {
 	}
 
 	public ARootResource className(Class<?> classToMatch) {
-        className(AString.equalTo(classToMatch.getName()));
+		String className = classToMatch.getName();
+		int dot = className.lastIndexOf('.');
+		if (dot != -1) {
+			narrowPathPrefixes(PathPrefixes.packageName(className.substring(0, dot)));
+		}
+        className(AString.equalTo(className));
         return this;
     }
     
@@ -83,7 +111,11 @@ public class ARootResource extends PropertyMatcher<RootResource> {
 	}
 
 	public ARootResource pathMatchingAntPattern(String antPattern) {
-		path(AString.matchingAntFilePathPattern(antPattern));
+		PathPrefixes prefixes = PathPrefixes.fromAntPatternOrNull(antPattern);
+		if (prefixes != null) {
+			narrowPathPrefixes(prefixes);
+		}
+		path(LiteralMatchers.antFilePathPattern(antPattern));
 		return this;
 	}
 
@@ -93,20 +125,44 @@ public class ARootResource extends PropertyMatcher<RootResource> {
 	}
 	
 	public ARootResource pathEndsWith(String val){
-		path(AString.endingWith(val));
+		path(LiteralMatchers.endingWith(val));
 		return this;
 	}
 	
 	public ARootResource path(String path) {
-		path(AString.equalTo(path));
+		narrowPathPrefixes(PathPrefixes.parentOf(path));
+		path(LiteralMatchers.equalTo(path));
 		return this;
 	}
 	
 	public ARootResource path(Matcher<String> pathMatcher) {
-		addMatcher(new ResourcePathMatcher(pathMatcher));
+		if (this.pathMatcher == null) {
+			this.pathMatcher = new ResourcePathMatcher();
+			addMatcher(this.pathMatcher);
+		}
+		this.pathMatcher.add(pathMatcher);
 		return this;
 	}
 	
+    private void narrowPathPrefixes(PathPrefixes prefixes) {
+    	pathPrefixes = pathPrefixes == null ? prefixes : pathPrefixes.and(prefixes);
+    }
+    
+    /**
+     * @return the directories all matched resources must be under, or null if they could be anywhere
+     */
+    public PathPrefixes getPathPrefixesOrNull() {
+    	return pathPrefixes;
+    }
+    
+    /**
+     * False if no resource under the given directory could match, based on the package, class and path matches added
+     */
+    @Override
+    public boolean isIncludeDirectory(String relDirPath) {
+    	return pathPrefixes == null || pathPrefixes.isIncludeDirectory(relDirPath);
+    }
+    
     public ARootResource stringContent(Matcher<String> contentMatcher) {
         stringContent(contentMatcher, ResourceContentMatcher.DEFAULT_ENCODING);
         return this;
@@ -116,25 +172,98 @@ public class ARootResource extends PropertyMatcher<RootResource> {
         addMatcher(new ResourceContentMatcher(contentEncoding, contentMatcher));
         return this;
     }
+
+    /**
+     * Unlike {@link #stringContent(Matcher)} the content is searched as it's read, without loading it all, and reading stops
+     * at the first hit
+     */
+    public ARootResource contentContains(String literal) {
+        contentContains(literal, ResourceContentMatcher.DEFAULT_ENCODING);
+        return this;
+    }
+
+    public ARootResource contentContains(String literal, String contentEncoding) {
+        Preconditions.checkNotNull(literal, "null literal");
+        addMatcher(new ResourceContentSearchMatcher(ContentSearch.contains(literal, charset(contentEncoding))));
+        return this;
+    }
+
+    /**
+     * Only reads as much of the content as the prefix needs
+     */
+    public ARootResource contentStartsWith(String prefix) {
+        contentStartsWith(prefix, ResourceContentMatcher.DEFAULT_ENCODING);
+        return this;
+    }
+
+    public ARootResource contentStartsWith(String prefix, String contentEncoding) {
+        Preconditions.checkNotNull(prefix, "null prefix");
+        addMatcher(new ResourceContentSearchMatcher(ContentSearch.startsWith(prefix, charset(contentEncoding))));
+        return this;
+    }
+
+    public ARootResource contentMatchesRegex(String regex) {
+        contentMatchesRegex(Pattern.compile(regex));
+        return this;
+    }
+
+    /**
+     * Matches if the pattern is found in any line of the content, as with grep. The content is read a line at a time, and
+     * reading stops at the first matching line, so a pattern can't match across lines
+     */
+    public ARootResource contentMatchesRegex(Pattern pattern) {
+        contentMatchesRegex(pattern, ResourceContentMatcher.DEFAULT_ENCODING);
+        return this;
+    }
+
+    public ARootResource contentMatchesRegex(Pattern pattern, String contentEncoding) {
+        Preconditions.checkNotNull(pattern, "null pattern");
+        addMatcher(new ResourceContentSearchMatcher(ContentSearch.lineMatching(pattern, charset(contentEncoding))));
+        return this;
+    }
+
+    private static Charset charset(String contentEncoding) {
+        return Charset.forName(contentEncoding == null ? ResourceContentMatcher.DEFAULT_ENCODING : contentEncoding);
+    }
 	
 	/**
+	 * All the path matchers, run in a single pass over the path. The literal (prefix, suffix...) ones run first as they're
+	 * the cheapest, so a regex only runs on the paths which got past them.
+	 * 
 	 * Use a named class so in debug mode the diagnostics debug messages print out a better matcher type message
 	 */
 	private static class ResourcePathMatcher extends AbstractMatcher<RootResource>{
-		private final Matcher<String> pathMatcher;
+		private final List<Matcher<String>> pathMatchers = newArrayList();
+		private int numLiteral;
 
-		ResourcePathMatcher(Matcher<String> pathMatcher){
-			this.pathMatcher = Preconditions.checkNotNull(pathMatcher,"null path matcher");
+		void add(Matcher<String> pathMatcher){
+			Preconditions.checkNotNull(pathMatcher,"null path matcher");
+			if (LiteralMatchers.isLiteral(pathMatcher)) {
+				pathMatchers.add(numLiteral++, pathMatcher);
+			} else {
+				pathMatchers.add(pathMatcher);
+			}
 		}
 
 		@Override
 		public boolean matchesSafely(RootResource actual,MatchDiagnostics diag) {
-			return actual != null && diag.tryMatch(this,actual.getRelPath(), pathMatcher);
+			if (actual == null) {
+				return false;
+			}
+			String relPath = actual.getRelPath();
+			for (int i = 0; i < pathMatchers.size(); i++) {
+				if (!diag.tryMatch(this, relPath, pathMatchers.get(i))) {
+					return false;
+				}
+			}
+			return true;
 		}
 		
 		@Override
 		public void describeTo(Description desc) {
-			desc.value("relative path", pathMatcher);
+			for (Matcher<String> pathMatcher : pathMatchers) {
+				desc.value("relative path", pathMatcher);
+			}
 		}
 	}
 
@@ -213,4 +342,37 @@ public class ARootResource extends PropertyMatcher<RootResource> {
             desc.value("" + contentEncoding + " content", contentMatcher);
         }
     }
+
+    /**
+     * Use a named class so in debug mode the diagnostics debug messages print out a better matcher type message
+     */
+    private static class ResourceContentSearchMatcher extends AbstractMatcher<RootResource>{
+        private final ContentSearch search;
+
+        ResourceContentSearchMatcher(ContentSearch search){
+            this.search = search;
+        }
+
+        @Override
+        public boolean matchesSafely(RootResource actual,MatchDiagnostics diag) {
+            if (actual == null || !actual.exists()) {
+                return false;
+            }
+            InputStream in = null;
+            try {
+                in = actual.getInputStream();
+                return search.isFoundIn(in);
+            } catch (IOException e) {
+                diag.mismatched("couldn't read content");
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            return false;
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.value("content", search);
+        }
+    }
 }
@@ -4,18 +4,48 @@ import org.codemucker.jfind.ReflectedModifier;
 import org.codemucker.jmatch.AbstractNotNullMatcher;
 import org.codemucker.jmatch.Description;
 import org.codemucker.jmatch.MatchDiagnostics;
+import org.codemucker.jmatch.Matcher;
 import org.codemucker.jmatch.PropertyMatcher;
 
 /**
+ * The added matchers are evaluated cheapest first, not in the order added. See {@link #adaptiveOrder(boolean)}
  *
  * @param <TSelf> type of the matcher subclass
  * @param <T> type of the object to match against
  */
 public abstract class AbstractModiferMatcher<TSelf extends AbstractModiferMatcher<TSelf,T>, T> extends PropertyMatcher<T> {
 
+    private final CostOrderedMatcher<T> ordered = new CostOrderedMatcher<T>();
+
     @SuppressWarnings("rawtypes")
     public AbstractModiferMatcher(Class beanClass) {
         super(beanClass);
+        super.addMatcher(ordered);
+    }
+
+    @Override
+    public void addMatcher(Matcher<T> matcher) {
+        addMatcher(matcher, MatcherCost.UNKNOWN);
+    }
+
+    void addMatcher(Matcher<T> matcher, MatcherCost cost) {
+        ordered.add(matcher, cost);
+    }
+
+    /**
+     * Add all the matchers of the given one, as in when flattening a parsed expression
+     */
+    void addMatchersOf(AbstractModiferMatcher<?, T> other) {
+        ordered.addAll(other.ordered);
+    }
+
+    /**
+     * Whether to reorder the matchers as they are evaluated, so those which reject the most for their cost run first. Use for
+     * matchers evaluated many times, as in over a large scan. Default is false, evaluating cheapest first by a fixed estimate
+     */
+    public TSelf adaptiveOrder(boolean adaptive) {
+        ordered.setAdaptive(adaptive);
+        return self();
     }
 	
 	public TSelf expression(String expression){
@@ -223,7 +253,7 @@ public abstract class AbstractModiferMatcher<TSelf extends AbstractModiferMatche
             public void describeTo(Description desc) {
                 desc.text("is " + (expectMatch ? "" : " not") + mod.name());
             }
-        });
+        }, MatcherCost.FLAG);
     }
 
     protected abstract int getModifier(T instance);
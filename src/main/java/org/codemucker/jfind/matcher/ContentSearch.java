@@ -0,0 +1,267 @@
+package org.codemucker.jfind.matcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.regex.Pattern;
+
+/**
+ * Searches content as it's read, through a fixed size buffer reused per thread, stopping at the first hit. So a search over
+ * many resources doesn't load each into a string first.
+ *
+ * <p>Literals are searched for as bytes, via Boyer-Moore-Horspool, when the encoding maps a character to the same bytes
+ * wherever it appears and those bytes can't appear within another character's, as with UTF-8 and the single byte encodings.
+ * Otherwise the content is decoded as it's read and searched as chars.</p>
+ */
+abstract class ContentSearch {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> BYTE_BUFFERS = new ThreadLocal<byte[]>();
+    private static final ThreadLocal<char[]> CHAR_BUFFERS = new ThreadLocal<char[]>();
+
+    /**
+     * @return true if the content contains what's searched for. Doesn't close the stream
+     */
+    abstract boolean isFoundIn(InputStream in) throws IOException;
+
+    static ContentSearch contains(String literal, Charset charset) {
+        if (isByteSearchable(charset, literal)) {
+            return new BytesContains(literal, charset);
+        }
+        return new CharsContains(literal, charset);
+    }
+
+    static ContentSearch startsWith(String prefix, Charset charset) {
+        return new StartsWith(prefix, charset);
+    }
+
+    static ContentSearch lineMatching(Pattern pattern, Charset charset) {
+        return new LineMatching(pattern, charset);
+    }
+
+    private static boolean isByteSearchable(Charset charset, String literal) {
+        CharsetEncoder encoder = charset.newEncoder();
+        if (!encoder.canEncode(literal)) {
+            return false;
+        }
+        // UTF-8 is self synchronising, a char's bytes are never found inside another's
+        return "UTF-8".equals(charset.name()) || encoder.maxBytesPerChar() == 1;
+    }
+
+    private static byte[] byteBuffer(int minSize) {
+        byte[] buf = BYTE_BUFFERS.get();
+        if (buf == null || buf.length < minSize) {
+            buf = new byte[Math.max(BUFFER_SIZE, minSize)];
+            BYTE_BUFFERS.set(buf);
+        }
+        return buf;
+    }
+
+    private static char[] charBuffer(int minSize) {
+        char[] buf = CHAR_BUFFERS.get();
+        if (buf == null || buf.length < minSize) {
+            buf = new char[Math.max(BUFFER_SIZE / 2, minSize)];
+            CHAR_BUFFERS.set(buf);
+        }
+        return buf;
+    }
+
+    private static class BytesContains extends ContentSearch {
+        private final String literal;
+        private final Charset charset;
+        private final byte[] pattern;
+        /** how far to move the pattern on, by the byte under its last position */
+        private final int[] shift = new int[256];
+
+        BytesContains(String literal, Charset charset) {
+            this.literal = literal;
+            this.charset = charset;
+            this.pattern = literal.getBytes(charset);
+            int last = pattern.length - 1;
+            for (int i = 0; i < shift.length; i++) {
+                shift[i] = pattern.length;
+            }
+            for (int i = 0; i < last; i++) {
+                shift[pattern[i] & 0xff] = last - i;
+            }
+        }
+
+        @Override
+        boolean isFoundIn(InputStream in) throws IOException {
+            int len = pattern.length;
+            if (len == 0) {
+                return true;
+            }
+            byte[] buf = byteBuffer(len * 2);
+            int filled = 0;
+            int searchFrom = 0;
+            while (true) {
+                int read = in.read(buf, filled, buf.length - filled);
+                if (read == -1) {
+                    return false;// everything read has been searched
+                }
+                filled += read;
+                if (indexOf(buf, searchFrom, filled) != -1) {
+                    return true;
+                }
+                // a match could still start in the last len-1 bytes
+                int keep = Math.min(len - 1, filled);
+                if (filled == buf.length) {
+                    System.arraycopy(buf, filled - keep, buf, 0, keep);
+                    filled = keep;
+                    searchFrom = 0;
+                } else {
+                    searchFrom = filled - keep;
+                }
+            }
+        }
+
+        private int indexOf(byte[] buf, int from, int to) {
+            int last = pattern.length - 1;
+            int i = from + last;
+            while (i < to) {
+                int j = last;
+                int k = i;
+                while (buf[k] == pattern[j]) {
+                    if (j == 0) {
+                        return k;
+                    }
+                    j--;
+                    k--;
+                }
+                i += shift[buf[i] & 0xff];
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return "contains '" + literal + "' (" + charset.name() + ")";
+        }
+    }
+
+    private static class CharsContains extends ContentSearch {
+        private final String literal;
+        private final Charset charset;
+
+        CharsContains(String literal, Charset charset) {
+            this.literal = literal;
+            this.charset = charset;
+        }
+
+        @Override
+        boolean isFoundIn(InputStream in) throws IOException {
+            int len = literal.length();
+            if (len == 0) {
+                return true;
+            }
+            Reader reader = new InputStreamReader(in, charset);
+            char[] buf = charBuffer(len * 2);
+            int filled = 0;
+            int searchFrom = 0;
+            while (true) {
+                int read = reader.read(buf, filled, buf.length - filled);
+                if (read == -1) {
+                    return false;
+                }
+                filled += read;
+                for (int i = searchFrom; i <= filled - len; i++) {
+                    int j = 0;
+                    while (buf[i + j] == literal.charAt(j)) {
+                        if (++j == len) {
+                            return true;
+                        }
+                    }
+                }
+                int keep = Math.min(len - 1, filled);
+                if (filled == buf.length) {
+                    System.arraycopy(buf, filled - keep, buf, 0, keep);
+                    filled = keep;
+                    searchFrom = 0;
+                } else {
+                    searchFrom = filled - keep;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "contains '" + literal + "' (" + charset.name() + ")";
+        }
+    }
+
+    /**
+     * Only decodes as many chars as the prefix has
+     */
+    private static class StartsWith extends ContentSearch {
+        private final String prefix;
+        private final Charset charset;
+
+        StartsWith(String prefix, Charset charset) {
+            this.prefix = prefix;
+            this.charset = charset;
+        }
+
+        @Override
+        boolean isFoundIn(InputStream in) throws IOException {
+            Reader reader = new InputStreamReader(in, charset);
+            int len = prefix.length();
+            char[] buf = charBuffer(len);
+            int filled = 0;
+            while (filled < len) {
+                int read = reader.read(buf, filled, len - filled);
+                if (read == -1) {
+                    return false;
+                }
+                filled += read;
+            }
+            for (int i = 0; i < len; i++) {
+                if (buf[i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "starts with '" + prefix + "' (" + charset.name() + ")";
+        }
+    }
+
+    /**
+     * Matches a line at a time, as grep does, so only a line is held at once
+     */
+    private static class LineMatching extends ContentSearch {
+        private final Pattern pattern;
+        private final Charset charset;
+
+        LineMatching(Pattern pattern, Charset charset) {
+            this.pattern = pattern;
+            this.charset = charset;
+        }
+
+        @Override
+        boolean isFoundIn(InputStream in) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
+            java.util.regex.Matcher matcher = pattern.matcher("");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (matcher.reset(line).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "has line matching '" + pattern.pattern() + "' (" + charset.name() + ")";
+        }
+    }
+}
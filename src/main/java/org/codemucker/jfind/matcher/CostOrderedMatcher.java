@@ -0,0 +1,137 @@
+package org.codemucker.jfind.matcher;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codemucker.jmatch.AbstractNotNullMatcher;
+import org.codemucker.jmatch.Description;
+import org.codemucker.jmatch.MatchDiagnostics;
+import org.codemucker.jmatch.Matcher;
+import org.codemucker.jmatch.NullMatchContext;
+
+/**
+ * Matches if all the added matchers match, evaluating the cheapest first (by {@link MatcherCost}) so the first to reject
+ * saves the rest from running. Matchers of the same cost run in the order added.
+ *
+ * <p>If adaptive, the pass rate of each matcher is counted and every {@value #ADAPT_EVERY} evaluations the matchers are
+ * reordered by their cost over their chance of rejecting, so a cheap matcher which rarely rejects doesn't hold up a
+ * slightly dearer one which usually does. Thread safe.</p>
+ */
+final class CostOrderedMatcher<T> extends AbstractNotNullMatcher<T> {
+
+    private static final int ADAPT_EVERY = 1024;
+
+    /** in the order added */
+    private final List<Entry<T>> added = newArrayList();
+    private volatile List<Entry<T>> order = Collections.emptyList();
+    private volatile boolean adaptive;
+    private final AtomicLong evaluations = new AtomicLong();
+
+    synchronized void add(Matcher<T> matcher, MatcherCost cost) {
+        added.add(new Entry<T>(matcher, cost));
+        reorder();
+    }
+
+    /**
+     * Add all the matchers of the given one, keeping their costs
+     */
+    synchronized void addAll(CostOrderedMatcher<T> other) {
+        for (Entry<T> entry : other.entries()) {
+            added.add(new Entry<T>(entry.matcher, entry.cost));
+        }
+        reorder();
+    }
+
+    private synchronized List<Entry<T>> entries() {
+        return newArrayList(added);
+    }
+
+    void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return the matchers in the order they are currently evaluated
+     */
+    List<Matcher<T>> getMatchersInOrder() {
+        List<Matcher<T>> matchers = newArrayList();
+        for (Entry<T> entry : order) {
+            matchers.add(entry.matcher);
+        }
+        return matchers;
+    }
+
+    @Override
+    protected boolean matchesSafely(T actual, MatchDiagnostics diag) {
+        boolean adapt = adaptive;
+        boolean matched = true;
+        for (Entry<T> entry : order) {
+            // without diagnostics there's nothing to record, so skip the indirection
+            matched = diag == NullMatchContext.INSTANCE ? entry.matcher.matches(actual, diag) : diag.tryMatch(this, actual, entry.matcher);
+            if (adapt) {
+                entry.record(matched);
+            }
+            if (!matched) {
+                break;
+            }
+        }
+        if (adapt && evaluations.incrementAndGet() % ADAPT_EVERY == 0) {
+            reorder();
+        }
+        return matched;
+    }
+
+    private synchronized void reorder() {
+        List<Entry<T>> sorted = newArrayList(added);
+        final boolean byRank = adaptive;
+        // stable, so equal costs keep the order added
+        Collections.sort(sorted, new Comparator<Entry<T>>() {
+            @Override
+            public int compare(Entry<T> a, Entry<T> b) {
+                return byRank ? Double.compare(a.rank(), b.rank()) : Integer.compare(a.cost.estimate, b.cost.estimate);
+            }
+        });
+        order = sorted;
+    }
+
+    @Override
+    public void describeTo(Description desc) {
+        desc.value("matchers", entries());
+    }
+
+    private static final class Entry<T> {
+        final Matcher<T> matcher;
+        final MatcherCost cost;
+        private final AtomicLong evaluated = new AtomicLong();
+        private final AtomicLong passed = new AtomicLong();
+
+        Entry(Matcher<T> matcher, MatcherCost cost) {
+            this.matcher = matcher;
+            this.cost = cost;
+        }
+
+        void record(boolean matched) {
+            evaluated.incrementAndGet();
+            if (matched) {
+                passed.incrementAndGet();
+            }
+        }
+
+        /**
+         * Expected cost per rejection, lowest first. The pass rate starts at a half until counted
+         */
+        double rank() {
+            double passRate = (passed.get() + 1d) / (evaluated.get() + 2d);
+            return cost.estimate / Math.max(1 - passRate, 0.001);
+        }
+
+        @Override
+        public String toString() {
+            return matcher.toString();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.codemucker.jfind.matcher;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codemucker.jmatch.Matcher;
+
+import com.google.common.base.Function;
+
+/**
+ * Parsed expressions by their text, so an expression used over and over (as in from config) is only parsed once. The cached
+ * matchers are shared, so must not be added to after parsing. Thread safe.
+ */
+final class ExpressionCache<T> {
+
+    /** expressions are expected to come from code or config, this only guards against unbounded use */
+    private static final int MAX_SIZE = 512;
+
+    private final ConcurrentMap<String, Matcher<T>> parsed = new ConcurrentHashMap<String, Matcher<T>>();
+    private final Function<String, Matcher<T>> parser;
+
+    ExpressionCache(Function<String, Matcher<T>> parser) {
+        this.parser = parser;
+    }
+
+    Matcher<T> get(String expression) {
+        String key = expression.trim();
+        Matcher<T> matcher = parsed.get(key);
+        if (matcher == null) {
+            matcher = parser.apply(key);
+            if (parsed.size() >= MAX_SIZE) {
+                parsed.clear();
+            }
+            parsed.put(key, matcher);
+        }
+        return matcher;
+    }
+}
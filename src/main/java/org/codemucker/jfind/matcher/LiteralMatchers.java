@@ -0,0 +1,206 @@
+package org.codemucker.jfind.matcher;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.codemucker.jmatch.AString;
+import org.codemucker.jmatch.AbstractNotNullMatcher;
+import org.codemucker.jmatch.Description;
+import org.codemucker.jmatch.MatchDiagnostics;
+import org.codemucker.jmatch.Matcher;
+
+/**
+ * String matchers for the patterns which reduce to plain prefix, suffix, exact or contains checks, so matching a path or
+ * class name doesn't need a regex. Only patterns which need one fall back to the jmatch regex matchers.
+ */
+final class LiteralMatchers {
+
+    private LiteralMatchers() {
+    }
+
+    /**
+     * As {@link AString#matchingAntPattern(String)}, where '*' also matches across '/'
+     */
+    static Matcher<String> antPattern(String antPattern) {
+        Matcher<String> literal = antLiteralOrNull(antPattern.replaceAll("\\*+", "**"));
+        return literal != null ? literal : AString.matchingAntPattern(antPattern);
+    }
+
+    /**
+     * As {@link AString#matchingAntFilePathPattern(String)}, where '*' only matches within a path segment
+     */
+    static Matcher<String> antFilePathPattern(String antPattern) {
+        Matcher<String> literal = antLiteralOrNull(antPattern);
+        return literal != null ? literal : AString.matchingAntFilePathPattern(antPattern);
+    }
+
+    /**
+     * Handles 'exact', 'prefix**', '**suffix', 'prefix**suffix', '**contains**' and 'prefix**&#47;*suffix' (the suffix having
+     * no '/'), where '**' matches anything
+     *
+     * @return null if the pattern needs a regex
+     */
+    static Matcher<String> antLiteralOrNull(String antPattern) {
+        int wildcard = indexOfWildcard(antPattern, 0);
+        if (wildcard == -1) {
+            return equalTo(antPattern);
+        }
+        if (!antPattern.startsWith("**", wildcard)) {
+            return null;
+        }
+        String prefix = antPattern.substring(0, wildcard);
+        String rest = antPattern.substring(wildcard + 2);
+        if (indexOfWildcard(rest, 0) == -1) {
+            return new PrefixSuffixMatcher(prefix, rest, false);
+        }
+        if (rest.startsWith("/*") && indexOfWildcard(rest, 2) == -1 && rest.indexOf('/', 2) == -1) {
+            return new PrefixSuffixMatcher(prefix, rest.substring(2), true);
+        }
+        if (prefix.isEmpty() && rest.endsWith("**") && indexOfWildcard(rest, 0) == rest.length() - 2) {
+            return new ContainsMatcher(rest.substring(0, rest.length() - 2));
+        }
+        return null;
+    }
+
+    private static int indexOfWildcard(String pattern, int from) {
+        for (int i = from; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static Matcher<String> equalTo(String s) {
+        return new EqualToMatcher(s);
+    }
+
+    static Matcher<String> startingWith(String prefix) {
+        return new PrefixSuffixMatcher(prefix, "", false);
+    }
+
+    static Matcher<String> endingWith(String suffix) {
+        return new PrefixSuffixMatcher("", suffix, false);
+    }
+
+    /**
+     * Match the class names directly in the given package, as in 'com.acme.Foo' but not 'com.acme.sub.Bar'
+     */
+    static Matcher<String> classInPackage(String packageName) {
+        return new DirectChildMatcher(packageName.isEmpty() ? "" : packageName + ".", '.');
+    }
+
+    /**
+     * Match the resource paths directly in the given package's directory, as in '/com/acme/Foo.class' but not
+     * '/com/acme/sub/Bar.class'
+     */
+    static Matcher<String> pathInPackage(String packageName) {
+        return new DirectChildMatcher(packageName.isEmpty() ? "/" : "/" + packageName.replace('.', '/') + "/", '/');
+    }
+
+    /**
+     * @return true if the matcher is one of the literal ones, so is cheap to run
+     */
+    static boolean isLiteral(Matcher<String> matcher) {
+        return matcher instanceof EqualToMatcher
+            || matcher instanceof PrefixSuffixMatcher
+            || matcher instanceof ContainsMatcher
+            || matcher instanceof DirectChildMatcher;
+    }
+
+    /**
+     * Use a named class so in debug mode the diagnostics debug messages print out a better matcher type message
+     */
+    private static class EqualToMatcher extends AbstractNotNullMatcher<String> {
+        private final String expect;
+
+        EqualToMatcher(String expect) {
+            this.expect = checkNotNull(expect, "expect string");
+        }
+
+        @Override
+        public boolean matchesSafely(String actual, MatchDiagnostics diag) {
+            return expect.equals(actual);
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("a string equal to '" + expect + "'");
+        }
+    }
+
+    /**
+     * Use a named class so in debug mode the diagnostics debug messages print out a better matcher type message
+     */
+    private static class PrefixSuffixMatcher extends AbstractNotNullMatcher<String> {
+        private final String prefix;
+        private final String suffix;
+        /** if there must be a '/' between the prefix and suffix */
+        private final boolean slashBetween;
+        private final int minLength;
+
+        PrefixSuffixMatcher(String prefix, String suffix, boolean slashBetween) {
+            this.prefix = checkNotNull(prefix, "expect prefix");
+            this.suffix = checkNotNull(suffix, "expect suffix");
+            this.slashBetween = slashBetween;
+            this.minLength = prefix.length() + suffix.length() + (slashBetween ? 1 : 0);
+        }
+
+        @Override
+        public boolean matchesSafely(String actual, MatchDiagnostics diag) {
+            return actual.length() >= minLength
+                && actual.startsWith(prefix)
+                && actual.endsWith(suffix)
+                && (!slashBetween || actual.lastIndexOf('/', actual.length() - suffix.length() - 1) >= prefix.length());
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("a string starting with '" + prefix + "' and ending with '" + (slashBetween ? "/*" : "") + suffix + "'");
+        }
+    }
+
+    /**
+     * Use a named class so in debug mode the diagnostics debug messages print out a better matcher type message
+     */
+    private static class ContainsMatcher extends AbstractNotNullMatcher<String> {
+        private final String part;
+
+        ContainsMatcher(String part) {
+            this.part = checkNotNull(part, "expect part");
+        }
+
+        @Override
+        public boolean matchesSafely(String actual, MatchDiagnostics diag) {
+            return actual.contains(part);
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("a string containing '" + part + "'");
+        }
+    }
+
+    /**
+     * Use a named class so in debug mode the diagnostics debug messages print out a better matcher type message
+     */
+    private static class DirectChildMatcher extends AbstractNotNullMatcher<String> {
+        private final String parent;
+        private final char separator;
+
+        DirectChildMatcher(String parent, char separator) {
+            this.parent = parent;
+            this.separator = separator;
+        }
+
+        @Override
+        public boolean matchesSafely(String actual, MatchDiagnostics diag) {
+            return actual.length() > parent.length() && actual.startsWith(parent) && actual.indexOf(separator, parent.length()) == -1;
+        }
+
+        @Override
+        public void describeTo(Description desc) {
+            desc.text("a direct child of '" + parent + "'");
+        }
+    }
+}
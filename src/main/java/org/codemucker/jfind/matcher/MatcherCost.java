@@ -0,0 +1,23 @@
+package org.codemucker.jfind.matcher;
+
+/**
+ * Rough relative cost of evaluating a matcher, used to run the cheap checks first so the expensive ones only see what's left
+ */
+enum MatcherCost {
+    /** a flag or modifier check */
+    FLAG(1),
+    /** a name or path check, as in a string compare or pattern */
+    NAME(10),
+    /** not known, as in a matcher passed in by the caller */
+    UNKNOWN(25),
+    /** reading annotations */
+    ANNOTATION(50),
+    /** reflecting over the members of a type */
+    MEMBERS(250);
+
+    final int estimate;
+
+    private MatcherCost(int estimate) {
+        this.estimate = estimate;
+    }
+}
@@ -0,0 +1,155 @@
+package org.codemucker.jfind.matcher;
+
+import static com.google.common.collect.Maps.newHashMap;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.codemucker.jfind.ReflectedModifier;
+import org.codemucker.jmatch.AbstractNotNullMatcher;
+import org.codemucker.jmatch.Description;
+import org.codemucker.jmatch.MatchDiagnostics;
+import org.codemucker.jmatch.Matcher;
+import org.codemucker.jmatch.expression.AbstractMatchBuilderCallback;
+import org.codemucker.jmatch.expression.ExpressionParser;
+
+/**
+ * An expression over modifiers only, as in 'public &amp;&amp; !abstract &amp;&amp; !interface', compiled into a single test
+ * of a class's modifier bits instead of a tree of matchers.
+ *
+ * <p>The expression is parsed as usual, but with each term reading a modifier bit from an int. As the result then only
+ * depends on the bits used, it's evaluated once for every combination of them and kept as a truth table. If only a single
+ * combination matches (as with any expression only joined by 'and') the table is a single mask compare.</p>
+ */
+final class ModifierExpression extends AbstractNotNullMatcher<Class<?>> {
+
+    /** term name, lower case, to the bit it tests. Negative if testing the bit is unset */
+    private static final Map<String, Integer> TERMS = newHashMap();
+
+    static {
+        for (ReflectedModifier mod : ReflectedModifier.values()) {
+            String name = mod.name().toLowerCase();
+            TERMS.put(name, mod.mod);
+            TERMS.put("is" + name, mod.mod);
+            TERMS.put("not" + name, -mod.mod);
+            TERMS.put("isnot" + name, -mod.mod);
+        }
+    }
+
+    private final String expression;
+    private final int usedBits;
+    /** if only one combination of the used bits matches, else -1 */
+    private final int onlyMatch;
+    /** indexed by the used bits packed together, lowest first */
+    private final long[] table;
+
+    private ModifierExpression(String expression, int usedBits, int onlyMatch, long[] table) {
+        this.expression = expression;
+        this.usedBits = usedBits;
+        this.onlyMatch = onlyMatch;
+        this.table = table;
+    }
+
+    /**
+     * @param validTerms the lower case terms the caller supports, so an unsupported modifier is left to fail as usual
+     * @return the compiled expression, or null if it uses anything other than modifiers
+     */
+    static ModifierExpression compileOrNull(String expression, Collection<String> validTerms) {
+        TermCallback callback = new TermCallback(validTerms);
+        Matcher<Integer> parsed = ExpressionParser.parse(expression, callback);
+        if (!callback.compilable || Integer.bitCount(callback.usedBits) > ReflectedModifier.values().length) {
+            return null;
+        }
+        int usedBits = callback.usedBits;
+        int numCombinations = 1 << Integer.bitCount(usedBits);
+        long[] table = new long[(numCombinations + 63) / 64];
+        int numMatches = 0;
+        int lastMatch = -1;
+        for (int packed = 0; packed < numCombinations; packed++) {
+            int mods = unpack(packed, usedBits);
+            if (parsed.matches(mods)) {
+                table[packed >>> 6] |= 1L << packed;
+                numMatches++;
+                lastMatch = mods;
+            }
+        }
+        return new ModifierExpression(expression, usedBits, numMatches == 1 ? lastMatch : -1, table);
+    }
+
+    /**
+     * Spread the low bits of packed out over the set bits of mask
+     */
+    private static int unpack(int packed, int mask) {
+        int mods = 0;
+        for (int bit = 1, remaining = mask; remaining != 0; bit <<= 1) {
+            int lowest = Integer.lowestOneBit(remaining);
+            if ((packed & bit) != 0) {
+                mods |= lowest;
+            }
+            remaining &= ~lowest;
+        }
+        return mods;
+    }
+
+    /**
+     * Gather the set bits of mask in mods into the low bits
+     */
+    private static int pack(int mods, int mask) {
+        int packed = 0;
+        for (int bit = 1, remaining = mask; remaining != 0; bit <<= 1) {
+            int lowest = Integer.lowestOneBit(remaining);
+            if ((mods & lowest) != 0) {
+                packed |= bit;
+            }
+            remaining &= ~lowest;
+        }
+        return packed;
+    }
+
+    @Override
+    protected boolean matchesSafely(Class<?> actual, MatchDiagnostics diag) {
+        int mods = actual.getModifiers() & usedBits;
+        if (onlyMatch != -1) {
+            return mods == onlyMatch;
+        }
+        int packed = pack(mods, usedBits);
+        return (table[packed >>> 6] & (1L << packed)) != 0;
+    }
+
+    @Override
+    public void describeTo(Description desc) {
+        desc.value("modifiers", expression);
+    }
+
+    /**
+     * Builds terms which test a bit of an int, and records which bits were used
+     */
+    private static class TermCallback extends AbstractMatchBuilderCallback<Integer> {
+        private final Collection<String> validTerms;
+        private int usedBits;
+        private boolean compilable = true;
+
+        TermCallback(Collection<String> validTerms) {
+            this.validTerms = validTerms;
+        }
+
+        @Override
+        protected Matcher<Integer> newMatcher(String term) {
+            String key = term.trim().toLowerCase();
+            Integer bit = validTerms.contains(key) ? TERMS.get(key) : null;
+            if (bit == null) {
+                compilable = false;
+                bit = 0;
+            }
+            usedBits |= Math.abs(bit);
+            final int mask = Math.abs(bit);
+            final boolean set = bit > 0;
+            return new AbstractNotNullMatcher<Integer>() {
+                @Override
+                protected boolean matchesSafely(Integer mods, MatchDiagnostics diag) {
+                    return ((mods & mask) != 0) == set;
+                }
+            };
+        }
+    }
+}
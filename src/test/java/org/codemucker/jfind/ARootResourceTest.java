@@ -1,5 +1,7 @@
 package org.codemucker.jfind;
 
+import java.util.Arrays;
+
 import org.codemucker.jfind.matcher.ARootResource;
 import org.codemucker.jtest.ProjectLayouts;
 import org.junit.Assert;
@@ -30,6 +32,30 @@ public class ARootResourceTest {
 	}
 
 
+	@Test
+	public void pathPrefixHints(){
+		Assert.assertNull(ARootResource.with().pathEndsWith("b/c/d").getPathPrefixesOrNull());
+		Assert.assertNull(ARootResource.with().nameMatchingAntPattern("*.class").getPathPrefixesOrNull());
+		
+		Assert.assertEquals(Arrays.asList("/a/b/"), ARootResource.with().packageName("a.b").getPathPrefixesOrNull().getPrefixes());
+		Assert.assertEquals(Arrays.asList("/a/b/"), ARootResource.with().path("/a/b/C.class").getPathPrefixesOrNull().getPrefixes());
+		Assert.assertEquals(Arrays.asList("/a/b/"), ARootResource.with().pathMatchingAntPattern("a/b/**/*.class").getPathPrefixesOrNull().getPrefixes());
+		Assert.assertEquals(Arrays.asList("/a/b/c/"), ARootResource.with().packageName("a.b").pathMatchingAntPattern("/a/b/c/*.class").getPathPrefixesOrNull().getPrefixes());
+		Assert.assertTrue(ARootResource.with().packageName("a.b").packageName("x.y").getPathPrefixesOrNull().getPrefixes().isEmpty());
+	}
+	
+	@Test
+	public void includeDirectoryFromPathPrefix(){
+		ARootResource matcher = ARootResource.with().packageName("a.b");
+		
+		Assert.assertTrue(matcher.isIncludeDirectory("/a"));
+		Assert.assertTrue(matcher.isIncludeDirectory("/a/b"));
+		Assert.assertTrue(matcher.isIncludeDirectory("/a/b/c"));
+		Assert.assertFalse(matcher.isIncludeDirectory("/a/bb"));
+		Assert.assertFalse(matcher.isIncludeDirectory("/x"));
+		Assert.assertTrue(ARootResource.with().pathEndsWith("b/c/d").isIncludeDirectory("/x"));
+	}
+
 	private static DirectoryRoot newTmpRoot() {
 		return new DirectoryRoot(ProjectLayouts.getDefaultResolver().getTmpDir());
 	}
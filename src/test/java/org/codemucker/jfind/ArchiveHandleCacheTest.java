@@ -0,0 +1,141 @@
+package org.codemucker.jfind;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import org.codemucker.jfind.ArchiveHandleCache.Handle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class ArchiveHandleCacheTest {
+
+	private File archive;
+
+	@Before
+	public void setUp() throws Exception {
+		archive = File.createTempFile("test", ".jar");
+	}
+
+	@After
+	public void tearDown() {
+		archive.delete();
+	}
+
+	@Test
+	public void test_reuses_open_handle() {
+		ArchiveHandleCache cache = new ArchiveHandleCache(2);
+		FakeOpener opener = new FakeOpener();
+
+		Handle<FakeHandle> first = cache.acquire("a", archive, opener);
+		first.close();
+		Handle<FakeHandle> second = cache.acquire("a", archive, opener);
+
+		assertSame(first.get(), second.get());
+		assertEquals(1, opener.opened.size());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertFalse(opener.opened.get(0).closed);
+		second.close();
+	}
+
+	@Test
+	public void test_evicts_least_recently_used_idle_handle() {
+		ArchiveHandleCache cache = new ArchiveHandleCache(2);
+		FakeOpener opener = new FakeOpener();
+
+		cache.acquire("a", archive, opener).close();
+		cache.acquire("b", archive, opener).close();
+		cache.acquire("a", archive, opener).close();
+		cache.acquire("c", archive, opener).close();
+
+		FakeHandle a = opener.opened.get(0);
+		FakeHandle b = opener.opened.get(1);
+		FakeHandle c = opener.opened.get(2);
+		assertFalse(a.closed);
+		assertTrue(b.closed);
+		assertFalse(c.closed);
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.getOpenCount());
+	}
+
+	@Test
+	public void test_in_use_handle_not_closed() {
+		ArchiveHandleCache cache = new ArchiveHandleCache(1);
+		FakeOpener opener = new FakeOpener();
+
+		Handle<FakeHandle> a = cache.acquire("a", archive, opener);
+		Handle<FakeHandle> b = cache.acquire("b", archive, opener);
+		assertEquals(2, cache.getOpenCount());
+		assertFalse(a.get().closed);
+
+		a.close();
+		assertTrue(opener.opened.get(0).closed);
+		assertFalse(b.get().closed);
+		assertEquals(1, cache.getOpenCount());
+		b.close();
+	}
+
+	@Test
+	public void test_changed_archive_reopened() throws Exception {
+		ArchiveHandleCache cache = new ArchiveHandleCache(2);
+		FakeOpener opener = new FakeOpener();
+
+		cache.acquire("a", archive, opener).close();
+		FileOutputStream out = new FileOutputStream(archive, true);
+		out.write(1);
+		out.close();
+		cache.acquire("a", archive, opener).close();
+
+		assertEquals(2, opener.opened.size());
+		assertTrue(opener.opened.get(0).closed);
+		assertFalse(opener.opened.get(1).closed);
+	}
+
+	@Test
+	public void test_clear_closes_in_use_handle_on_release() {
+		ArchiveHandleCache cache = new ArchiveHandleCache(2);
+		FakeOpener opener = new FakeOpener();
+
+		cache.acquire("a", archive, opener).close();
+		Handle<FakeHandle> b = cache.acquire("b", archive, opener);
+		cache.clear();
+
+		assertTrue(opener.opened.get(0).closed);
+		assertFalse(b.get().closed);
+		assertEquals(0, cache.getOpenCount());
+
+		FakeHandle bHandle = b.get();
+		b.close();
+		assertTrue(bHandle.closed);
+	}
+
+	private static class FakeHandle implements Closeable {
+		boolean closed;
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static class FakeOpener implements ArchiveHandleCache.Opener<FakeHandle> {
+		final List<FakeHandle> opened = Lists.newArrayList();
+
+		@Override
+		public FakeHandle open() {
+			FakeHandle handle = new FakeHandle();
+			opened.add(handle);
+			return handle;
+		}
+	}
+}
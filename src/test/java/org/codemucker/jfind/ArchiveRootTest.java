@@ -2,16 +2,28 @@ package org.codemucker.jfind;
 
 import static org.codemucker.jmatch.Assert.assertThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.codemucker.jfind.ArchiveRoot.ReaderType;
+import org.codemucker.jfind.Root.RootContentType;
+import org.codemucker.jfind.Root.RootType;
 import org.codemucker.jfind.matcher.ARootResource;
 import org.codemucker.jmatch.AList;
+import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 
 public class ArchiveRootTest {
@@ -44,6 +56,311 @@ public class ArchiveRootTest {
 		zipPath.delete();
 	}
 	
+	@Test
+	public void iterateResourcesTest() throws Exception {
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath,"a/b/c/noslash","/d/e/f/withslash");
+		
+		ArchiveRoot root = new ArchiveRoot(zipPath);
+		
+		CloseableIterator<RootResource> resources = root.resourceIterator();
+		assertThat(resources.next(), ARootResource.with().path("/a/b/c/noslash"));
+		resources.close();
+		
+		Assert.assertFalse(resources.hasNext());
+		
+		zipPath.delete();
+	}
+	
+	@Test
+	public void mappedWalkResourcesTest() throws Exception {
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath,"a/b/c/noslash","/d/e/f/withslash","g/dir/");
+		
+		Root root = new ArchiveRoot(zipPath, RootType.UNKNOWN, RootContentType.BINARY, ReaderType.MEMORY_MAPPED);
+		
+		assertThat(
+			Lists.newArrayList(((ArchiveRoot)root).resourceIterator()),
+			AList.of(RootResource.class)
+				.inOrder()
+				.withOnly()
+				.item(ARootResource.with().path("/a/b/c/noslash"))
+				.item(ARootResource.with().path("/d/e/f/withslash"))
+		);
+		
+		zipPath.delete();
+	}
+	
+	@Test
+	public void mappedRejectsEntryOverrunningCentralDirectoryTest() throws Exception {
+		byte[] bytes = zipBytes("a/b.txt", "content");
+		// stretch the name of the only entry into the end of central directory record
+		int header = lastIndexOf(bytes, new byte[] { 'P', 'K', 1, 2 });
+		bytes[header + 28] = (byte) 0xFF;
+		
+		try {
+			MappedZipFile.wrap(new File("bad.zip"), ByteBuffer.wrap(bytes));
+			Assert.fail("expected exception");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid central directory"));
+		}
+	}
+	
+	@Test
+	public void mappedReadSameAsZipFileTest() throws Exception {
+		File zipPath = File.createTempFile("test", ".jar");
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipPath));
+		zip.setComment("archive comment");
+		
+		zip.putNextEntry(new ZipEntry("a/deflated.txt"));
+		zip.write(Strings.repeat("deflated content ", 100).getBytes("UTF-8"));
+		
+		byte[] stored = "stored content".getBytes("UTF-8");
+		ZipEntry storedEntry = new ZipEntry("b/stored.txt");
+		storedEntry.setMethod(ZipEntry.STORED);
+		storedEntry.setSize(stored.length);
+		CRC32 crc = new CRC32();
+		crc.update(stored);
+		storedEntry.setCrc(crc.getValue());
+		zip.putNextEntry(storedEntry);
+		zip.write(stored);
+		zip.close();
+		
+		ArchiveRoot zipFileRoot = new ArchiveRoot(zipPath, RootType.UNKNOWN, RootContentType.BINARY, ReaderType.ZIP_FILE);
+		ArchiveRoot mappedRoot = new ArchiveRoot(zipPath, RootType.UNKNOWN, RootContentType.BINARY, ReaderType.MEMORY_MAPPED);
+		
+		for (String relPath : Arrays.asList("/a/deflated.txt", "/b/stored.txt")) {
+			Assert.assertTrue(mappedRoot.canReadResource(relPath));
+			Assert.assertEquals(zipFileRoot.getResource(relPath).readAsString(), mappedRoot.getResource(relPath).readAsString());
+			Assert.assertEquals(zipFileRoot.getResourceLastModified(relPath), mappedRoot.getResourceLastModified(relPath));
+		}
+		Assert.assertEquals("stored content", mappedRoot.getResource("/b/stored.txt").readAsString());
+		Assert.assertFalse(mappedRoot.canReadResource("/c/missing.txt"));
+		
+		zipPath.delete();
+	}
+	
+	@Test
+	public void dirFilterSkipsEntriesTest() throws Exception {
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath,"top","a/b/one","a/b/c/two","a/x/three","/d/four");
+		
+		for (ReaderType readerType : ReaderType.values()) {
+			ArchiveRoot root = new ArchiveRoot(zipPath, RootType.UNKNOWN, RootContentType.BINARY, readerType);
+			final List<String> asked = Lists.newArrayList();
+			
+			List<String> found = Lists.newArrayList();
+			for (Iterator<RootResource> iter = root.resourceIterator(new DirectoryFilter() {
+				@Override
+				public boolean isIncludeDirectory(String relDirPath) {
+					asked.add(relDirPath);
+					return relDirPath.equals("/a") || relDirPath.startsWith("/a/b");
+				}
+			}); iter.hasNext();) {
+				found.add(iter.next().getRelPath());
+			}
+			
+			Assert.assertEquals(readerType.name(), Arrays.asList("/top", "/a/b/one", "/a/b/c/two"), found);
+			Assert.assertEquals(readerType.name(), Arrays.asList("/a", "/a/b", "/a/b/c", "/a/x", "/d"), asked);
+		}
+		
+		zipPath.delete();
+	}
+	
+	@Test
+	public void readContentAfterScanReusesArchiveTest() throws Exception {
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath,"a/one","a/two");
+		
+		ArchiveRoot root = new ArchiveRoot(zipPath);
+		ArchiveHandleCache cache = ArchiveHandleCache.getDefault();
+		long misses = cache.getMisses();
+		
+		List<RootResource> resources = Lists.newArrayList(root.resourceIterator());
+		for (RootResource resource : resources) {
+			Assert.assertEquals("", resource.readAsString());
+		}
+		
+		Assert.assertEquals(misses + 1, cache.getMisses());
+		
+		zipPath.delete();
+	}
+	
+	@Test
+	public void fingerprintTracksContentNotTimestampsTest() throws Exception {
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFileWithContent(zipPath, 1000000000000L, "one");
+		long fingerprint = new ArchiveRoot(zipPath).getFingerprint();
+		
+		Assert.assertEquals(fingerprint, new ArchiveRoot(zipPath, RootType.UNKNOWN, RootContentType.BINARY, ReaderType.MEMORY_MAPPED).getFingerprint());
+		
+		// rebuilt with the same content at a later time
+		createZipFileWithContent(zipPath, 2000000000000L, "one");
+		Assert.assertEquals(fingerprint, new ArchiveRoot(zipPath).getFingerprint());
+		
+		// rebuilt with different content of the same length and entry timestamps
+		long lastModified = zipPath.lastModified();
+		createZipFileWithContent(zipPath, 2000000000000L, "two");
+		zipPath.setLastModified(lastModified + 2000);
+		long changed = new ArchiveRoot(zipPath).getFingerprint();
+		Assert.assertTrue(fingerprint != changed);
+		
+		// only recomputed when the archive's timestamp or length changes
+		ArchiveHandleCache.getDefault().clear();
+		Assert.assertEquals(changed, new ArchiveRoot(zipPath).getFingerprint());
+		Assert.assertEquals(0, ArchiveHandleCache.getDefault().getOpenCount());
+		
+		ArchiveRoot root = new ArchiveRoot(zipPath);
+		zipPath.delete();
+		Assert.assertEquals(Root.TIMESTAMP_NOT_EXIST, root.getFingerprint());
+	}
+	
+	@Test
+	public void nestedArchivesTest() throws Exception {
+		byte[] storedJar = zipBytes("a/one.txt", "one");
+		byte[] deflatedJar = zipBytes("b/two.txt", "two");
+		File warPath = File.createTempFile("test", ".war");
+		ZipOutputStream war = new ZipOutputStream(new FileOutputStream(warPath));
+		putEntry(war, "WEB-INF/web.xml", "<web-app/>");
+		putStored(war, "WEB-INF/lib/stored.jar", storedJar);
+		war.putNextEntry(new ZipEntry("WEB-INF/lib/deflated.jar"));
+		war.write(deflatedJar);
+		war.close();
+		
+		for (ReaderType readerType : ReaderType.values()) {
+			ArchiveRoot root = ArchiveRoot.with().path(warPath).readerType(readerType).build();
+			List<ArchiveRoot> nested = root.getNestedRoots();
+			Assert.assertEquals(2, nested.size());
+			
+			ArchiveRoot stored = nested.get(0);
+			Assert.assertSame(root, stored.getParentOrNull());
+			Assert.assertEquals(root.getFullPath() + "!/WEB-INF/lib/stored.jar", stored.getFullPath());
+			List<RootResource> resources = Lists.newArrayList(stored.resourceIterator());
+			Assert.assertEquals(1, resources.size());
+			Assert.assertEquals("/a/one.txt", resources.get(0).getRelPath());
+			Assert.assertEquals("one", resources.get(0).readAsString());
+			
+			ArchiveRoot deflated = nested.get(1);
+			Assert.assertEquals("two", deflated.getResource("/b/two.txt").readAsString());
+			Assert.assertTrue(deflated.getResourceUrl("/b/two.txt").toExternalForm().endsWith("!/WEB-INF/lib/deflated.jar!/b/two.txt"));
+			Assert.assertTrue(stored.getFingerprint() != deflated.getFingerprint());
+		}
+		
+		List<Root> roots = Roots.with().mainSrcDir(false).nestedArchives(true).root(new ArchiveRoot(warPath)).root(new ArchiveRoot(warPath)).build();
+		Assert.assertEquals(1, roots.size());
+		Assert.assertTrue(((ArchiveRoot) roots.get(0)).isIncludeNestedArchives());
+		
+		List<String> paths = Lists.newArrayList();
+		for (RootResource resource : ClassScanner.with().scanRoots(roots).build().findResources()) {
+			paths.add(resource.getRelPath());
+		}
+		Assert.assertEquals(Arrays.asList("/WEB-INF/web.xml", "/WEB-INF/lib/stored.jar", "/WEB-INF/lib/deflated.jar", "/a/one.txt", "/b/two.txt"), paths);
+		
+		RootSet rootSet = RootSet.from(roots);
+		Assert.assertEquals("two", rootSet.findResourceOrNull("/b/two.txt").readAsString());
+		Assert.assertEquals(3, rootSet.getRoots().size());
+		
+		warPath.delete();
+	}
+	
+	@Test
+	public void nestedArchivesNotOpenedUntilScannedTest() throws Exception {
+		File corruptPath = File.createTempFile("test", ".war");
+		FileOutputStream out = new FileOutputStream(corruptPath);
+		out.write("not an archive".getBytes("UTF-8"));
+		out.close();
+		
+		List<Root> roots = Roots.with().mainSrcDir(false).nestedArchives(true).root(new ArchiveRoot(corruptPath)).build();
+		Assert.assertEquals(1, roots.size());
+		RootSet.from(roots);
+		try {
+			ClassScanner.with().scanRoots(roots).build().findResources().toList();
+			Assert.fail("expected the corrupt archive to fail the scan");
+		} catch (JFindException e) {
+			// expected
+		}
+		
+		corruptPath.delete();
+	}
+	
+	@Test
+	public void multiReleaseTest() throws Exception {
+		File jarPath = File.createTempFile("test", ".jar");
+		ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(jarPath));
+		putEntry(jar, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\nMulti-Release: true\r\n\r\n");
+		putEntry(jar, "a/Base.txt", "base");
+		putEntry(jar, "META-INF/versions/9/a/Base.txt", "nine");
+		putEntry(jar, "META-INF/versions/11/a/Base.txt", "eleven");
+		putEntry(jar, "META-INF/versions/11/a/Only.txt", "only");
+		jar.close();
+		
+		ArchiveRoot java8 = ArchiveRoot.with().path(jarPath).releaseVersion(8).build();
+		Assert.assertEquals("base", java8.getResource("/a/Base.txt").readAsString());
+		Assert.assertFalse(java8.canReadResource("/a/Only.txt"));
+		Assert.assertEquals(2, Lists.newArrayList(java8.resourceIterator()).size());
+		
+		ArchiveRoot java9 = ArchiveRoot.with().path(jarPath).readerType(ReaderType.MEMORY_MAPPED).releaseVersion(9).build();
+		Assert.assertEquals("nine", java9.getResource("/a/Base.txt").readAsString());
+		
+		ArchiveRoot java11 = ArchiveRoot.with().path(jarPath).releaseVersion(11).build();
+		Assert.assertEquals("eleven", java11.getResource("/a/Base.txt").readAsString());
+		Assert.assertEquals("only", java11.getResource("/a/Only.txt").readAsString());
+		List<String> paths = Lists.newArrayList();
+		for (RootResource resource : Lists.newArrayList(java11.resourceIterator())) {
+			paths.add(resource.getRelPath());
+		}
+		Assert.assertEquals(Arrays.asList("/META-INF/MANIFEST.MF", "/a/Base.txt", "/a/Only.txt"), paths);
+		
+		ArchiveRoot plain = ArchiveRoot.with().path(jarPath).multiRelease(false).build();
+		Assert.assertEquals("base", plain.getResource("/a/Base.txt").readAsString());
+		Assert.assertEquals(5, Lists.newArrayList(plain.resourceIterator()).size());
+		
+		jarPath.delete();
+	}
+	
+	private static byte[] zipBytes(String relPath, String content) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ZipOutputStream zip = new ZipOutputStream(bytes);
+		putEntry(zip, relPath, content);
+		zip.close();
+		return bytes.toByteArray();
+	}
+	
+	private static int lastIndexOf(byte[] bytes, byte[] find) {
+		for (int i = bytes.length - find.length; i >= 0; i--) {
+			if (Arrays.equals(find, Arrays.copyOfRange(bytes, i, i + find.length))) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("not found");
+	}
+	
+	private static void putEntry(ZipOutputStream zip, String relPath, String content) throws Exception {
+		zip.putNextEntry(new ZipEntry(relPath));
+		zip.write(content.getBytes("UTF-8"));
+	}
+	
+	private static void putStored(ZipOutputStream zip, String relPath, byte[] content) throws Exception {
+		ZipEntry entry = new ZipEntry(relPath);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(content.length);
+		entry.setCompressedSize(content.length);
+		entry.setCrc(crc.getValue());
+		zip.putNextEntry(entry);
+		zip.write(content);
+	}
+	
+	private void createZipFileWithContent(File path, long entryTime, String content) throws Exception {
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(path));
+		ZipEntry entry = new ZipEntry("a/one.txt");
+		entry.setTime(entryTime);
+		zip.putNextEntry(entry);
+		zip.write(content.getBytes("UTF-8"));
+		zip.close();
+	}
+	
 	private void createZipFile(File path, String... relPaths) throws Exception {
 		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(path));
 		for(String relPath:relPaths){
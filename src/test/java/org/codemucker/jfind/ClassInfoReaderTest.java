@@ -0,0 +1,86 @@
+package org.codemucker.jfind;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.codemucker.jfind.e.TstAnnotation;
+import org.codemucker.jfind.e.TstAnnotationBean;
+import org.codemucker.jtest.ProjectLayouts;
+import org.junit.Test;
+
+public class ClassInfoReaderTest {
+
+	@Test
+	public void readNamesAndInterfaces() throws Exception {
+		ClassInfo info = read(TstBeanOneAndTwo.class);
+		
+		assertEquals(TstBeanOneAndTwo.class.getName(), info.getClassName());
+		assertEquals(Object.class.getName(), info.getSuperClassName());
+		assertEquals(Arrays.asList(TstInterface1.class.getName(), TstInterface2.class.getName()), info.getInterfaceNames());
+		assertTrue(info.isPublic());
+		assertFalse(info.isInterface());
+		assertFalse(info.isNested());
+	}
+	
+	@Test
+	public void readAnnotations() throws Exception {
+		ClassInfo info = read(TstAnnotationBean.class);
+		
+		assertEquals(Collections.singletonList(TstAnnotation.class.getName()), info.getAnnotationNames());
+		assertTrue(info.hasAnnotation(TstAnnotation.class.getName()));
+	}
+	
+	@Test
+	public void readAccessFlags() throws Exception {
+		assertTrue(read(TstInterface.class).isInterface());
+		assertTrue(read(TstAnnotation.class).isAnnotation());
+		assertTrue(read(TstEnum.class).isEnum());
+		assertTrue(read(TstBeanOneAndTwo.StaticEnum.class).isNested());
+	}
+	
+	@Test
+	public void readNestedClassModifiers() throws Exception {
+		for (Class<?> type : new Class<?>[] { TstPrivateStatic.class, TstProtected.class, TstBeanOneAndTwo.class, TstBeanOneAndTwo.StaticEnum.class }) {
+			assertEquals(type.getName(), type.getModifiers(), read(type).getAccessFlags());
+		}
+		assertFalse(read(TstPrivateStatic.class).isPublic());
+		assertFalse(read(TstProtected.class).isPublic());
+	}
+	
+	@Test
+	public void readClassWithNoSuperClass() throws Exception {
+		RootResource resource = new RootResource(new DirectoryRoot(new File(".")), "java/lang/Object.class");
+		ClassInfo info = ClassInfoReader.read(resource, toBytes(Object.class));
+		
+		assertEquals(Object.class.getName(), info.getClassName());
+		assertNull(info.getSuperClassName());
+	}
+	
+	@Test(expected=JFindException.class)
+	public void failOnInvalidClassFile() throws Exception {
+		RootResource resource = new RootResource(new DirectoryRoot(new File(".")), "Invalid.class");
+		ClassInfoReader.read(resource, new byte[] { 1, 2, 3, 4, 5, 6 });
+	}
+	
+	private static class TstPrivateStatic {
+	}
+	
+	protected class TstProtected {
+	}
+	
+	private static byte[] toBytes(Class<?> type) throws Exception {
+		return org.apache.commons.io.IOUtils.toByteArray(type.getResourceAsStream(type.getSimpleName() + ".class"));
+	}
+	
+	private static ClassInfo read(Class<?> type) throws Exception {
+		File dir = ProjectLayouts.getDefaultResolver().getTestCompileTargetDirs().iterator().next();
+		Root root = new DirectoryRoot(dir);
+		return ClassInfoReader.read(root.getResource(type.getName().replace('.', '/') + ".class"));
+	}
+}
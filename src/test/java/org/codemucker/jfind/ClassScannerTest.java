@@ -21,6 +21,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 import org.codemucker.jfind.a.TstBeanOne;
@@ -29,7 +30,9 @@ import org.codemucker.jfind.c.TstAnonymous;
 import org.codemucker.jfind.d.TstInner;
 import org.codemucker.jfind.e.TstAnnotation;
 import org.codemucker.jfind.e.TstAnnotationBean;
+import org.codemucker.jfind.f.TstStaticInit;
 import org.codemucker.jfind.matcher.AClass;
+import org.codemucker.jfind.matcher.AClassInfo;
 import org.codemucker.jfind.matcher.ARootResource;
 import org.codemucker.jfind.matcher.ARootResource;
 import org.codemucker.jmatch.AString;
@@ -307,6 +310,257 @@ public class ClassScannerTest {
 		assertEquals(list(TstAnnotationBean.class), found);
 	}
 	
+	@Test
+	public void test_find_annotated_via_index(){
+		ClassScanner finder = newFinderBuilder().build();
+
+		assertEquals(list(TstAnnotationBean.class), list(finder.findClassesAnnotatedWith(TstAnnotation.class)));
+		assertEquals(1, finder.findClassInfosAnnotatedWith(TstAnnotation.class.getName()).toList().size());
+		assertTrue(finder.findClassesAnnotatedWith("org.codemucker.NoSuchAnnotation").isEmpty());
+	}
+	
+	@Test
+	public void test_annotation_index_built_once(){
+		final Collection<Object> read = new ArrayList<>();
+		ClassScanner finder = newFinderBuilder()
+			.listener(new BaseMatchListener<Object>(){
+				@Override
+				protected void onMatched(ClassInfo record) {
+					read.add(record);
+				}
+			})
+			.build();
+
+		AnnotationIndex index = finder.getAnnotationIndex();
+		int numRead = read.size();
+		finder.findClassesAnnotatedWith(TstAnnotation.class).toList();
+		Collection<Class<?>> annotations = finder.findClassesAnnotatedWith(java.lang.annotation.Retention.class).toList();
+		
+		assertTrue(numRead > 0);
+		assertEquals(numRead, read.size());
+		assertTrue(annotations.contains(TstAnnotation.class));
+		assertTrue(index == finder.getAnnotationIndex());
+		
+		finder.clearIndexes();
+		assertFalse(index == finder.getAnnotationIndex());
+	}
+	
+	@Test
+	public void test_find_subtypes_via_index(){
+		ClassScanner finder = newFinderBuilder().build();
+
+		Collection<Class<?>> found = list(finder.findSubtypesOf(TstInterface1.class));
+		
+		assertTrue(found.contains(TstBeanOne.class));
+		assertTrue(found.contains(TstBeanOneAndTwo.class));
+		assertEquals(2, found.size());
+		assertEquals(2, finder.findClassInfosSubtypesOf(TstInterface1.class.getName()).toList().size());
+		assertTrue(finder.findSubtypesOf("org.codemucker.NoSuchType").isEmpty());
+	}
+	
+	@Test
+	public void test_class_info_filter_prevents_class_loading(){
+		final Collection<Object> loaded = new ArrayList<>();
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+			        .classInfoMatches(AClassInfo.with().annotation(TstAnnotation.class)))
+			.listener(new BaseMatchListener<Object>(){
+				@Override
+				protected void onMatched(Class<?> record) {
+					loaded.add(record);
+				}
+				@Override
+				protected void onIgnored(Class<?> record) {
+					loaded.add(record);
+				}
+			})
+			.build();
+
+		Collection<Class<?>> found = list(finder.findClasses());
+
+		assertEquals(list(TstAnnotationBean.class), found);
+		assertEquals(list(TstAnnotationBean.class), loaded);
+	}
+	
+	@Test
+	public void test_find_class_infos(){
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+			        .classInfoMatches(AClassInfo.with().interfaceDeclared(TstInterface1.class).isNotInterface()))
+			.build();
+
+		Collection<String> found = list(finder.findClassInfos().transform(new com.google.common.base.Function<ClassInfo, String>() {
+			@Override
+			public String apply(ClassInfo input) {
+				return input.getClassName();
+			}
+		}));
+		
+		assertEquals(2, found.size());
+		assertTrue(found.contains(TstBeanOne.class.getName()));
+		assertTrue(found.contains(TstBeanOneAndTwo.class.getName()));
+	}
+	
+	@Test
+	public void test_parallel_scan_same_as_sequential(){
+		ClassScanner sequential = newFinderBuilder().build();
+		ClassScanner parallel = newFinderBuilder().parallelism(4).build();
+		
+		Collection<Class<?>> foundSequential = list(sequential.findClasses());
+		Collection<Class<?>> foundParallel = list(parallel.findClasses());
+		
+		assertTrue(foundParallel.contains(ClassScanner.class));
+		assertTrue(foundParallel.contains(ClassScannerTest.class));
+		assertEquals(list(foundSequential), list(foundParallel));
+	}
+	
+	@Test(expected=JFindException.class)
+	public void test_parallel_scan_no_roots(){
+		ClassScanner.with()
+			.scanRoots(new ArrayList<Root>())
+			.parallelism(4)
+			.build()
+			.findResources();
+	}
+	
+	@Test
+	public void test_get_first_stops_scan(){
+		final Collection<Object> visited = new ArrayList<>();
+		ClassScanner finder = newFinderBuilder()
+			.listener(new BaseMatchListener<Object>(){
+				@Override
+				protected void onMatched(RootResource record) {
+					visited.add(record);
+				}
+			})
+			.build();
+
+		FindResult<RootResource> found = finder.findResources();
+		assertTrue(visited.isEmpty());
+		
+		assertNotNull(found.getFirstOrNull());
+		assertEquals(1, visited.size());
+		
+		assertFalse(found.isEmpty());
+		assertFalse(finder.findClasses().isEmpty());
+	}
+	
+	@Test
+	public void test_package_filter_skips_other_dirs(){
+		final Collection<String> visited = new ArrayList<>();
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+				.resourceMatches(ARootResource.with().packageName(TstBeanOne.class)))
+			.listener(new BaseMatchListener<Object>(){
+				@Override
+				protected void onMatched(RootResource record) {
+					visited.add(record.getRelPath());
+				}
+				
+				@Override
+				protected void onIgnored(RootResource record) {
+					visited.add(record.getRelPath());
+				}
+			})
+			.build();
+
+		Collection<Class<?>> found = list(finder.findClasses());
+		
+		assertTrue(found.contains(TstBeanOne.class));
+		assertFalse(found.contains(TstBeanTwo.class));
+		for (String relPath : visited) {
+			assertFalse(relPath, relPath.startsWith("/org/codemucker/jfind/b/"));
+			assertFalse(relPath, relPath.startsWith("/org/codemucker/jfind/matcher/"));
+		}
+	}
+	
+	@Test
+	public void test_stats_recorded_per_root(){
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+				.resourceMatches(ARootResource.with().packageName(TstBeanOne.class)))
+			.build();
+
+		FindResult<Class<?>> found = finder.findClasses();
+		Collection<Class<?>> classes = list(found);
+		ScanStats.RootStats total = found.getStats().getTotal();
+		
+		assertFalse(found.getStats().getRootStats().isEmpty());
+		assertTrue(total.getResourcesVisited() > 0);
+		assertTrue(total.getResourcesMatched() > 0);
+		assertEquals(total.getResourcesVisited(), total.getResourcesMatched() + total.getResourcesIgnored());
+		assertEquals(classes.size(), total.getClassesLoaded());
+		assertEquals(0, total.getClassLoadFailures());
+		assertTrue(total.getBytesRead() > 0);
+		assertTrue(total.getNanos(ScanStats.Stage.WALK) > 0);
+		assertTrue(total.getNanos(ScanStats.Stage.MATCH) > 0);
+	}
+	
+	@Test
+	public void test_stats_record_class_load_failures(){
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+				.resourceMatches(ARootResource.with().packageName(TstBeanOne.class)))
+			.classLoader(new ClassLoader(null){})
+			.listener(new BaseMatchListener<Object>())
+			.build();
+
+		FindResult<Class<?>> found = finder.findClasses();
+		assertTrue(list(found).isEmpty());
+		
+		ScanStats.RootStats total = found.getStats().getTotal();
+		assertTrue(total.getClassLoadFailures() > 0);
+		assertEquals(total.getClassLoadFailures(), total.getErrors());
+		assertEquals(0, total.getClassesLoaded());
+	}
+	
+	@Test
+	public void test_stats_not_collected_if_off(){
+		FindResult<RootResource> found = newFinderBuilder().collectStats(false).build().findResources();
+		
+		assertFalse(list(found).isEmpty());
+		assertFalse(found.getStats().isEnabled());
+		assertEquals(0, found.getStats().getTotal().getResourcesVisited());
+	}
+	
+	@Test
+	public void test_throwaway_class_loading_returns_target_classes(){
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+				.resourceMatches(ARootResource.with().packageName(TstBeanOne.class)))
+			.throwawayClassLoading(true)
+			.build();
+		
+		Collection<Class<?>> found = list(finder.findClasses());
+		
+		assertEquals(list(TstBeanOne.class), list(found));
+	}
+	
+	@Test
+	public void test_throwaway_class_loading_does_not_initialise_or_keep_unmatched(){
+		final Collection<Class<?>> ignored = new ArrayList<>();
+		ClassScanner finder = newFinderBuilder()
+			.filter(ClassFilter.with()
+				.resourceMatches(ARootResource.with().packageName("org.codemucker.jfind.f"))
+				.classMatches(AClass.noClass()))
+			.listener(new BaseMatchListener<Object>(){
+				@Override
+				protected void onIgnored(Class<?> record) {
+					ignored.add(record);
+				}
+			})
+			.throwawayClassLoading(true)
+			.build();
+		
+		assertTrue(list(finder.findClasses()).isEmpty());
+		
+		assertEquals(1, ignored.size());
+		Class<?> candidate = ignored.iterator().next();
+		assertEquals(TstStaticInit.class.getName(), candidate.getName());
+		assertTrue(candidate.getClassLoader() != ClassScannerTest.class.getClassLoader());
+		assertEquals(null, System.getProperty(TstStaticInit.PROP_INITIALISED));
+	}
+	
 	private static ClassScanner.Builder newFinderBuilder(){
 		return ClassScanner.with()
             			.scanRoots(Roots.with()
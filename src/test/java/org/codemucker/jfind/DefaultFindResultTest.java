@@ -0,0 +1,208 @@
+package org.codemucker.jfind;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+
+public class DefaultFindResultTest {
+
+	@Test
+	public void parallelKeepsOrderTest() {
+		List<Integer> numbers = numbers(1000);
+		final ConcurrentHashMap<String, Boolean> threads = new ConcurrentHashMap<String, Boolean>();
+		
+		FindResult<String> result = DefaultFindResult.from(numbers)
+			.parallel()
+			.filter(new Predicate<Integer>() {
+				@Override
+				public boolean apply(Integer n) {
+					threads.put(Thread.currentThread().getName(), true);
+					return n % 3 == 0;
+				}
+			})
+			.transform(new Function<Integer, String>() {
+				@Override
+				public String apply(Integer n) {
+					return "n" + n;
+				}
+			});
+		
+		Assert.assertTrue(result.isParallel());
+		List<String> expect = Lists.newArrayList();
+		for (int n : numbers) {
+			if (n % 3 == 0) {
+				expect.add("n" + n);
+			}
+		}
+		Assert.assertEquals(expect, result.toList());
+		Assert.assertFalse(threads.containsKey(Thread.currentThread().getName()));
+	}
+	
+	@Test
+	public void unorderedReturnsAllTest() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Integer> numbers = numbers(1000);
+			List<Integer> found = DefaultFindResult.from(numbers)
+				.parallel(executor)
+				.transform(new Function<Integer, Integer>() {
+					@Override
+					public Integer apply(Integer n) {
+						return n % 2 == 0 ? n : null;
+					}
+				})
+				.unordered()
+				.toList();
+			
+			Collections.sort(found);
+			List<Integer> expect = Lists.newArrayList();
+			for (int n : numbers) {
+				if (n % 2 == 0) {
+					expect.add(n);
+				}
+			}
+			Assert.assertEquals(expect, found);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void parallelRethrowsTest() {
+		FindResult<Integer> result = DefaultFindResult.from(numbers(500)).parallel().filter(new Predicate<Integer>() {
+			@Override
+			public boolean apply(Integer n) {
+				if (n == 321) {
+					throw new IllegalStateException("bad " + n);
+				}
+				return true;
+			}
+		});
+		try {
+			result.toList();
+			Assert.fail("expected exception");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("bad 321", e.getMessage());
+		}
+	}
+	
+	@Test
+	public void nestedParallelDoesNotDeadlockTest() {
+		// a single thread, so a nested result waiting on the pool would never finish
+		final ExecutorService executor = Executors.newFixedThreadPool(1);
+		try {
+			List<Integer> sums = DefaultFindResult.from(numbers(200))
+				.parallel(executor)
+				.transform(new Function<Integer, Integer>() {
+					@Override
+					public Integer apply(Integer n) {
+						int sum = 0;
+						for (int i : DefaultFindResult.from(numbers(n)).parallel(executor).transform(IDENTITY)) {
+							sum += i;
+						}
+						return sum;
+					}
+				})
+				.toList();
+			
+			Assert.assertEquals(200, sums.size());
+			Assert.assertEquals(Integer.valueOf(199 * 198 / 2), sums.get(199));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void streamFromListIsSizedAndSplitsTest() {
+		FindResult<Integer> result = DefaultFindResult.from(numbers(1000));
+		
+		Spliterator<Integer> all = result.spliterator();
+		Assert.assertTrue(all.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+		Spliterator<Integer> firstHalf = all.trySplit();
+		Assert.assertEquals(500, firstHalf.estimateSize());
+		Assert.assertEquals(500, all.estimateSize());
+		
+		Assert.assertEquals(499500, result.parallelStream().mapToInt(new ToIntFunction<Integer>() {
+			@Override
+			public int applyAsInt(Integer n) {
+				return n;
+			}
+		}).sum());
+		Assert.assertEquals(numbers(10), result.stream().limit(10).collect(Collectors.toList()));
+	}
+	
+	@Test
+	public void streamFromLazyResultsShortCircuitsTest() {
+		final AtomicInteger pulled = new AtomicInteger();
+		final AtomicInteger closed = new AtomicInteger();
+		FindResult<Integer> result = DefaultFindResult.from(new Iterable<Integer>() {
+			@Override
+			public Iterator<Integer> iterator() {
+				final Iterator<Integer> numbers = numbers(1000).iterator();
+				return new CloseableIterator<Integer>() {
+					@Override
+					public boolean hasNext() {
+						return numbers.hasNext();
+					}
+					
+					@Override
+					public Integer next() {
+						pulled.incrementAndGet();
+						return numbers.next();
+					}
+					
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+					
+					@Override
+					public void close() {
+						closed.incrementAndGet();
+					}
+				};
+			}
+		});
+		
+		try (Stream<Integer> stream = result.stream()) {
+			Assert.assertTrue(stream.anyMatch(new java.util.function.Predicate<Integer>() {
+				@Override
+				public boolean test(Integer n) {
+					return n == 5;
+				}
+			}));
+		}
+		Assert.assertEquals(6, pulled.get());
+		Assert.assertEquals(1, closed.get());
+	}
+	
+	private static final Function<Integer, Integer> IDENTITY = new Function<Integer, Integer>() {
+		@Override
+		public Integer apply(Integer n) {
+			return n;
+		}
+	};
+	
+	private static List<Integer> numbers(int count) {
+		List<Integer> numbers = Lists.newArrayList();
+		for (int i = 0; i < count; i++) {
+			numbers.add(i);
+		}
+		return numbers;
+	}
+}
@@ -4,13 +4,18 @@ import static org.codemucker.jmatch.Assert.assertThat;
 import static org.codemucker.jmatch.Assert.is;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.codemucker.jfind.a.TstBeanOne;
 import org.codemucker.jfind.b.TstBeanTwo;
 import org.codemucker.jfind.matcher.ARootResource;
 import org.codemucker.jmatch.AList;
 import org.codemucker.jtest.ProjectLayouts;
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.google.common.collect.Lists;
@@ -41,4 +46,66 @@ public class DirectoryRootTest {
 				.item(ARootResource.with().className(DirectoryRootTest.class)))
 		);
 	}
+	
+	@Test
+	public void walkResourcesSkipsHiddenDirsAndKeepsAttributesTest() throws Exception {
+		File dir = Files.createTempDirectory("test").toFile();
+		File a = writeFile(dir, "a.txt", "aaa");
+		File b = writeFile(dir, "sub/b.txt", "bb");
+		writeFile(dir, ".hidden/c.txt", "c");
+		writeFile(dir, "CVS/d.txt", "d");
+		
+		List<RootResource> resources = Lists.newArrayList(new DirectoryRoot(dir).resourceIterator());
+		
+		assertThat(
+			resources,
+			AList.of(RootResource.class)
+				.inOrder()
+				.withOnly()
+				.item(ARootResource.with().path("/a.txt"))
+				.item(ARootResource.with().path("/sub/b.txt"))
+		);
+		Assert.assertEquals(3, resources.get(0).getSize());
+		Assert.assertEquals(a.lastModified(), resources.get(0).getLastModified());
+		Assert.assertEquals(2, resources.get(1).getSize());
+		Assert.assertEquals(b.lastModified(), resources.get(1).getLastModified());
+		
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	@Test
+	public void visitorSkipsVetoedDirsTest() throws Exception {
+		File dir = Files.createTempDirectory("test").toFile();
+		writeFile(dir, "a.txt", "a");
+		writeFile(dir, "sub/b.txt", "b");
+		writeFile(dir, "sub/deeper/c.txt", "c");
+		writeFile(dir, "other/d.txt", "d");
+		
+		final List<String> resources = Lists.newArrayList();
+		final List<String> dirs = Lists.newArrayList();
+		new DirectoryRoot(dir).accept(new BaseRootVisitor(){
+			@Override
+			public boolean visitDirectory(Root root, String relDirPath) {
+				dirs.add(relDirPath);
+				return !relDirPath.equals("/sub");
+			}
+			
+			@Override
+			public boolean visit(RootResource resource) {
+				resources.add(resource.getRelPath());
+				return true;
+			}
+		});
+		
+		Assert.assertEquals(Arrays.asList("/a.txt", "/other/d.txt"), resources);
+		Assert.assertFalse(dirs.contains("/sub/deeper"));
+		
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	private static File writeFile(File dir, String relPath, String content) throws Exception {
+		File f = new File(dir, relPath);
+		FileUtils.writeStringToFile(f, content, "UTF-8");
+		return f;
+	}
 }
@@ -0,0 +1,119 @@
+package org.codemucker.jfind;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.codemucker.jfind.e.TstPackagePrivateParent;
+import org.codemucker.jfind.matcher.AClass;
+import org.codemucker.jfind.matcher.AMethod;
+import org.codemucker.jfind.matcher.AnAnnotation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReflectedClassTest {
+
+	@Test
+	public void overriddenMethodsFoundOnceTest() {
+		List<Method> found = ReflectedClass.from(TstChild.class).findMethodsMatching(AMethod.with().name("get*")).toList();
+		
+		Assert.assertEquals(2, found.size());
+		Assert.assertEquals(TstChild.class, found.get(0).getDeclaringClass());
+		Assert.assertEquals("getName", found.get(0).getName());
+		Assert.assertEquals(TstParent.class, found.get(1).getDeclaringClass());
+		Assert.assertEquals("getAge", found.get(1).getName());
+		
+		Assert.assertEquals(1, ReflectedClass.from(TstChild.class).findMethodsMatching(AMethod.with().name("get*"), SearchScope.DIRECT).toList().size());
+		Assert.assertTrue(ReflectedClass.from(TstChild.class).hasMethodMatching(AMethod.with().name("getAge")));
+		Assert.assertFalse(ReflectedClass.from(TstChild.class).hasMethodMatching(AMethod.with().name("hashCode")));
+	}
+	
+	@Test
+	public void packagePrivateMethodsOnlyOverriddenInSamePackageTest() {
+		List<Method> found = ReflectedClass.from(TstOtherPackageChild.class).findMethodsMatching(AMethod.with().name("describe")).toList();
+		
+		Assert.assertEquals(2, found.size());
+		Assert.assertEquals(TstOtherPackageChild.class, found.get(0).getDeclaringClass());
+		Assert.assertEquals(TstPackagePrivateParent.class, found.get(1).getDeclaringClass());
+		
+		found = ReflectedClass.from(TstChild.class).findMethodsMatching(AMethod.with().name("describe")).toList();
+		Assert.assertEquals(1, found.size());
+		Assert.assertEquals(TstChild.class, found.get(0).getDeclaringClass());
+	}
+	
+	@Test
+	public void memberTableSharedPerClassTest() {
+		Assert.assertSame(MemberTable.get(TstChild.class), MemberTable.get(TstChild.class));
+		Assert.assertSame(methodNamed(TstParent.class, "getAge"), methodNamed(TstChild.class, "getAge"));
+	}
+	
+	@Test
+	public void annotationsByTypeTest() throws Exception {
+		ReflectedClass reflected = ReflectedClass.from(TstChild.class);
+		Assert.assertSame(reflected, ReflectedClass.from(TstChild.class));
+		
+		Assert.assertTrue(reflected.hasAnnotations());
+		Assert.assertEquals("child", reflected.getAnnotation(TstMarker.class).value());
+		Assert.assertTrue(reflected.hasAnnotation(TstMarker.class.getName()));
+		Assert.assertTrue(reflected.hasAnnotation(AnAnnotation.with().fullName(TstMarker.class)));
+		Assert.assertNull(reflected.getAnnotation(Retention.class));
+		Assert.assertFalse(ReflectedClass.from(TstParent.class).hasAnnotations());
+		
+		Assert.assertTrue(AClass.with().annotation(TstMarker.class).matches(TstChild.class));
+		Assert.assertFalse(AClass.with().annotation(TstMarker.class).matches(TstParent.class));
+		Assert.assertTrue(AMethod.with().annotation(TstMarker.class).matches(TstChild.class.getMethod("getName")));
+		Assert.assertFalse(AMethod.with().annotation(TstMarker.class).matches(TstParent.class.getMethod("getName")));
+	}
+	
+	private static Method methodNamed(Class<?> type, String name) {
+		for (Method m : MemberTable.get(type).getMethods()) {
+			if (m.getName().equals(name)) {
+				return m;
+			}
+		}
+		return null;
+	}
+	
+	public static class TstParent {
+		public String getName() {
+			return "parent";
+		}
+		
+		public int getAge() {
+			return 1;
+		}
+		
+		String describe() {
+			return "parent";
+		}
+	}
+	
+	@Retention(RetentionPolicy.RUNTIME)
+	public static @interface TstMarker {
+		String value();
+	}
+	
+	@TstMarker("child")
+	public static class TstChild extends TstParent {
+		@Override
+		@TstMarker("getName")
+		public String getName() {
+			return "child";
+		}
+		
+		@Override
+		String describe() {
+			return "child";
+		}
+	}
+	
+	/**
+	 * Declares the same method as its parent's package private one, so shadows it rather than overriding it
+	 */
+	public static class TstOtherPackageChild extends TstPackagePrivateParent {
+		String describe() {
+			return "child";
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package org.codemucker.jfind;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class RootSetTest {
+
+	@Test
+	public void findResourceSkipsRootsWithoutItTest() throws Exception {
+		File dir = Files.createTempDirectory("test").toFile();
+		FileUtils.writeStringToFile(new File(dir, "com/acme/a.txt"), "a", "UTF-8");
+		FileUtils.writeStringToFile(new File(dir, "com/acme/both.txt"), "dir", "UTF-8");
+		File jar = File.createTempFile("test", ".jar");
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar));
+		zip.putNextEntry(new ZipEntry("com/acme/b.txt"));
+		zip.putNextEntry(new ZipEntry("com/acme/both.txt"));
+		zip.close();
+		
+		RootSet roots = RootSet.from(Lists.<Root>newArrayList(new ArchiveRoot(jar), new DirectoryRoot(dir)));
+		
+		Assert.assertTrue(roots.findResourceOrNull("com/acme/a.txt").getRoot() instanceof DirectoryRoot);
+		Assert.assertTrue(roots.findResourceOrNull("/com/acme/b.txt").getRoot() instanceof ArchiveRoot);
+		Assert.assertNull(roots.findResourceOrNull("/com/acme/missing.txt"));
+		Assert.assertNull(roots.findResourceOrNull("/com/acme"));
+		
+		List<RootResource> both = roots.findResources("/com/acme/both.txt");
+		Assert.assertEquals(2, both.size());
+		Assert.assertTrue(both.get(0).getRoot() instanceof ArchiveRoot);
+		Assert.assertEquals("dir", both.get(1).readAsString());
+		
+		// the archive can always be skipped, the directory only misses on a false positive
+		Assert.assertTrue(roots.getRootsSkipped() >= 3);
+		
+		FileUtils.writeStringToFile(new File(dir, "com/acme/new.txt"), "new", "UTF-8");
+		Assert.assertFalse(roots.containsResource("/com/acme/new.txt"));
+		roots.refresh();
+		Assert.assertTrue(roots.containsResource("/com/acme/new.txt"));
+		
+		jar.delete();
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	@Test
+	public void bloomFilterHasNoFalseNegativesTest() {
+		List<String> paths = Lists.newArrayList();
+		for (int i = 0; i < 10000; i++) {
+			paths.add("/com/acme/p" + (i % 20) + "/Type" + i + ".class");
+		}
+		PathBloomFilter filter = PathBloomFilter.from(paths, 0.01);
+		for (String path : paths) {
+			Assert.assertTrue(path, filter.mightContain(path));
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (filter.mightContain("/org/other/p" + (i % 20) + "/Type" + i + ".class")) {
+				falsePositives++;
+			}
+		}
+		Assert.assertTrue("false positives " + falsePositives, falsePositives < 300);
+	}
+}
@@ -0,0 +1,175 @@
+package org.codemucker.jfind;
+
+import static org.codemucker.jtest.TestUtils.list;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.codemucker.jfind.ClassScanner.Filter;
+import org.codemucker.jfind.matcher.AClassInfo;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+
+public class ScanIndexTest {
+
+	@Test
+	public void test_unchanged_archive_listed_from_index() throws Exception {
+		File indexFile = File.createTempFile("test", ".idx");
+		indexFile.delete();
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath, "a/b/One.txt", "c/Two.txt");
+
+		CountingArchiveRoot root = new CountingArchiveRoot(zipPath);
+		assertEquals(Arrays.asList("/a/b/One.txt", "/c/Two.txt"), relPaths(newScanner(root, ScanIndex.load(indexFile)).findResources()));
+		assertEquals(1, root.walked);
+		assertTrue(indexFile.isFile());
+
+		// new index instance, as on the next run
+		assertEquals(Arrays.asList("/a/b/One.txt", "/c/Two.txt"), relPaths(newScanner(root, ScanIndex.load(indexFile)).findResources()));
+		assertEquals(1, root.walked);
+
+		indexFile.delete();
+		zipPath.delete();
+	}
+
+	@Test
+	public void test_changed_archive_rescanned() throws Exception {
+		File indexFile = File.createTempFile("test", ".idx");
+		indexFile.delete();
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath, "a/b/One.txt");
+
+		CountingArchiveRoot root = new CountingArchiveRoot(zipPath);
+		assertEquals(Arrays.asList("/a/b/One.txt"), relPaths(newScanner(root, ScanIndex.load(indexFile)).findResources()));
+
+		createZipFile(zipPath, "a/b/One.txt", "c/Two.txt");
+		assertEquals(Arrays.asList("/a/b/One.txt", "/c/Two.txt"), relPaths(newScanner(root, ScanIndex.load(indexFile)).findResources()));
+		assertEquals(2, root.walked);
+
+		indexFile.delete();
+		zipPath.delete();
+	}
+
+	@Test
+	public void test_class_infos_from_index_same_as_scanned() throws Exception {
+		File indexFile = File.createTempFile("test", ".idx");
+		indexFile.delete();
+
+		ClassScanner.Builder builder = ClassScanner.with()
+			.scanRoots(Roots.with().testCompiledDir(true).build())
+			.filter(ClassFilter.with().classInfoMatches(AClassInfo.with().interfaceDeclared(TstInterface1.class)));
+
+		Collection<ClassInfo> scanned = list(builder.build().findClassInfos());
+		Collection<ClassInfo> indexed = list(builder.index(indexFile).build().findClassInfos());
+		Collection<ClassInfo> reloaded = list(builder.index(indexFile).build().findClassInfos());
+
+		assertFalse(scanned.isEmpty());
+		assertEquals(toStrings(scanned), toStrings(indexed));
+		assertEquals(toStrings(scanned), toStrings(reloaded));
+
+		indexFile.delete();
+	}
+
+	@Test
+	public void test_excluded_directories_pruned_with_index() throws Exception {
+		File indexFile = File.createTempFile("test", ".idx");
+		indexFile.delete();
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath, "One.txt", "a/b/Two.txt", "a/c/Three.txt", "d/Four.txt");
+
+		Root root = new ArchiveRoot(zipPath);
+		Filter filter = new BaseFilter() {
+			@Override
+			public boolean isIncludeDirectory(Root root, String relDirPath) {
+				return !relDirPath.equals("/a/b") && !relDirPath.equals("/d");
+			}
+		};
+		List<String> expect = Arrays.asList("/One.txt", "/a/c/Three.txt");
+		assertEquals(expect, relPaths(newScanner(root, null, filter).findResources()));
+		// walked to build the index, then listed from it
+		assertEquals(expect, relPaths(newScanner(root, ScanIndex.load(indexFile), filter).findResources()));
+		assertEquals(expect, relPaths(newScanner(root, ScanIndex.load(indexFile), filter).findResources()));
+
+		indexFile.delete();
+		zipPath.delete();
+	}
+
+	@Test
+	public void test_unreadable_index_ignored() throws Exception {
+		File indexFile = File.createTempFile("test", ".idx");
+		FileOutputStream out = new FileOutputStream(indexFile);
+		out.write("not an index".getBytes("UTF-8"));
+		out.close();
+
+		File zipPath = File.createTempFile("test", ".jar");
+		createZipFile(zipPath, "a/b/One.txt");
+
+		CountingArchiveRoot root = new CountingArchiveRoot(zipPath);
+		assertEquals(Arrays.asList("/a/b/One.txt"), relPaths(newScanner(root, ScanIndex.load(indexFile)).findResources()));
+		assertEquals(1, root.walked);
+
+		indexFile.delete();
+		zipPath.delete();
+	}
+
+	private static ClassScanner newScanner(Root root, ScanIndex index) {
+		return newScanner(root, index, new BaseFilter());
+	}
+
+	private static ClassScanner newScanner(Root root, ScanIndex index, Filter filter) {
+		return ClassScanner.with()
+			.scanRoots(Arrays.<Root> asList(root))
+			.index(index)
+			.filter(filter)
+			.build();
+	}
+
+	private static List<String> relPaths(FindResult<RootResource> resources) {
+		return list(resources.transform(new Function<RootResource, String>() {
+			@Override
+			public String apply(RootResource resource) {
+				return resource.getRelPath();
+			}
+		}));
+	}
+
+	private static List<String> toStrings(Collection<ClassInfo> infos) {
+		List<String> strings = Lists.newArrayList();
+		for (ClassInfo info : infos) {
+			strings.add(info.toString());
+		}
+		return strings;
+	}
+
+	private void createZipFile(File path, String... relPaths) throws Exception {
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(path));
+		for (String relPath : relPaths) {
+			zip.putNextEntry(new ZipEntry(relPath));
+		}
+		zip.close();
+	}
+
+	private static class CountingArchiveRoot extends ArchiveRoot {
+		int walked;
+
+		CountingArchiveRoot(File path) {
+			super(path);
+		}
+
+		@Override
+		public CloseableIterator<RootResource> resourceIterator(DirectoryFilter dirFilter) {
+			walked++;
+			return super.resourceIterator(dirFilter);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.codemucker.jfind;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TypeHierarchyIndexTest {
+
+	private final Root root = new DirectoryRoot(new File("."));
+
+	@Test
+	public void findTransitiveSubtypes() {
+		ClassInfo base = info("a.Base", "java.lang.Object", "a.Service");
+		ClassInfo impl = info("b.Impl", "a.Base");
+		ClassInfo subImpl = info("c.SubImpl", "b.Impl", "a.Service");
+		ClassInfo other = info("c.Other", "java.lang.Object");
+		TypeHierarchyIndex index = TypeHierarchyIndex.from(Arrays.asList(base, impl, subImpl, other));
+
+		assertEquals(Arrays.asList(base, subImpl, impl), index.getSubtypes("a.Service"));
+		assertEquals(Arrays.asList(impl, subImpl), index.getSubtypes("a.Base"));
+		assertEquals(Arrays.asList(base, subImpl), index.getDirectSubtypes("a.Service"));
+		assertEquals(4, index.getNumClassesIndexed());
+	}
+
+	@Test
+	public void unknownTypeHasNoSubtypes() {
+		TypeHierarchyIndex index = TypeHierarchyIndex.from(Collections.singletonList(info("a.Base", "java.lang.Object")));
+
+		assertTrue(index.getSubtypes("a.Unknown").isEmpty());
+		assertTrue(index.getSubtypes("a.Base").isEmpty());
+	}
+
+	private ClassInfo info(String className, String superClassName, String... interfaceNames) {
+		RootResource resource = new RootResource(root, className.replace('.', '/') + ".class");
+		List<String> interfaces = Lists.newArrayList(interfaceNames);
+		return new ClassInfo(resource, className, superClassName, interfaces, Collections.<String> emptyList(), 0x0001);
+	}
+}
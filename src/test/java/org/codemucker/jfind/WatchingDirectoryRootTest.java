@@ -0,0 +1,138 @@
+package org.codemucker.jfind;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.codemucker.jfind.ResourceChange.Type;
+import org.codemucker.jfind.Root.RootContentType;
+import org.codemucker.jfind.Root.RootType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class WatchingDirectoryRootTest {
+
+	/** events are delivered asynchronously, and polled for on some platforms */
+	private static final long WAIT_FOR_EVENTS_MS = 15000;
+
+	@Test
+	public void takeChangesTest() throws Exception {
+		File dir = Files.createTempDirectory("test").toFile();
+		writeFile(dir, "a.txt", "a");
+		writeFile(dir, "sub/b.txt", "b");
+		writeFile(dir, ".hidden/c.txt", "c");
+		
+		WatchingDirectoryRoot root = new WatchingDirectoryRoot(dir);
+		try {
+			Assert.assertEquals(ImmutableMap.of("/a.txt", Type.ADDED, "/sub/b.txt", Type.ADDED), toMap(root.takeChanges()));
+			Assert.assertEquals(0, root.takeChanges().size());
+			
+			writeFile(dir, "a.txt", "aaa");
+			FileUtils.deleteDirectory(new File(dir, "sub"));
+			writeFile(dir, "new/d.txt", "d");
+			writeFile(dir, ".hidden/e.txt", "e");
+			
+			Map<String, Type> expect = ImmutableMap.of("/a.txt", Type.CHANGED, "/sub/b.txt", Type.REMOVED, "/new/d.txt", Type.ADDED);
+			Assert.assertEquals(expect, waitForChanges(root, expect));
+		} finally {
+			root.close();
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+	
+	@Test
+	public void iterateFromListingTest() throws Exception {
+		File dir = Files.createTempDirectory("test").toFile();
+		writeFile(dir, "a.txt", "a");
+		writeFile(dir, "sub/b.txt", "b");
+		
+		WatchingDirectoryRoot root = new WatchingDirectoryRoot(dir);
+		try {
+			Assert.assertEquals(Lists.newArrayList("/a.txt", "/sub/b.txt"), relPaths(root.resourceIterator()));
+			
+			writeFile(dir, "other/c.txt", "c");
+			waitForChanges(root, ImmutableMap.of("/a.txt", Type.ADDED, "/sub/b.txt", Type.ADDED, "/other/c.txt", Type.ADDED));
+			
+			Assert.assertEquals(Lists.newArrayList("/a.txt", "/other/c.txt", "/sub/b.txt"), relPaths(root.resourceIterator()));
+			Assert.assertEquals(Lists.newArrayList("/a.txt", "/other/c.txt"), relPaths(root.resourceIterator(new DirectoryFilter() {
+				@Override
+				public boolean isIncludeDirectory(String relDirPath) {
+					return !relDirPath.equals("/sub");
+				}
+			})));
+		} finally {
+			root.close();
+		}
+		// walked as a plain dir once closed
+		Assert.assertEquals(3, relPaths(root.resourceIterator()).size());
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	@Test
+	public void scannerOnlyReportsChangeTrackingRootsTest() throws Exception {
+		File watchedDir = Files.createTempDirectory("test").toFile();
+		File plainDir = Files.createTempDirectory("test").toFile();
+		writeFile(watchedDir, "a.txt", "a");
+		writeFile(plainDir, "b.txt", "b");
+		
+		WatchingDirectoryRoot watched = (WatchingDirectoryRoot) DirectoryRoot.with()
+			.baseDir(watchedDir)
+			.type(RootType.MAIN)
+			.contentType(RootContentType.BINARY)
+			.watch(true)
+			.build();
+		try {
+			ClassScanner scanner = ClassScanner.with()
+				.scanRoots(Lists.<Root>newArrayList(watched, new DirectoryRoot(plainDir)))
+				.build();
+			
+			FindResult<ResourceChange> changes = scanner.findResourceChanges();
+			Assert.assertEquals(ImmutableMap.of("/a.txt", Type.ADDED), toMap(changes.toList()));
+			Assert.assertEquals(1, changes.getStats().getTotal().getResourcesMatched());
+			Assert.assertTrue(scanner.findResourceChanges().isEmpty());
+		} finally {
+			watched.close();
+			FileUtils.deleteDirectory(watchedDir);
+			FileUtils.deleteDirectory(plainDir);
+		}
+	}
+	
+	private static Map<String, Type> waitForChanges(ChangeTrackingRoot root, Map<String, Type> expect) throws InterruptedException {
+		Map<String, Type> changes = Maps.newHashMap();
+		long giveUpAt = System.currentTimeMillis() + WAIT_FOR_EVENTS_MS;
+		while (!changes.equals(expect) && System.currentTimeMillis() < giveUpAt) {
+			changes.putAll(toMap(root.takeChanges()));
+			Thread.sleep(50);
+		}
+		return changes;
+	}
+	
+	private static Map<String, Type> toMap(List<ResourceChange> changes) {
+		Map<String, Type> map = Maps.newHashMap();
+		for (ResourceChange change : changes) {
+			map.put(change.getResource().getRelPath(), change.getType());
+		}
+		return map;
+	}
+	
+	private static List<String> relPaths(CloseableIterator<RootResource> resources) {
+		List<String> relPaths = Lists.newArrayList();
+		while (resources.hasNext()) {
+			relPaths.add(resources.next().getRelPath());
+		}
+		resources.close();
+		return relPaths;
+	}
+	
+	private static File writeFile(File dir, String relPath, String content) throws Exception {
+		File f = new File(dir, relPath);
+		FileUtils.writeStringToFile(f, content, "UTF-8");
+		return f;
+	}
+}
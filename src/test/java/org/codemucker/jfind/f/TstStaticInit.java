@@ -0,0 +1,13 @@
+package org.codemucker.jfind.f;
+
+/**
+ * Records if it has been initialised, so tests can check scanning doesn't run static initialisers
+ */
+public class TstStaticInit {
+
+	public static final String PROP_INITIALISED = "org.codemucker.jfind.f.TstStaticInit.initialised";
+
+	static {
+		System.setProperty(PROP_INITIALISED, "true");
+	}
+}
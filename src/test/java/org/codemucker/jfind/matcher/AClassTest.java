@@ -0,0 +1,71 @@
+package org.codemucker.jfind.matcher;
+
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codemucker.jmatch.Matcher;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+
+public class AClassTest {
+
+	private static final List<Class<?>> CLASSES = Arrays.<Class<?>> asList(String.class, AbstractList.class, ArrayList.class,
+		Serializable.class, Runnable.class, Modifier.class, TstPrivate.class, AClassTest.class, int.class);
+	
+	@Test
+	public void modifierExpressionCompiledTest() {
+		Matcher<Class<?>> compiled = AClass.with().expression("public && !abstract && !interface");
+		for (Class<?> type : CLASSES) {
+			int mods = type.getModifiers();
+			boolean expect = Modifier.isPublic(mods) && !Modifier.isAbstract(mods) && !Modifier.isInterface(mods);
+			Assert.assertEquals(type.getName(), expect, compiled.matches(type));
+		}
+		
+		Matcher<Class<?>> anyOf = AClass.with().expression("isInterface || !public && static");
+		for (Class<?> type : CLASSES) {
+			int mods = type.getModifiers();
+			boolean expect = Modifier.isInterface(mods) || (!Modifier.isPublic(mods) && Modifier.isStatic(mods));
+			Assert.assertEquals(type.getName(), expect, anyOf.matches(type));
+		}
+	}
+	
+	@Test
+	public void mixedExpressionTest() {
+		AClass matcher = AClass.with().expression("public && !anonymous && !interface");
+		Assert.assertTrue(matcher.matches(String.class));
+		Assert.assertFalse(matcher.matches(Runnable.class));
+		Assert.assertFalse(matcher.matches(new Object(){}.getClass()));
+	}
+	
+	@Test
+	public void expressionsParsedOnceTest() {
+		final AtomicInteger parses = new AtomicInteger();
+		ExpressionCache<Class<?>> cache = new ExpressionCache<Class<?>>(new Function<String, Matcher<Class<?>>>() {
+			@Override
+			public Matcher<Class<?>> apply(String expression) {
+				parses.incrementAndGet();
+				return AClass.with().expression(expression);
+			}
+		});
+		
+		Assert.assertSame(cache.get("public && !anonymous"), cache.get(" public && !anonymous "));
+		Assert.assertEquals(1, parses.get());
+	}
+	
+	@Test
+	public void compileOnlyModifiersTest() {
+		Assert.assertNotNull(ModifierExpression.compileOrNull("public && !abstract", Arrays.asList("public", "abstract")));
+		Assert.assertNull(ModifierExpression.compileOrNull("public && !anonymous", Arrays.asList("public", "anonymous")));
+		Assert.assertNull(ModifierExpression.compileOrNull("public && !abstract", Arrays.asList("public")));
+	}
+	
+	private static class TstPrivate {
+	}
+}
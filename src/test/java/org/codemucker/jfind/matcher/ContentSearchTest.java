@@ -0,0 +1,111 @@
+package org.codemucker.jfind.matcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.codemucker.jfind.DirectoryRoot;
+import org.codemucker.jfind.RootResource;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContentSearchTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Charset UTF16 = Charset.forName("UTF-16");
+
+	@Test
+	public void containsTest() throws IOException {
+		ContentSearch search = ContentSearch.contains("needle", UTF8);
+		
+		Assert.assertTrue(search.isFoundIn(stream("needle", UTF8)));
+		Assert.assertTrue(search.isFoundIn(stream("a needle in a haystack", UTF8)));
+		Assert.assertTrue(search.isFoundIn(stream("haystack needle", UTF8)));
+		Assert.assertFalse(search.isFoundIn(stream("haystack needl", UTF8)));
+		Assert.assertFalse(search.isFoundIn(stream("", UTF8)));
+		Assert.assertTrue(ContentSearch.contains("", UTF8).isFoundIn(stream("", UTF8)));
+		Assert.assertTrue(ContentSearch.contains("größe", UTF8).isFoundIn(stream("die größe", UTF8)));
+		Assert.assertFalse(ContentSearch.contains("größe", UTF8).isFoundIn(stream("die grosse", UTF8)));
+	}
+
+	@Test
+	public void containsAcrossBufferBoundaryTest() throws IOException {
+		// 64k buffer, put the literal either side of where it's refilled
+		for (int offset : new int[] { 64 * 1024 - 5, 64 * 1024 - 1, 64 * 1024, 3 * 64 * 1024 + 7 }) {
+			char[] chars = new char[offset + 100];
+			Arrays.fill(chars, 'x');
+			"needle".getChars(0, 6, chars, offset);
+			String content = new String(chars);
+			
+			Assert.assertTrue("at " + offset, ContentSearch.contains("needle", UTF8).isFoundIn(slowStream(content, UTF8)));
+			Assert.assertTrue("at " + offset, ContentSearch.contains("needle", UTF16).isFoundIn(slowStream(content, UTF16)));
+			Assert.assertFalse("at " + offset, ContentSearch.contains("needles", UTF8).isFoundIn(slowStream(content, UTF8)));
+		}
+	}
+
+	@Test
+	public void containsInMultiByteEncodingTest() throws IOException {
+		// searched as chars, as the bytes of one char could line up across two others
+		Assert.assertTrue(ContentSearch.contains("needle", UTF16).isFoundIn(stream("a needle", UTF16)));
+		Assert.assertFalse(ContentSearch.contains("needle", UTF16).isFoundIn(stream("a needle", UTF8)));
+	}
+
+	@Test
+	public void startsWithTest() throws IOException {
+		Assert.assertTrue(ContentSearch.startsWith("<?xml", UTF8).isFoundIn(stream("<?xml version='1.0'?>", UTF8)));
+		Assert.assertTrue(ContentSearch.startsWith("<?xml", UTF16).isFoundIn(stream("<?xml version='1.0'?>", UTF16)));
+		Assert.assertFalse(ContentSearch.startsWith("<?xml", UTF8).isFoundIn(stream(" <?xml", UTF8)));
+		Assert.assertFalse(ContentSearch.startsWith("<?xml", UTF8).isFoundIn(stream("<?x", UTF8)));
+	}
+
+	@Test
+	public void lineMatchingTest() throws IOException {
+		ContentSearch search = ContentSearch.lineMatching(Pattern.compile("^version=\\d+$"), UTF8);
+		
+		Assert.assertTrue(search.isFoundIn(stream("name=foo\nversion=12\nother=bar", UTF8)));
+		Assert.assertTrue(search.isFoundIn(stream("name=foo\r\nversion=12", UTF8)));
+		Assert.assertFalse(search.isFoundIn(stream("name=foo\nversion=12b", UTF8)));
+		Assert.assertFalse(ContentSearch.lineMatching(Pattern.compile("foo.bar"), UTF8).isFoundIn(stream("foo\nbar", UTF8)));
+	}
+
+	@Test
+	public void resourceContentTest() throws IOException {
+		File dir = FileUtils.getTempDirectory();
+		File file = File.createTempFile("ContentSearchTest", ".txt", dir);
+		try {
+			FileUtils.writeStringToFile(file, "line one\nline two\n", "UTF-8");
+			RootResource resource = new RootResource(new DirectoryRoot(dir), file.getName());
+			
+			Assert.assertTrue(ARootResource.with().contentContains("two").matches(resource));
+			Assert.assertFalse(ARootResource.with().contentContains("three").matches(resource));
+			Assert.assertTrue(ARootResource.with().contentStartsWith("line").matches(resource));
+			Assert.assertFalse(ARootResource.with().contentStartsWith("two").matches(resource));
+			Assert.assertTrue(ARootResource.with().contentMatchesRegex("^line t\\w+$").matches(resource));
+			Assert.assertFalse(ARootResource.with().contentMatchesRegex("one.line").matches(resource));
+			Assert.assertFalse(ARootResource.with().contentContains("line").matches(new RootResource(new DirectoryRoot(dir), "does/not/exist.txt")));
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static InputStream stream(String content, Charset charset) {
+		return new ByteArrayInputStream(content.getBytes(charset));
+	}
+
+	/**
+	 * Returns a few bytes per read, as a socket or decompressing stream might
+	 */
+	private static InputStream slowStream(String content, Charset charset) {
+		return new ByteArrayInputStream(content.getBytes(charset)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1001));
+			}
+		};
+	}
+}
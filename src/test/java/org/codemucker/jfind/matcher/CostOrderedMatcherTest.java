@@ -0,0 +1,54 @@
+package org.codemucker.jfind.matcher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codemucker.jmatch.AbstractNotNullMatcher;
+import org.codemucker.jmatch.MatchDiagnostics;
+import org.codemucker.jmatch.Matcher;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CostOrderedMatcherTest {
+
+	@Test
+	public void cheapMatchersRunFirstTest() {
+		AtomicInteger methodChecks = new AtomicInteger();
+		AClass matcher = AClass.with().method(counting(methodChecks, true)).isNotInterface();
+		
+		Assert.assertFalse(matcher.matches(Runnable.class));
+		Assert.assertEquals(0, methodChecks.get());
+		
+		Assert.assertTrue(matcher.matches(Thread.class));
+		Assert.assertTrue(methodChecks.get() > 0);
+	}
+	
+	@Test
+	public void adaptiveOrderRunsMostRejectingFirstTest() {
+		AtomicInteger rarelyRejects = new AtomicInteger();
+		AtomicInteger alwaysRejects = new AtomicInteger();
+		CostOrderedMatcher<String> matcher = new CostOrderedMatcher<String>();
+		// same cost, so by default run in the order added
+		matcher.add(counting(rarelyRejects, true), MatcherCost.NAME);
+		matcher.add(counting(alwaysRejects, false), MatcherCost.NAME);
+		matcher.setAdaptive(true);
+		
+		for (int i = 0; i < 2048; i++) {
+			Assert.assertFalse(matcher.matches("x"));
+		}
+		int rarelyRejectsBefore = rarelyRejects.get();
+		for (int i = 0; i < 100; i++) {
+			matcher.matches("x");
+		}
+		Assert.assertEquals(rarelyRejectsBefore, rarelyRejects.get());
+	}
+	
+	private static <T> Matcher<T> counting(final AtomicInteger count, final boolean result) {
+		return new AbstractNotNullMatcher<T>() {
+			@Override
+			protected boolean matchesSafely(T actual, MatchDiagnostics diag) {
+				count.incrementAndGet();
+				return result;
+			}
+		};
+	}
+}
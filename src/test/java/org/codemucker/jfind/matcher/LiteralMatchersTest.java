@@ -0,0 +1,77 @@
+package org.codemucker.jfind.matcher;
+
+import java.io.File;
+
+import org.codemucker.jfind.DirectoryRoot;
+import org.codemucker.jfind.RootResource;
+import org.codemucker.jmatch.AString;
+import org.codemucker.jmatch.Matcher;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LiteralMatchersTest {
+
+	private static final String[] PATHS = {
+		"/Foo.class",
+		"/com/acme/Foo.class",
+		"/com/acme/Foo.properties",
+		"/com/acme/sub/Bar.class",
+		"/com/acme/sub/Bar$Inner.class",
+		"/com/acmeish/Baz.class",
+		"/org/other/Foo.class",
+		"/com/acme/",
+		"",
+	};
+	
+	@Test
+	public void literalAntPatternsMatchAsRegexTest() {
+		String[] patterns = {
+			"/com/acme/Foo.class",
+			"**.class",
+			"/com/acme/**",
+			"/com/acme/**.class",
+			"**/Foo.class",
+			"**/*.class",
+			"/com/acme/**/*.class",
+			"/com/**/sub/**",
+			"**/sub/**",
+			"**",
+		};
+		for (String pattern : patterns) {
+			assertSame(pattern, AString.matchingAntFilePathPattern(pattern), LiteralMatchers.antFilePathPattern(pattern));
+			assertSame(pattern, AString.matchingAntPattern(pattern), LiteralMatchers.antPattern(pattern));
+		}
+	}
+	
+	@Test
+	public void onlyLiteralPatternsSkipRegexTest() {
+		Assert.assertTrue(LiteralMatchers.isLiteral(LiteralMatchers.antFilePathPattern("/com/acme/**/*.class")));
+		Assert.assertTrue(LiteralMatchers.isLiteral(LiteralMatchers.antPattern("*.class")));
+		Assert.assertFalse(LiteralMatchers.isLiteral(LiteralMatchers.antFilePathPattern("*.class")));
+		Assert.assertFalse(LiteralMatchers.isLiteral(LiteralMatchers.antFilePathPattern("**/Foo?.class")));
+		Assert.assertFalse(LiteralMatchers.isLiteral(LiteralMatchers.antFilePathPattern("/com/**/sub/**")));
+	}
+	
+	@Test
+	public void packageMatchersTest() {
+		Matcher<String> className = AClassName.with().packageName("com.acme");
+		Assert.assertTrue(className.matches("com.acme.Foo"));
+		Assert.assertFalse(className.matches("com.acme.sub.Bar"));
+		Assert.assertFalse(className.matches("com.acmeish.Baz"));
+		
+		ARootResource resource = ARootResource.with().packageName("com.acme").extension("class");
+		DirectoryRoot root = new DirectoryRoot(new File("."));
+		for (String path : PATHS) {
+			if (path.length() > 1 && !path.endsWith("/")) {
+				boolean expect = path.startsWith("/com/acme/") && path.lastIndexOf('/') == "/com/acme".length() && path.endsWith(".class");
+				Assert.assertEquals(path, expect, resource.matches(new RootResource(root, path)));
+			}
+		}
+	}
+	
+	private static void assertSame(String pattern, Matcher<String> expect, Matcher<String> actual) {
+		for (String path : PATHS) {
+			Assert.assertEquals("pattern '" + pattern + "', path '" + path + "'", expect.matches(path), actual.matches(path));
+		}
+	}
+}